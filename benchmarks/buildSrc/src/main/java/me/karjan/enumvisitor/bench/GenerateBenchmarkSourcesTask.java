@@ -0,0 +1,225 @@
+package me.karjan.enumvisitor.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Writes the enum definitions used by the benchmarks, together with the Java fixtures which
+ * exercise them. The fixtures have to be generated as well, because a plain {@code switch}, the
+ * constant-specific baseline and the visitors all spell out every member of the enum.
+ *
+ * <p>For every size {@code N} this writes the definitions {@code BodiesN} and {@code SwitchN}, one
+ * per dispatch mode, and the Java sources {@code VirtualN}, an enum with a constant-specific
+ * method, and {@code FixtureN}, the {@code DispatchFixture} for that size.
+ */
+@CacheableTask
+public abstract class GenerateBenchmarkSourcesTask extends DefaultTask {
+
+  static final String PACKAGE = "me.karjan.enumvisitor.bench";
+  static final String PACKAGE_PATH = PACKAGE.replace('.', '/');
+
+  /** The number of visitor implementations per dispatch mode, the megamorphic case. */
+  static final int VISITOR_COUNT = 4;
+
+  private static final String NL = "\n";
+
+  /** The member counts of the generated enums. */
+  @Input
+  public abstract ListProperty<Integer> getSizes();
+
+  /** The location of the generated enum definitions. */
+  @OutputDirectory
+  public abstract DirectoryProperty getDefinitionsDirectory();
+
+  /** The location of the generated Java fixtures. */
+  @OutputDirectory
+  public abstract DirectoryProperty getJavaDirectory();
+
+  @TaskAction
+  void generate() throws IOException {
+    File definitions = new File(getDefinitionsDirectory().get().getAsFile(), PACKAGE_PATH);
+    File java = new File(getJavaDirectory().get().getAsFile(), PACKAGE_PATH);
+    definitions.mkdirs();
+    java.mkdirs();
+    for (int size : getSizes().get()) {
+      write(new File(definitions, "Bodies" + size + ".v"), definition("bodies", size));
+      write(new File(definitions, "Switch" + size + ".v"), definition("switch", size));
+      write(new File(java, "Virtual" + size + ".java"), virtualEnum(size));
+      write(new File(java, "Fixture" + size + ".java"), fixture(size));
+    }
+    write(new File(java, "DispatchFixtures.java"), fixtureFactory());
+  }
+
+  private static void write(File file, String contents) throws IOException {
+    Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String definition(String dispatch, int size) {
+    StringBuilder out = new StringBuilder("@dispatch " + dispatch + NL);
+    for (int i = 0; i < size; i++) {
+      out.append("M").append(i).append(NL);
+    }
+    return out.toString();
+  }
+
+  /** The baseline which returns the result from a method overridden by every constant. */
+  private static String virtualEnum(int size) {
+    StringBuilder out = header();
+    out.append("enum Virtual" + size + " {" + NL);
+    for (int i = 0; i < size; i++) {
+      out.append("  M" + i + " {" + NL)
+          .append("    Integer value() {" + NL)
+          .append("      return Fixture" + size + ".RESULTS[" + i + "];" + NL)
+          .append("    }" + NL)
+          .append("  }" + (i + 1 < size ? "," : ";") + NL);
+    }
+    out.append(NL + "  abstract Integer value();" + NL + "}" + NL);
+    return out.toString();
+  }
+
+  private static String fixture(int size) {
+    String bodies = "Bodies" + size;
+    String switched = "Switch" + size;
+    String virtual = "Virtual" + size;
+    StringBuilder out = header();
+    out.append("import java.util.EnumMap;" + NL)
+        .append("import org.openjdk.jmh.infra.Blackhole;" + NL + NL)
+        .append("@SuppressWarnings(\"unchecked\")" + NL)
+        .append("final class Fixture" + size + " implements DispatchFixture {" + NL + NL)
+        .append("  static final Integer[] RESULTS = DispatchFixture.results(" + size + ");" + NL)
+        .append(NL)
+        .append("  private final " + bodies + "[] bodies;" + NL)
+        .append("  private final " + switched + "[] switches;" + NL)
+        .append("  private final " + virtual + "[] virtuals;" + NL)
+        .append("  private final " + bodies + "." + bodies + "Visitor<Integer>[] ")
+        .append("bodiesVisitors;" + NL)
+        .append("  private final " + switched + "." + switched + "Visitor<Integer>[] ")
+        .append("switchVisitors;" + NL)
+        .append("  private final EnumMap<" + switched + ", Integer> map;" + NL + NL)
+        .append("  Fixture" + size + "(int[] ordinals, int visitorCount) {" + NL)
+        .append("    bodies = new " + bodies + "[ordinals.length];" + NL)
+        .append("    switches = new " + switched + "[ordinals.length];" + NL)
+        .append("    virtuals = new " + virtual + "[ordinals.length];" + NL)
+        .append("    for (int i = 0; i < ordinals.length; i++) {" + NL)
+        .append("      bodies[i] = " + bodies + ".values()[ordinals[i]];" + NL)
+        .append("      switches[i] = " + switched + ".values()[ordinals[i]];" + NL)
+        .append("      virtuals[i] = " + virtual + ".values()[ordinals[i]];" + NL)
+        .append("    }" + NL)
+        .append("    bodiesVisitors = new " + bodies + "." + bodies + "Visitor[visitorCount];" + NL)
+        .append("    switchVisitors = new " + switched + "." + switched + "Visitor[visitorCount];")
+        .append(NL)
+        .append("    for (int i = 0; i < visitorCount; i++) {" + NL)
+        .append("      bodiesVisitors[i] = newBodiesVisitor(i);" + NL)
+        .append("      switchVisitors[i] = newSwitchVisitor(i);" + NL)
+        .append("    }" + NL)
+        .append("    map = new EnumMap<>(" + switched + ".class);" + NL)
+        .append("    for (" + switched + " value : " + switched + ".values()) {" + NL)
+        .append("      map.put(value, RESULTS[value.ordinal()]);" + NL)
+        .append("    }" + NL)
+        .append("  }" + NL + NL);
+
+    appendLoop(out, "acceptConstantBodies", "bodies", "values[i].accept(visitors[i & mask])");
+    appendLoop(out, "acceptSwitch", "switches", "values[i].accept(visitors[i & mask])");
+    appendLoop(out, "plainSwitch", "switches", "plainSwitch(values[i])");
+    appendLoop(out, "enumMapLookup", "switches", "map.get(values[i])");
+    appendLoop(out, "virtualMethod", "virtuals", "values[i].value()");
+
+    // Switching on the constants themselves does not compile for thousands of members, as the
+    // initializer of the synthetic switch map exceeds the method size limit. The ordinal is what
+    // such a switch ends up switching on anyway.
+    out.append("  private static Integer plainSwitch(" + switched + " value) {" + NL)
+        .append("    switch (value.ordinal()) {" + NL);
+    for (int i = 0; i < size; i++) {
+      out.append("      case " + i + ":" + NL).append("        return RESULTS[" + i + "];" + NL);
+    }
+    out.append("      default:" + NL)
+        .append("        throw new AssertionError(value);" + NL)
+        .append("    }" + NL)
+        .append("  }" + NL + NL);
+
+    appendVisitors(out, "Bodies", bodies + "." + bodies + "Visitor", size);
+    appendVisitors(out, "Switch", switched + "." + switched + "Visitor", size);
+    out.append("}" + NL);
+    return out.toString();
+  }
+
+  private static void appendLoop(StringBuilder out, String method, String array, String call) {
+    boolean visits = call.contains("visitors");
+    out.append("  @Override" + NL)
+        .append("  public void " + method + "(Blackhole blackhole) {" + NL)
+        .append("    var values = " + array + ";" + NL);
+    if (visits) {
+      String visitors = array.equals("bodies") ? "bodiesVisitors" : "switchVisitors";
+      out.append("    var visitors = " + visitors + ";" + NL)
+          .append("    int mask = visitors.length - 1;" + NL);
+    }
+    out.append("    for (int i = 0; i < values.length; i++) {" + NL)
+        .append("      blackhole.consume(" + call + ");" + NL)
+        .append("    }" + NL)
+        .append("  }" + NL + NL);
+  }
+
+  /**
+   * Appends {@value #VISITOR_COUNT} distinct visitor classes, so the call site of {@code accept}
+   * can be made monomorphic, bimorphic or megamorphic.
+   */
+  private static void appendVisitors(
+      StringBuilder out, String prefix, String visitorType, int size) {
+    out.append("  private static " + visitorType + "<Integer> new" + prefix + "Visitor(int i) {")
+        .append(NL)
+        .append("    switch (i) {" + NL);
+    for (int v = 0; v < VISITOR_COUNT; v++) {
+      out.append("      case " + v + ":" + NL)
+          .append("        return new " + prefix + "Visitor" + v + "();" + NL);
+    }
+    out.append("      default:" + NL)
+        .append("        throw new IllegalArgumentException(\"No visitor \" + i);" + NL)
+        .append("    }" + NL)
+        .append("  }" + NL + NL);
+    for (int v = 0; v < VISITOR_COUNT; v++) {
+      out.append("  private static final class " + prefix + "Visitor" + v)
+          .append(" implements " + visitorType + "<Integer> {" + NL);
+      for (int i = 0; i < size; i++) {
+        out.append("    public Integer visitM" + i + "() {" + NL)
+            .append("      return RESULTS[" + ((i + v) % size) + "];" + NL)
+            .append("    }" + NL);
+      }
+      out.append("  }" + NL + NL);
+    }
+  }
+
+  private String fixtureFactory() {
+    StringBuilder out = header();
+    out.append("final class DispatchFixtures {" + NL + NL)
+        .append("  private DispatchFixtures() {}" + NL + NL)
+        .append("  static DispatchFixture create(int size, int[] ordinals, int visitorCount) {")
+        .append(NL)
+        .append("    switch (size) {" + NL);
+    for (int size : getSizes().get()) {
+      out.append("      case " + size + ":" + NL)
+          .append("        return new Fixture" + size + "(ordinals, visitorCount);" + NL);
+    }
+    out.append("      default:" + NL)
+        .append("        throw new IllegalArgumentException(\"No fixture for size \" + size);")
+        .append(NL)
+        .append("    }" + NL)
+        .append("  }" + NL)
+        .append("}" + NL);
+    return out.toString();
+  }
+
+  private static StringBuilder header() {
+    return new StringBuilder()
+        .append("package " + PACKAGE + ";" + NL + NL)
+        .append("// Generated by " + GenerateBenchmarkSourcesTask.class.getSimpleName() + NL + NL);
+  }
+}
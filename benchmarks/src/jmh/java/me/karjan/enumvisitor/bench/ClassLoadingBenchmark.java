@@ -0,0 +1,56 @@
+package me.karjan.enumvisitor.bench;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the startup cost of each dispatch mode: loading and initializing a generated enum from
+ * a fresh class loader, which with {@code @dispatch bodies} includes a class per constant. The
+ * number of classes per mode is printed by the {@code reportDispatchClassCounts} task.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 50)
+@Fork(2)
+public class ClassLoadingBenchmark {
+
+  @Param({"Bodies", "Switch"})
+  String dispatch;
+
+  /** Must match the sizes generated by the build. */
+  @Param({"8", "64", "512", "4096"})
+  int size;
+
+  private URL classesLocation;
+
+  @Setup
+  public void setUp() throws ClassNotFoundException {
+    String className = getClass().getPackageName() + "." + dispatch + size;
+    classesLocation = Class.forName(className).getProtectionDomain().getCodeSource().getLocation();
+  }
+
+  @Benchmark
+  public Object loadAndInitialize() throws Exception {
+    // The platform class loader as parent makes sure the enum is loaded again every time
+    try (URLClassLoader loader =
+        new URLClassLoader(new URL[] {classesLocation}, ClassLoader.getPlatformClassLoader())) {
+      Class<?> enumClass =
+          Class.forName(getClass().getPackageName() + "." + dispatch + size, true, loader);
+      return enumClass.getEnumConstants();
+    }
+  }
+}
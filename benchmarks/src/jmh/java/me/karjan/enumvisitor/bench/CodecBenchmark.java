@@ -0,0 +1,93 @@
+package me.karjan.enumvisitor.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares writing and reading members by name, as a length prefixed UTF-8 string looked up with
+ * {@code valueOf}, with the generated {@code PlanetCodec} writing their wire ids as varints or with
+ * a fixed width, on a random stream of members. Run it with {@code -PjmhProfilers=gc} to see the
+ * allocation rate of each.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(CodecBenchmark.OPERATIONS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CodecBenchmark {
+
+  static final int OPERATIONS = 1024;
+
+  private final ByteBuffer buffer = ByteBuffer.allocate(OPERATIONS * 16);
+  private Planet[] planets;
+
+  @Setup
+  public void setUp() {
+    Planet[] values = Planet.values();
+    planets = new Planet[OPERATIONS];
+    Random random = new Random(42);
+    for (int i = 0; i < OPERATIONS; i++) {
+      planets[i] = values[random.nextInt(values.length)];
+    }
+  }
+
+  @Benchmark
+  public int names() {
+    buffer.clear();
+    for (Planet planet : planets) {
+      byte[] name = planet.name().getBytes(StandardCharsets.UTF_8);
+      buffer.put((byte) name.length).put(name);
+    }
+    buffer.flip();
+    int total = 0;
+    while (buffer.hasRemaining()) {
+      byte[] name = new byte[buffer.get()];
+      buffer.get(name);
+      total += Planet.valueOf(new String(name, StandardCharsets.UTF_8)).ordinal();
+    }
+    return total;
+  }
+
+  @Benchmark
+  public int varints() {
+    buffer.clear();
+    for (Planet planet : planets) {
+      PlanetCodec.write(planet, buffer);
+    }
+    buffer.flip();
+    int total = 0;
+    while (buffer.hasRemaining()) {
+      total += PlanetCodec.read(buffer).ordinal();
+    }
+    return total;
+  }
+
+  @Benchmark
+  public int fixed() {
+    buffer.clear();
+    for (Planet planet : planets) {
+      PlanetCodec.writeFixed(planet, buffer);
+    }
+    buffer.flip();
+    int total = 0;
+    while (buffer.hasRemaining()) {
+      total += PlanetCodec.readFixed(buffer).ordinal();
+    }
+    return total;
+  }
+}
@@ -0,0 +1,68 @@
+package me.karjan.enumvisitor.bench;
+
+import java.util.EnumMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares per member metadata kept in {@link EnumMap}s with the columns of the definition, read
+ * from the generated {@code moons()} and {@code mass()} accessors, on a random stream of members.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(ColumnBenchmark.OPERATIONS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ColumnBenchmark {
+
+  static final int OPERATIONS = 1024;
+
+  private final EnumMap<Planet, Integer> moons = new EnumMap<>(Planet.class);
+  private final EnumMap<Planet, Double> masses = new EnumMap<>(Planet.class);
+  private Planet[] planets;
+
+  @Setup
+  public void setUp() {
+    for (Planet planet : Planet.values()) {
+      moons.put(planet, planet.moons());
+      masses.put(planet, planet.mass());
+    }
+    Planet[] values = Planet.values();
+    planets = new Planet[OPERATIONS];
+    Random random = new Random(42);
+    for (int i = 0; i < OPERATIONS; i++) {
+      planets[i] = values[random.nextInt(values.length)];
+    }
+  }
+
+  @Benchmark
+  public double enumMaps() {
+    double total = 0;
+    for (Planet planet : planets) {
+      total += moons.get(planet) * masses.get(planet);
+    }
+    return total;
+  }
+
+  @Benchmark
+  public double columns() {
+    double total = 0;
+    for (Planet planet : planets) {
+      total += planet.moons() * planet.mass();
+    }
+    return total;
+  }
+}
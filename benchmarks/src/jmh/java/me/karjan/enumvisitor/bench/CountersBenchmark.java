@@ -0,0 +1,87 @@
+package me.karjan.enumvisitor.bench;
+
+import java.util.EnumMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares counting events per member from several threads at once with an {@link EnumMap} of
+ * {@link LongAdder}s, a plain {@link AtomicLongArray} indexed by ordinal, and the generated {@code
+ * PlanetCounters}. The counters are shared by all the threads, each of which counts its own random
+ * stream of members. Change the number of threads with {@code -PjmhThreads=16}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(CountersBenchmark.OPERATIONS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(2)
+public class CountersBenchmark {
+
+  static final int OPERATIONS = 1024;
+
+  private final EnumMap<Planet, LongAdder> adders = new EnumMap<>(Planet.class);
+  private final AtomicLongArray atomics = new AtomicLongArray(Planet.values().length);
+  private final PlanetCounters counters = new PlanetCounters();
+
+  /** The members counted by a single thread. */
+  @State(Scope.Thread)
+  public static class Stream {
+
+    private Planet[] planets;
+
+    @Setup
+    public void setUp() {
+      Planet[] values = Planet.values();
+      planets = new Planet[OPERATIONS];
+      Random random = new Random(Thread.currentThread().getName().hashCode());
+      for (int i = 0; i < OPERATIONS; i++) {
+        planets[i] = values[random.nextInt(values.length)];
+      }
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    for (Planet planet : Planet.values()) {
+      adders.put(planet, new LongAdder());
+    }
+  }
+
+  @Benchmark
+  public void enumMapLongAdders(Stream stream) {
+    for (Planet planet : stream.planets) {
+      adders.get(planet).increment();
+    }
+  }
+
+  @Benchmark
+  public void atomicLongArray(Stream stream) {
+    for (Planet planet : stream.planets) {
+      atomics.getAndIncrement(planet.ordinal());
+    }
+  }
+
+  @Benchmark
+  public void counters(Stream stream) {
+    for (Planet planet : stream.planets) {
+      counters.increment(planet);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package me.karjan.enumvisitor.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the cost of mapping an enum constant to a result through the generated {@code
+ * accept(visitor)}, in both dispatch modes, against a plain {@code switch}, an {@code EnumMap}
+ * lookup and a method overridden by every constant.
+ *
+ * <p>Each invocation maps {@value #OPERATIONS} constants picked at random. The visitors passed to
+ * {@code accept} rotate between one, two or four implementations, which makes the call site to the
+ * visitor monomorphic, bimorphic or megamorphic.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(DispatchBenchmark.OPERATIONS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DispatchBenchmark {
+
+  static final int OPERATIONS = 1024;
+
+  /** Must match the sizes generated by the build. */
+  @Param({"8", "64", "512", "4096"})
+  int size;
+
+  @Param({"monomorphic", "bimorphic", "megamorphic"})
+  String callSite;
+
+  private DispatchFixture fixture;
+
+  @Setup
+  public void setUp() {
+    int[] ordinals = new Random(42).ints(OPERATIONS, 0, size).toArray();
+    fixture = DispatchFixtures.create(size, ordinals, visitorCount(callSite));
+  }
+
+  private static int visitorCount(String callSite) {
+    switch (callSite) {
+      case "monomorphic":
+        return 1;
+      case "bimorphic":
+        return 2;
+      case "megamorphic":
+        // The number of visitor implementations generated by the build
+        return 4;
+      default:
+        throw new IllegalArgumentException("Unknown call site " + callSite);
+    }
+  }
+
+  @Benchmark
+  public void acceptConstantBodies(Blackhole blackhole) {
+    fixture.acceptConstantBodies(blackhole);
+  }
+
+  @Benchmark
+  public void acceptSwitch(Blackhole blackhole) {
+    fixture.acceptSwitch(blackhole);
+  }
+
+  @Benchmark
+  public void plainSwitch(Blackhole blackhole) {
+    fixture.plainSwitch(blackhole);
+  }
+
+  @Benchmark
+  public void enumMapLookup(Blackhole blackhole) {
+    fixture.enumMapLookup(blackhole);
+  }
+
+  @Benchmark
+  public void virtualMethod(Blackhole blackhole) {
+    fixture.virtualMethod(blackhole);
+  }
+}
@@ -0,0 +1,38 @@
+package me.karjan.enumvisitor.bench;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The hot loops of {@link DispatchBenchmark} for enums of one size. Each method maps every
+ * operation of the fixture to its result with a different dispatch technique. The implementations
+ * are generated by the build, one per size.
+ */
+interface DispatchFixture {
+
+  /** {@code accept(visitor)} on an enum generated with {@code @dispatch bodies}. */
+  void acceptConstantBodies(Blackhole blackhole);
+
+  /** {@code accept(visitor)} on an enum generated with {@code @dispatch switch}. */
+  void acceptSwitch(Blackhole blackhole);
+
+  /** A hand written {@code switch} over the ordinal of the constants. */
+  void plainSwitch(Blackhole blackhole);
+
+  /** A lookup in an {@link java.util.EnumMap} populated up front. */
+  void enumMapLookup(Blackhole blackhole);
+
+  /** A method overridden by every constant of a hand written enum. */
+  void virtualMethod(Blackhole blackhole);
+
+  /**
+   * Returns the preallocated result of each ordinal, so no technique pays for boxing in the
+   * measurement.
+   */
+  static Integer[] results(int size) {
+    Integer[] results = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      results[i] = Integer.valueOf(i * 31);
+    }
+    return results;
+  }
+}
@@ -0,0 +1,121 @@
+package me.karjan.enumvisitor.bench;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares keeping a value per member, read and updated from several threads at once, in a
+ * {@link ConcurrentHashMap}, in an {@link EnumMap} wrapped by {@link
+ * Collections#synchronizedMap(Map)}, and in the generated {@code PlanetMap}. The maps are shared
+ * by all the threads, each of which looks up or updates its own random stream of members. The
+ * {@code get} benchmarks model handlers looked up on every request, the {@code compute} ones a
+ * state replaced on every event. Change the number of threads with {@code -PjmhThreads=16}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(MapBenchmark.OPERATIONS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(2)
+public class MapBenchmark {
+
+  static final int OPERATIONS = 1024;
+
+  private final Map<Planet, Long> concurrentHashMap = new ConcurrentHashMap<>();
+  private final Map<Planet, Long> synchronizedEnumMap =
+      Collections.synchronizedMap(new EnumMap<>(Planet.class));
+  private final PlanetMap<Long> planetMap = new PlanetMap<>();
+
+  /** The members looked up or updated by a single thread. */
+  @State(Scope.Thread)
+  public static class Stream {
+
+    private Planet[] planets;
+
+    @Setup
+    public void setUp() {
+      Planet[] values = Planet.values();
+      planets = new Planet[OPERATIONS];
+      Random random = new Random(Thread.currentThread().getName().hashCode());
+      for (int i = 0; i < OPERATIONS; i++) {
+        planets[i] = values[random.nextInt(values.length)];
+      }
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    for (Planet planet : Planet.values()) {
+      Long value = (long) planet.ordinal();
+      concurrentHashMap.put(planet, value);
+      synchronizedEnumMap.put(planet, value);
+      planetMap.put(planet, value);
+    }
+  }
+
+  @Benchmark
+  public long concurrentHashMapGet(Stream stream) {
+    long total = 0;
+    for (Planet planet : stream.planets) {
+      total += concurrentHashMap.get(planet);
+    }
+    return total;
+  }
+
+  @Benchmark
+  public long synchronizedEnumMapGet(Stream stream) {
+    long total = 0;
+    for (Planet planet : stream.planets) {
+      total += synchronizedEnumMap.get(planet);
+    }
+    return total;
+  }
+
+  @Benchmark
+  public long mapGet(Stream stream) {
+    long total = 0;
+    for (Planet planet : stream.planets) {
+      total += planetMap.get(planet);
+    }
+    return total;
+  }
+
+  @Benchmark
+  public void concurrentHashMapCompute(Stream stream) {
+    for (Planet planet : stream.planets) {
+      concurrentHashMap.compute(planet, (key, value) -> value + 1);
+    }
+  }
+
+  @Benchmark
+  public void synchronizedEnumMapCompute(Stream stream) {
+    for (Planet planet : stream.planets) {
+      synchronizedEnumMap.compute(planet, (key, value) -> value + 1);
+    }
+  }
+
+  @Benchmark
+  public void mapCompute(Stream stream) {
+    for (Planet planet : stream.planets) {
+      planetMap.compute(planet, (key, value) -> value + 1);
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package me.karjan.enumvisitor.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares {@link Enum#valueOf} with the {@code parse} methods generated by {@code @parsers}, on
+ * names given as strings and as UTF-8 bytes, as they come off the wire. The share of names which
+ * are not members is a parameter: {@code valueOf} throws for them, {@code parse} returns null.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(ParseBenchmark.OPERATIONS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParseBenchmark {
+
+  static final int OPERATIONS = 1024;
+
+  private static final String[] MISSES = {"Pluto", "Ceres", "Eris", "Moon", "earth", "Marsh"};
+
+  /** The percentage of the names which are not members. */
+  @Param({"0", "10"})
+  public int missPercentage;
+
+  private String[] names;
+  private byte[][] bytes;
+
+  @Setup
+  public void setUp() {
+    Planet[] planets = Planet.values();
+    names = new String[OPERATIONS];
+    bytes = new byte[OPERATIONS][];
+    Random random = new Random(42);
+    for (int i = 0; i < OPERATIONS; i++) {
+      names[i] =
+          random.nextInt(100) < missPercentage
+              ? MISSES[random.nextInt(MISSES.length)]
+              : planets[random.nextInt(planets.length)].name();
+      bytes[i] = names[i].getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  @Benchmark
+  public void valueOfString(Blackhole blackhole) {
+    for (String name : names) {
+      blackhole.consume(valueOf(name));
+    }
+  }
+
+  @Benchmark
+  public void parseString(Blackhole blackhole) {
+    for (String name : names) {
+      blackhole.consume(Planet.parse(name));
+    }
+  }
+
+  @Benchmark
+  public void valueOfBytes(Blackhole blackhole) {
+    for (byte[] name : bytes) {
+      blackhole.consume(valueOf(new String(name, 0, name.length, StandardCharsets.UTF_8)));
+    }
+  }
+
+  @Benchmark
+  public void parseBytes(Blackhole blackhole) {
+    for (byte[] name : bytes) {
+      blackhole.consume(Planet.parse(name, 0, name.length));
+    }
+  }
+
+  /** {@link Planet#valueOf} with the same contract as {@code parse}. */
+  private static Planet valueOf(String name) {
+    try {
+      return Planet.valueOf(name);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package me.karjan.enumvisitor.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares a generic {@code PlanetVisitor<Long>} with the specialized {@code PlanetLongVisitor}
+ * generated by {@code @primitiveVisitors long}. Run it with {@code -PjmhProfilers=gc}: the
+ * allocation rate per operation ({@code gc.alloc.rate.norm}) of the primitive variant is zero,
+ * while the generic variant boxes every result.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(PrimitiveVisitorBenchmark.OPERATIONS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PrimitiveVisitorBenchmark {
+
+  static final int OPERATIONS = 1024;
+
+  private final Planet.PlanetVisitor<Long> boxedVisitor = new BoxedMassVisitor();
+  private final Planet.PlanetLongVisitor primitiveVisitor = new PrimitiveMassVisitor();
+  private Planet[] operations;
+
+  @Setup
+  public void setUp() {
+    Planet[] planets = Planet.values();
+    operations = new Planet[OPERATIONS];
+    Random random = new Random(42);
+    for (int i = 0; i < OPERATIONS; i++) {
+      operations[i] = planets[random.nextInt(planets.length)];
+    }
+  }
+
+  @Benchmark
+  public void boxed(Blackhole blackhole) {
+    for (Planet planet : operations) {
+      blackhole.consume(planet.accept(boxedVisitor));
+    }
+  }
+
+  @Benchmark
+  public void primitive(Blackhole blackhole) {
+    for (Planet planet : operations) {
+      blackhole.consume(planet.acceptLong(primitiveVisitor));
+    }
+  }
+
+  /** The mass of the planets in 10^21 kg, all outside of the cache of {@link Long#valueOf}. */
+  private static final class BoxedMassVisitor implements Planet.PlanetVisitor<Long> {
+    public Long visitMercury() {
+      return 330L;
+    }
+
+    public Long visitVenus() {
+      return 4_868L;
+    }
+
+    public Long visitEarth() {
+      return 5_972L;
+    }
+
+    public Long visitMars() {
+      return 642L;
+    }
+
+    public Long visitJupiter() {
+      return 1_898_187L;
+    }
+
+    public Long visitSaturn() {
+      return 568_317L;
+    }
+
+    public Long visitUranus() {
+      return 86_813L;
+    }
+
+    public Long visitNeptune() {
+      return 102_413L;
+    }
+  }
+
+  /** The same masses as {@link BoxedMassVisitor}, without boxing. */
+  private static final class PrimitiveMassVisitor implements Planet.PlanetLongVisitor {
+    public long visitMercury() {
+      return 330L;
+    }
+
+    public long visitVenus() {
+      return 4_868L;
+    }
+
+    public long visitEarth() {
+      return 5_972L;
+    }
+
+    public long visitMars() {
+      return 642L;
+    }
+
+    public long visitJupiter() {
+      return 1_898_187L;
+    }
+
+    public long visitSaturn() {
+      return 568_317L;
+    }
+
+    public long visitUranus() {
+      return 86_813L;
+    }
+
+    public long visitNeptune() {
+      return 102_413L;
+    }
+  }
+}
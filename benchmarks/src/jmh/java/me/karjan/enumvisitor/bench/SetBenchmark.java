@@ -0,0 +1,125 @@
+package me.karjan.enumvisitor.bench;
+
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares {@link EnumSet} with the {@code PlanetSet} generated by {@code @sets}, on the shape of
+ * a permission check: build the granted set of a request, check it against the required set and
+ * walk its members. Run it with {@code -PjmhProfilers=gc} to compare the allocation rates as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(SetBenchmark.OPERATIONS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SetBenchmark {
+
+  static final int OPERATIONS = 1024;
+
+  private final Planet.PlanetVisitor<Void> visitor = new CountingVisitor();
+  private final EnumSet<Planet> requiredEnumSet = EnumSet.of(Planet.Earth, Planet.Mars);
+  private final PlanetSet requiredPlanetSet = PlanetSet.noneOf();
+  private final EnumSet<Planet> grantedEnumSet = EnumSet.noneOf(Planet.class);
+  private final PlanetSet grantedPlanetSet = PlanetSet.noneOf();
+  private Planet[][] grants;
+  private int visited;
+
+  @Setup
+  public void setUp() {
+    requiredPlanetSet.add(Planet.Earth);
+    requiredPlanetSet.add(Planet.Mars);
+    Planet[] planets = Planet.values();
+    grants = new Planet[OPERATIONS][];
+    Random random = new Random(42);
+    for (int i = 0; i < OPERATIONS; i++) {
+      grants[i] = new Planet[1 + random.nextInt(planets.length)];
+      for (int j = 0; j < grants[i].length; j++) {
+        grants[i][j] = planets[random.nextInt(planets.length)];
+      }
+    }
+  }
+
+  @Benchmark
+  public void enumSet(Blackhole blackhole) {
+    for (Planet[] grant : grants) {
+      grantedEnumSet.clear();
+      for (Planet planet : grant) {
+        grantedEnumSet.add(planet);
+      }
+      blackhole.consume(grantedEnumSet.containsAll(requiredEnumSet));
+      for (Planet planet : grantedEnumSet) {
+        planet.accept(visitor);
+      }
+    }
+    blackhole.consume(visited);
+  }
+
+  @Benchmark
+  public void planetSet(Blackhole blackhole) {
+    for (Planet[] grant : grants) {
+      grantedPlanetSet.clear();
+      for (Planet planet : grant) {
+        grantedPlanetSet.add(planet);
+      }
+      blackhole.consume(grantedPlanetSet.containsAll(requiredPlanetSet));
+      grantedPlanetSet.forEach(visitor);
+    }
+    blackhole.consume(visited);
+  }
+
+  /** Counts the visited members, so the walk over the set is not eliminated. */
+  private final class CountingVisitor implements Planet.PlanetVisitor<Void> {
+    private Void visit() {
+      visited++;
+      return null;
+    }
+
+    public Void visitMercury() {
+      return visit();
+    }
+
+    public Void visitVenus() {
+      return visit();
+    }
+
+    public Void visitEarth() {
+      return visit();
+    }
+
+    public Void visitMars() {
+      return visit();
+    }
+
+    public Void visitJupiter() {
+      return visit();
+    }
+
+    public Void visitSaturn() {
+      return visit();
+    }
+
+    public Void visitUranus() {
+      return visit();
+    }
+
+    public Void visitNeptune() {
+      return visit();
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package me.karjan.enumvisitor.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares calling a pure visitor on every lookup with looking its result up in the table built
+ * once by the generated {@code tabulate} methods, for a {@code long} computed with a square root
+ * and for a {@code String} built by concatenation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(TablesBenchmark.OPERATIONS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TablesBenchmark {
+
+  static final int OPERATIONS = 1024;
+
+  private final Planet.PlanetLongVisitor escapeVelocity = new EscapeVelocityVisitor();
+  private final Planet.PlanetVisitor<String> label = new LabelVisitor();
+  private final Planet.PlanetLongTable escapeVelocities = Planet.tabulateLong(escapeVelocity);
+  private final Planet.PlanetTable<String> labels = Planet.tabulate(label);
+  private Planet[] operations;
+
+  @Setup
+  public void setUp() {
+    Planet[] planets = Planet.values();
+    operations = new Planet[OPERATIONS];
+    Random random = new Random(42);
+    for (int i = 0; i < OPERATIONS; i++) {
+      operations[i] = planets[random.nextInt(planets.length)];
+    }
+  }
+
+  @Benchmark
+  public void computedLong(Blackhole blackhole) {
+    for (Planet planet : operations) {
+      blackhole.consume(planet.acceptLong(escapeVelocity));
+    }
+  }
+
+  @Benchmark
+  public void tabulatedLong(Blackhole blackhole) {
+    for (Planet planet : operations) {
+      blackhole.consume(escapeVelocities.get(planet));
+    }
+  }
+
+  @Benchmark
+  public void computedLabel(Blackhole blackhole) {
+    for (Planet planet : operations) {
+      blackhole.consume(planet.accept(label));
+    }
+  }
+
+  @Benchmark
+  public void tabulatedLabel(Blackhole blackhole) {
+    for (Planet planet : operations) {
+      blackhole.consume(labels.get(planet));
+    }
+  }
+
+  /** Returns the escape velocity in m/s of a body of the given mass in kg and radius in m. */
+  private static long escapeVelocity(double mass, double radius) {
+    return (long) Math.sqrt(2 * 6.674e-11 * mass / radius);
+  }
+
+  /** The escape velocity of each planet, from its mass and its mean radius. */
+  private static final class EscapeVelocityVisitor implements Planet.PlanetLongVisitor {
+    public long visitMercury() {
+      return escapeVelocity(3.301e23, 2.4397e6);
+    }
+
+    public long visitVenus() {
+      return escapeVelocity(4.868e24, 6.0518e6);
+    }
+
+    public long visitEarth() {
+      return escapeVelocity(5.972e24, 6.371e6);
+    }
+
+    public long visitMars() {
+      return escapeVelocity(6.417e23, 3.3895e6);
+    }
+
+    public long visitJupiter() {
+      return escapeVelocity(1.898e27, 6.9911e7);
+    }
+
+    public long visitSaturn() {
+      return escapeVelocity(5.683e26, 5.8232e7);
+    }
+
+    public long visitUranus() {
+      return escapeVelocity(8.681e25, 2.5362e7);
+    }
+
+    public long visitNeptune() {
+      return escapeVelocity(1.024e26, 2.4622e7);
+    }
+  }
+
+  /** A label of each planet built from its columns, as a report would. */
+  private static final class LabelVisitor implements Planet.PlanetVisitor<String> {
+    public String visitMercury() {
+      return label(Planet.Mercury);
+    }
+
+    public String visitVenus() {
+      return label(Planet.Venus);
+    }
+
+    public String visitEarth() {
+      return label(Planet.Earth);
+    }
+
+    public String visitMars() {
+      return label(Planet.Mars);
+    }
+
+    public String visitJupiter() {
+      return label(Planet.Jupiter);
+    }
+
+    public String visitSaturn() {
+      return label(Planet.Saturn);
+    }
+
+    public String visitUranus() {
+      return label(Planet.Uranus);
+    }
+
+    public String visitNeptune() {
+      return label(Planet.Neptune);
+    }
+
+    private static String label(Planet planet) {
+      return planet.name() + " (" + planet.moons() + " moons, " + planet.mass() + " Earths)";
+    }
+  }
+}
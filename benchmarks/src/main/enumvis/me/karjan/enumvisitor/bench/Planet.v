@@ -0,0 +1,16 @@
+@dispatch switch
+@primitiveVisitors long
+@sets
+@parsers
+@codecs
+@counters
+@tables
+@maps
+Mercury = 1 moons:int=0 mass:double=0.055
+Venus = 2 moons:int=0 mass:double=0.815
+Earth = 3 moons:int=1 mass:double=1.0
+Mars = 4 moons:int=2 mass:double=0.107
+Jupiter = 5 moons:int=95 mass:double=317.8
+Saturn = 6 moons:int=146 mass:double=95.2
+Uranus = 7 moons:int=28 mass:double=14.5
+Neptune = 8 moons:int=16 mass:double=17.1
@@ -0,0 +1,118 @@
+package me.karjan.enumvisitor;
+
+import static me.karjan.enumvisitor.EnumVisitorUtil.LINE_SEPARATOR;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.gradle.api.InvalidUserDataException;
+
+/**
+ * The manifest of the definitions of a project, which it publishes along with the classes of its
+ * enums. A project depending on it reads the manifest to reuse these classes instead of generating
+ * the same enums again, and to detect definitions of the same enum which differ.
+ *
+ * <p>Each line of the file holds the qualified name of an enum, the hash of the contents of its
+ * definition, the {@link GenerationOptions#signature() options} it was generated with and the
+ * project which compiled it, such as {@code pkgA.pkg1.Planet 3f5a... dispatch=switch;... :shared}.
+ * The options are those of the definition, with its directives applied, since they shape the API
+ * of the enum as much as its members. The lines are sorted, so the file does not depend on the
+ * order the definitions were found in.
+ */
+final class DefinitionManifest {
+
+  private static final String COMMENT = "#";
+
+  private static final String HEADER =
+      "# The enums compiled by a project, the hash of their definition and their options"
+          + LINE_SEPARATOR;
+
+  /**
+   * A definition of the manifest: the hash of its contents, the options it was generated with and
+   * the project which compiled it.
+   */
+  record Entry(String contentHash, String options, String origin) {
+
+    /** Returns true if the given entry defines the same enum, with the same API. */
+    boolean isSameAs(Entry entry) {
+      return contentHash.equals(entry.contentHash) && options.equals(entry.options);
+    }
+  }
+
+  /** The definitions, keyed by the qualified name of their enum. */
+  private final SortedMap<String, Entry> entries = new TreeMap<>();
+
+  /** Adds the definition of the given enum, generated with the given options by a project. */
+  void add(String enumName, String contentHash, String options, String origin) {
+    entries.put(enumName, new Entry(contentHash, options, origin));
+  }
+
+  /** Returns the definition of the given enum, or null if the manifest does not hold it. */
+  Entry get(String enumName) {
+    return entries.get(enumName);
+  }
+
+  /**
+   * Reads and merges the given manifests, such as the ones of the dependencies of a project. Fails
+   * when two of them define the same enum with different contents or options, since only one of
+   * the classes would be seen by javac.
+   */
+  static DefinitionManifest readAll(Iterable<File> files) throws IOException {
+    DefinitionManifest manifest = new DefinitionManifest();
+    for (File file : files) {
+      List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+      for (int i = 0; i < lines.size(); i++) {
+        String line = lines.get(i).trim();
+        if (line.isEmpty() || line.startsWith(COMMENT)) {
+          continue;
+        }
+        String[] fields = line.split("\\s+");
+        if (fields.length != 4) {
+          throw new InvalidUserDataException(
+              file
+                  + ":"
+                  + (i + 1)
+                  + ": Expected an enum, a hash, options and a project, not "
+                  + line);
+        }
+        Entry entry = new Entry(fields[1], fields[2], fields[3]);
+        Entry previous = manifest.entries.putIfAbsent(fields[0], entry);
+        if (previous != null && !previous.isSameAs(entry)) {
+          throw new InvalidUserDataException(
+              "The enum "
+                  + fields[0]
+                  + " is defined differently by "
+                  + previous.origin()
+                  + " and "
+                  + entry.origin()
+                  + ". Keep a single definition, in a project both depend on");
+        }
+      }
+    }
+    return manifest;
+  }
+
+  /** Writes the manifest to the given file, creating its directory if needed. */
+  void writeTo(Path file) throws IOException {
+    StringBuilder contents = new StringBuilder(HEADER);
+    for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+      contents
+          .append(entry.getKey())
+          .append(' ')
+          .append(entry.getValue().contentHash())
+          .append(' ')
+          .append(entry.getValue().options())
+          .append(' ')
+          .append(entry.getValue().origin())
+          .append(LINE_SEPARATOR);
+    }
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    Files.write(file, contents.toString().getBytes(StandardCharsets.UTF_8));
+  }
+}
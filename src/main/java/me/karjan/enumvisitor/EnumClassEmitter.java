@@ -0,0 +1,1157 @@
+package me.karjan.enumvisitor;
+
+import static me.karjan.enumvisitor.EnumVisitorUtil.SEGMENT_SIZE;
+import static org.objectweb.asm.Opcodes.AALOAD;
+import static org.objectweb.asm.Opcodes.AASTORE;
+import static org.objectweb.asm.Opcodes.ACC_ABSTRACT;
+import static org.objectweb.asm.Opcodes.ACC_ENUM;
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_INTERFACE;
+import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_STATIC;
+import static org.objectweb.asm.Opcodes.ACC_SUPER;
+import static org.objectweb.asm.Opcodes.ACC_SYNTHETIC;
+import static org.objectweb.asm.Opcodes.ACONST_NULL;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ANEWARRAY;
+import static org.objectweb.asm.Opcodes.ARETURN;
+import static org.objectweb.asm.Opcodes.ARRAYLENGTH;
+import static org.objectweb.asm.Opcodes.ASTORE;
+import static org.objectweb.asm.Opcodes.ATHROW;
+import static org.objectweb.asm.Opcodes.BALOAD;
+import static org.objectweb.asm.Opcodes.BASTORE;
+import static org.objectweb.asm.Opcodes.BIPUSH;
+import static org.objectweb.asm.Opcodes.CHECKCAST;
+import static org.objectweb.asm.Opcodes.DALOAD;
+import static org.objectweb.asm.Opcodes.DASTORE;
+import static org.objectweb.asm.Opcodes.DCONST_0;
+import static org.objectweb.asm.Opcodes.DCONST_1;
+import static org.objectweb.asm.Opcodes.DRETURN;
+import static org.objectweb.asm.Opcodes.DUP;
+import static org.objectweb.asm.Opcodes.GETFIELD;
+import static org.objectweb.asm.Opcodes.GETSTATIC;
+import static org.objectweb.asm.Opcodes.GOTO;
+import static org.objectweb.asm.Opcodes.IADD;
+import static org.objectweb.asm.Opcodes.IALOAD;
+import static org.objectweb.asm.Opcodes.IASTORE;
+import static org.objectweb.asm.Opcodes.ICONST_0;
+import static org.objectweb.asm.Opcodes.ICONST_1;
+import static org.objectweb.asm.Opcodes.IDIV;
+import static org.objectweb.asm.Opcodes.IF_ICMPGE;
+import static org.objectweb.asm.Opcodes.IF_ICMPNE;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.INVOKEINTERFACE;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.IRETURN;
+import static org.objectweb.asm.Opcodes.ISTORE;
+import static org.objectweb.asm.Opcodes.LALOAD;
+import static org.objectweb.asm.Opcodes.LASTORE;
+import static org.objectweb.asm.Opcodes.LCONST_0;
+import static org.objectweb.asm.Opcodes.LCONST_1;
+import static org.objectweb.asm.Opcodes.LRETURN;
+import static org.objectweb.asm.Opcodes.NEW;
+import static org.objectweb.asm.Opcodes.NEWARRAY;
+import static org.objectweb.asm.Opcodes.PUTFIELD;
+import static org.objectweb.asm.Opcodes.PUTSTATIC;
+import static org.objectweb.asm.Opcodes.RETURN;
+import static org.objectweb.asm.Opcodes.SIPUSH;
+import static org.objectweb.asm.Opcodes.T_BOOLEAN;
+import static org.objectweb.asm.Opcodes.T_DOUBLE;
+import static org.objectweb.asm.Opcodes.T_INT;
+import static org.objectweb.asm.Opcodes.T_LONG;
+import static org.objectweb.asm.Opcodes.V1_8;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import me.karjan.enumvisitor.EnumParseTree.Branch;
+import me.karjan.enumvisitor.EnumParseTree.Call;
+import me.karjan.enumvisitor.EnumParseTree.Leaf;
+import me.karjan.enumvisitor.EnumParseTree.Node;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+/**
+ * Emits the class files of an enum including the visitor pattern for it, as javac would compile
+ * the source rendered by {@link EnumSourceTemplate}, without going through javac. The classes
+ * target Java 8, so they can be used by any project the generated sources could be compiled in.
+ *
+ * <p>The class files are the enum, its visitor interfaces, its tables when {@code tabulate} is
+ * generated and, when dispatching through constant class bodies, one class per constant named like
+ * the anonymous classes of javac.
+ *
+ * <p>The code of an enum with more than {@link EnumVisitorUtil#SEGMENT_SIZE} members would not fit
+ * in the 64KB of a method, nor its references in the constant pool of a class, so it is split into
+ * segments of members. A synthetic class such as {@code Planet$Segment0} per segment creates its
+ * constants, fills the values of their columns and holds the switch of {@code accept} over their
+ * ordinals. The enum only assigns its fields, in one method per segment, which class files of
+ * Java 8 allow outside of the static initializer.
+ */
+final class EnumClassEmitter {
+
+  /** The extension of class files. */
+  static final String CLASS_FILE_EXT = ".class";
+
+  private static final String ENUM_TYPE = "java/lang/Enum";
+  private static final String OBJECT_TYPE = "java/lang/Object";
+  private static final String STRING_DESCRIPTOR = "Ljava/lang/String;";
+  private static final String CONSTRUCTOR_DESCRIPTOR = "(" + STRING_DESCRIPTOR + "I)V";
+  private static final String CHAR_SEQUENCE_TYPE = "java/lang/CharSequence";
+  private static final String BYTE_BUFFER_TYPE = "java/nio/ByteBuffer";
+
+  /** The name of the classes holding the segments of a large enum, followed by their index. */
+  private static final String SEGMENT_NAME = "Segment";
+
+  /**
+   * A flavour of {@code accept}, mirroring the variants of {@link EnumSourceTemplate}: the generic
+   * one, and one per primitive visitor.
+   */
+  private record AcceptVariant(
+      String methodName,
+      String visitorName,
+      String returnDescriptor,
+      int returnOpcode,
+      boolean generic) {
+
+    /** Returns the name of the matching {@code tabulate} method, such as {@code tabulateInt}. */
+    String tabulateName() {
+      return "tabulate" + methodName.substring("accept".length());
+    }
+
+    /** Returns the name of the table returned by {@code tabulate}, such as {@code PlanetTable}. */
+    String tableName() {
+      return visitorName.substring(0, visitorName.length() - "Visitor".length()) + "Table";
+    }
+  }
+
+  /**
+   * The instructions handling the values of a column of a primitive type: the operand of {@code
+   * newarray}, and the opcodes storing into and loading from its array and returning a value.
+   */
+  private record ColumnType(
+      String descriptor, int arrayType, int storeOpcode, int loadOpcode, int returnOpcode) {
+
+    static ColumnType of(String type) {
+      return switch (type) {
+        case "int" -> new ColumnType("I", T_INT, IASTORE, IALOAD, IRETURN);
+        case "long" -> new ColumnType("J", T_LONG, LASTORE, LALOAD, LRETURN);
+        case "double" -> new ColumnType("D", T_DOUBLE, DASTORE, DALOAD, DRETURN);
+        default -> new ColumnType("Z", T_BOOLEAN, BASTORE, BALOAD, IRETURN);
+      };
+    }
+  }
+
+  /**
+   * An input the {@code parse} methods look up the members in, mirroring {@link
+   * EnumParserTemplate}: the parameters of the public method and of the segment methods, and how
+   * to load the arguments of the segment methods, the length and the character at a position.
+   */
+  private record ParseInput(
+      String parameters,
+      String segmentParameters,
+      Consumer<MethodVisitor> loadArguments,
+      Consumer<MethodVisitor> pushLength,
+      BiConsumer<MethodVisitor, Integer> pushCharAt) {}
+
+  private final String enumName;
+  private final String enumType;
+  private final String enumDescriptor;
+  private final String sourceFile;
+  private final List<String> enumMembers;
+  private final List<EnumColumn> columns;
+  private final GenerationOptions options;
+  private final List<AcceptVariant> acceptVariants = new ArrayList<>();
+
+  /** The number of segments of a large enum, or zero if the enum is not split. */
+  private final int segmentCount;
+
+  EnumClassEmitter(
+      String enumPackage,
+      String enumName,
+      List<String> enumMembers,
+      List<EnumColumn> columns,
+      GenerationOptions options,
+      String sourceFile) {
+    this.enumName = enumName;
+    this.enumType = enumPackage.replace('.', '/') + "/" + enumName;
+    this.enumDescriptor = "L" + enumType + ";";
+    this.sourceFile = sourceFile;
+    this.enumMembers = enumMembers;
+    this.columns = columns;
+    this.options = options;
+    this.segmentCount =
+        enumMembers.size() > SEGMENT_SIZE ? (enumMembers.size() - 1) / SEGMENT_SIZE + 1 : 0;
+    acceptVariants.add(
+        new AcceptVariant("accept", enumName + "Visitor", "Ljava/lang/Object;", ARETURN, true));
+    for (String primitive : options.getPrimitiveVisitors()) {
+      String capitalized = Character.toUpperCase(primitive.charAt(0)) + primitive.substring(1);
+      acceptVariants.add(
+          switch (primitive) {
+            case "int" -> primitiveVariant(capitalized, "I", IRETURN);
+            case "long" -> primitiveVariant(capitalized, "J", LRETURN);
+            case "double" -> primitiveVariant(capitalized, "D", DRETURN);
+            default -> primitiveVariant(capitalized, "Z", IRETURN);
+          });
+    }
+  }
+
+  private AcceptVariant primitiveVariant(String capitalized, String descriptor, int opcode) {
+    return new AcceptVariant(
+        "accept" + capitalized, enumName + capitalized + "Visitor", descriptor, opcode, false);
+  }
+
+  /**
+   * Returns the class files, keyed by their file name. They all belong to the package of the
+   * enum.
+   */
+  Map<String, byte[]> emit() {
+    Map<String, byte[]> classFiles = new LinkedHashMap<>();
+    classFiles.put(enumName + CLASS_FILE_EXT, emitEnum());
+    for (AcceptVariant variant : acceptVariants) {
+      classFiles.put(
+          enumName + "$" + variant.visitorName() + CLASS_FILE_EXT, emitVisitor(variant));
+    }
+    if (options.isTables()) {
+      for (AcceptVariant variant : acceptVariants) {
+        classFiles.put(enumName + "$" + variant.tableName() + CLASS_FILE_EXT, emitTable(variant));
+      }
+    }
+    if (!options.isSwitchDispatch()) {
+      for (int ordinal = 0; ordinal < enumMembers.size(); ordinal++) {
+        classFiles.put(
+            enumName + "$" + constantClassIndex(ordinal) + CLASS_FILE_EXT,
+            emitConstantClass(ordinal));
+      }
+    }
+    for (int segment = 0; segment < segmentCount; segment++) {
+      classFiles.put(
+          enumName + "$" + SEGMENT_NAME + segment + CLASS_FILE_EXT, emitSegmentClass(segment));
+    }
+    return classFiles;
+  }
+
+  /** Returns true if the given file name is one of the class files emitted for the given enum. */
+  static boolean isEmittedFor(String enumName, String fileName) {
+    if (!fileName.startsWith(enumName) || !fileName.endsWith(CLASS_FILE_EXT)) {
+      return false;
+    }
+    String rest =
+        fileName.substring(enumName.length(), fileName.length() - CLASS_FILE_EXT.length());
+    if (rest.isEmpty()) {
+      return true;
+    }
+    if (!rest.startsWith("$")) {
+      return false;
+    }
+    String nested = rest.substring(1);
+    if (isNumber(nested)
+        || nested.startsWith(SEGMENT_NAME) && isNumber(nested.substring(SEGMENT_NAME.length()))) {
+      return true;
+    }
+    for (String primitive : GenerationOptions.PRIMITIVE_TYPES) {
+      String capitalized = Character.toUpperCase(primitive.charAt(0)) + primitive.substring(1);
+      if (nested.equals(enumName + capitalized + "Visitor")
+          || nested.equals(enumName + capitalized + "Table")) {
+        return true;
+      }
+    }
+    return nested.equals(enumName + "Visitor") || nested.equals(enumName + "Table");
+  }
+
+  private static boolean isNumber(String value) {
+    return !value.isEmpty() && value.chars().allMatch(Character::isDigit);
+  }
+
+  private byte[] emitEnum() {
+    boolean bodies = !options.isSwitchDispatch();
+    ClassWriter writer = newClassWriter();
+    writer.visit(
+        V1_8,
+        ACC_PUBLIC | ACC_SUPER | ACC_ENUM | (bodies ? ACC_ABSTRACT : ACC_FINAL),
+        enumType,
+        "L" + ENUM_TYPE + "<" + enumDescriptor + ">;",
+        ENUM_TYPE,
+        null);
+    writer.visitSource(sourceFile, null);
+    visitVisitorInnerClasses(writer);
+    if (options.isTables()) {
+      visitTableInnerClasses(writer);
+    }
+    for (int segment = 0; segment < segmentCount; segment++) {
+      visitSegmentInnerClass(writer, segment);
+    }
+    // The constant classes of a large enum are only referred to by its segment classes
+    if (bodies && segmentCount == 0) {
+      for (int ordinal = 0; ordinal < enumMembers.size(); ordinal++) {
+        writer.visitInnerClass(constantClassType(ordinal), null, null, ACC_FINAL | ACC_ENUM);
+      }
+    }
+
+    for (String member : enumMembers) {
+      writer
+          .visitField(
+              ACC_PUBLIC | ACC_STATIC | ACC_FINAL | ACC_ENUM, member, enumDescriptor, null, null)
+          .visitEnd();
+    }
+    writer
+        .visitField(
+            ACC_PRIVATE | ACC_STATIC | ACC_FINAL | ACC_SYNTHETIC,
+            "$VALUES",
+            "[" + enumDescriptor,
+            null,
+            null)
+        .visitEnd();
+
+    MethodVisitor values =
+        writer.visitMethod(ACC_PUBLIC | ACC_STATIC, "values", "()[" + enumDescriptor, null, null);
+    values.visitCode();
+    values.visitFieldInsn(GETSTATIC, enumType, "$VALUES", "[" + enumDescriptor);
+    values.visitMethodInsn(
+        INVOKEVIRTUAL, "[" + enumDescriptor, "clone", "()Ljava/lang/Object;", false);
+    values.visitTypeInsn(CHECKCAST, "[" + enumDescriptor);
+    values.visitInsn(ARETURN);
+    values.visitMaxs(0, 0);
+    values.visitEnd();
+
+    MethodVisitor valueOf =
+        writer.visitMethod(
+            ACC_PUBLIC | ACC_STATIC,
+            "valueOf",
+            "(" + STRING_DESCRIPTOR + ")" + enumDescriptor,
+            null,
+            null);
+    valueOf.visitCode();
+    valueOf.visitLdcInsn(Type.getObjectType(enumType));
+    valueOf.visitVarInsn(ALOAD, 0);
+    valueOf.visitMethodInsn(
+        INVOKESTATIC,
+        ENUM_TYPE,
+        "valueOf",
+        "(Ljava/lang/Class;" + STRING_DESCRIPTOR + ")L" + ENUM_TYPE + ";",
+        false);
+    valueOf.visitTypeInsn(CHECKCAST, enumType);
+    valueOf.visitInsn(ARETURN);
+    valueOf.visitMaxs(0, 0);
+    valueOf.visitEnd();
+
+    // The constant and segment classes of the same package call the constructor, Java 8 has no
+    // nestmates
+    emitConstructor(writer, bodies || segmentCount > 0 ? 0 : ACC_PRIVATE, ENUM_TYPE);
+
+    for (AcceptVariant variant : acceptVariants) {
+      if (bodies) {
+        writer
+            .visitMethod(
+                ACC_PUBLIC | ACC_ABSTRACT,
+                variant.methodName(),
+                acceptDescriptor(variant),
+                acceptSignature(variant),
+                null)
+            .visitEnd();
+      } else if (segmentCount > 0) {
+        emitSegmentedAccept(writer, variant);
+      } else {
+        emitSwitchAccept(writer, variant);
+      }
+    }
+
+    emitColumns(writer);
+    if (segmentCount == 0) {
+      emitColumnFills(writer, 0, ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC);
+    }
+
+    if (options.isTables()) {
+      for (AcceptVariant variant : acceptVariants) {
+        emitTabulate(writer, variant);
+      }
+    }
+
+    if (options.isParsers()) {
+      emitParsers(writer);
+    }
+
+    if (segmentCount > 0) {
+      emitSegmentedStaticInitializer(writer);
+    } else {
+      emitStaticInitializer(writer, bodies);
+    }
+    writer.visitEnd();
+    return writer.toByteArray();
+  }
+
+  /** Emits the final {@code accept} which switches on the ordinal. */
+  private void emitSwitchAccept(ClassWriter writer, AcceptVariant variant) {
+    MethodVisitor accept =
+        writer.visitMethod(
+            ACC_PUBLIC | ACC_FINAL,
+            variant.methodName(),
+            acceptDescriptor(variant),
+            acceptSignature(variant),
+            null);
+    accept.visitCode();
+    Label[] cases = new Label[enumMembers.size()];
+    for (int ordinal = 0; ordinal < cases.length; ordinal++) {
+      cases[ordinal] = new Label();
+    }
+    Label defaultCase = new Label();
+    accept.visitVarInsn(ALOAD, 0);
+    accept.visitMethodInsn(INVOKEVIRTUAL, enumType, "ordinal", "()I", false);
+    accept.visitTableSwitchInsn(0, cases.length - 1, defaultCase, cases);
+    for (int ordinal = 0; ordinal < cases.length; ordinal++) {
+      accept.visitLabel(cases[ordinal]);
+      emitVisit(accept, variant, enumMembers.get(ordinal));
+    }
+    accept.visitLabel(defaultCase);
+    emitThrowAssertionError(accept);
+    accept.visitMaxs(0, 0);
+    accept.visitEnd();
+  }
+
+  /**
+   * Emits the final {@code accept} of a large enum, which passes the constant and the visitor to
+   * the segment class of the ordinal.
+   */
+  private void emitSegmentedAccept(ClassWriter writer, AcceptVariant variant) {
+    MethodVisitor accept =
+        writer.visitMethod(
+            ACC_PUBLIC | ACC_FINAL,
+            variant.methodName(),
+            acceptDescriptor(variant),
+            acceptSignature(variant),
+            null);
+    accept.visitCode();
+    Label[] cases = new Label[segmentCount];
+    for (int segment = 0; segment < segmentCount; segment++) {
+      cases[segment] = new Label();
+    }
+    Label defaultCase = new Label();
+    accept.visitVarInsn(ALOAD, 0);
+    accept.visitMethodInsn(INVOKEVIRTUAL, enumType, "ordinal", "()I", false);
+    pushInt(accept, SEGMENT_SIZE);
+    accept.visitInsn(IDIV);
+    accept.visitTableSwitchInsn(0, segmentCount - 1, defaultCase, cases);
+    for (int segment = 0; segment < segmentCount; segment++) {
+      accept.visitLabel(cases[segment]);
+      accept.visitVarInsn(ALOAD, 0);
+      accept.visitVarInsn(ALOAD, 1);
+      accept.visitMethodInsn(
+          INVOKESTATIC,
+          segmentClassType(segment),
+          variant.methodName(),
+          segmentAcceptDescriptor(variant),
+          false);
+      accept.visitInsn(variant.returnOpcode());
+    }
+    accept.visitLabel(defaultCase);
+    emitThrowAssertionError(accept);
+    accept.visitMaxs(0, 0);
+    accept.visitEnd();
+  }
+
+  /** Emits {@code throw new AssertionError(this)}, or of the first parameter of a static method. */
+  private static void emitThrowAssertionError(MethodVisitor method) {
+    method.visitTypeInsn(NEW, "java/lang/AssertionError");
+    method.visitInsn(DUP);
+    method.visitVarInsn(ALOAD, 0);
+    method.visitMethodInsn(
+        INVOKESPECIAL, "java/lang/AssertionError", "<init>", "(Ljava/lang/Object;)V", false);
+    method.visitInsn(ATHROW);
+  }
+
+  /** Creates the constants and the array returned by {@code values}. */
+  private void emitStaticInitializer(ClassWriter writer, boolean bodies) {
+    MethodVisitor clinit = writer.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+    clinit.visitCode();
+    for (int ordinal = 0; ordinal < enumMembers.size(); ordinal++) {
+      String constantType = bodies ? constantClassType(ordinal) : enumType;
+      clinit.visitTypeInsn(NEW, constantType);
+      clinit.visitInsn(DUP);
+      clinit.visitLdcInsn(enumMembers.get(ordinal));
+      pushInt(clinit, ordinal);
+      clinit.visitMethodInsn(INVOKESPECIAL, constantType, "<init>", CONSTRUCTOR_DESCRIPTOR, false);
+      clinit.visitFieldInsn(PUTSTATIC, enumType, enumMembers.get(ordinal), enumDescriptor);
+    }
+    pushInt(clinit, enumMembers.size());
+    clinit.visitTypeInsn(ANEWARRAY, enumType);
+    for (int ordinal = 0; ordinal < enumMembers.size(); ordinal++) {
+      clinit.visitInsn(DUP);
+      pushInt(clinit, ordinal);
+      clinit.visitFieldInsn(GETSTATIC, enumType, enumMembers.get(ordinal), enumDescriptor);
+      clinit.visitInsn(AASTORE);
+    }
+    clinit.visitFieldInsn(PUTSTATIC, enumType, "$VALUES", "[" + enumDescriptor);
+    emitColumnsInitialization(clinit);
+    clinit.visitInsn(RETURN);
+    clinit.visitMaxs(0, 0);
+    clinit.visitEnd();
+  }
+
+  /**
+   * Emits the array of the values of each column and the accessor reading the value of a constant
+   * from it. The arrays are filled by the methods of {@link #emitColumnFills}.
+   */
+  private void emitColumns(ClassWriter writer) {
+    for (EnumColumn column : columns) {
+      ColumnType type = ColumnType.of(column.getType());
+      String arrayDescriptor = "[" + type.descriptor();
+      writer
+          .visitField(
+              ACC_PRIVATE | ACC_STATIC | ACC_FINAL, column.getName(), arrayDescriptor, null, null)
+          .visitEnd();
+
+      MethodVisitor accessor =
+          writer.visitMethod(
+              ACC_PUBLIC | ACC_FINAL, column.getName(), "()" + type.descriptor(), null, null);
+      accessor.visitCode();
+      accessor.visitFieldInsn(GETSTATIC, enumType, column.getName(), arrayDescriptor);
+      accessor.visitVarInsn(ALOAD, 0);
+      accessor.visitMethodInsn(INVOKEVIRTUAL, enumType, "ordinal", "()I", false);
+      accessor.visitInsn(type.loadOpcode());
+      accessor.visitInsn(type.returnOpcode());
+      accessor.visitMaxs(0, 0);
+      accessor.visitEnd();
+    }
+  }
+
+  /**
+   * Emits the methods filling the values of the members of a segment into the array of each
+   * column: into the enum when it is not split, and into the segment class otherwise, since the
+   * fields of a large enum nearly fill its constant pool. The values are not filled in the static
+   * initializer, so that the number of columns does not count against its code size.
+   */
+  private void emitColumnFills(ClassWriter writer, int segment, int access) {
+    for (EnumColumn column : columns) {
+      ColumnType type = ColumnType.of(column.getType());
+      MethodVisitor fill =
+          writer.visitMethod(
+              access, columnFillName(column), "([" + type.descriptor() + ")V", null, null);
+      fill.visitCode();
+      for (int ordinal = segmentStart(segment); ordinal < segmentEnd(segment); ordinal++) {
+        fill.visitVarInsn(ALOAD, 0);
+        pushInt(fill, ordinal);
+        pushValue(fill, column.getValues().get(ordinal));
+        fill.visitInsn(type.storeOpcode());
+      }
+      fill.visitInsn(RETURN);
+      fill.visitMaxs(0, 0);
+      fill.visitEnd();
+    }
+  }
+
+  /** Creates the arrays of the columns, filled by the methods of {@link #emitColumnFills}. */
+  private void emitColumnsInitialization(MethodVisitor clinit) {
+    for (EnumColumn column : columns) {
+      ColumnType type = ColumnType.of(column.getType());
+      String arrayDescriptor = "[" + type.descriptor();
+      pushInt(clinit, enumMembers.size());
+      clinit.visitIntInsn(NEWARRAY, type.arrayType());
+      if (segmentCount == 0) {
+        clinit.visitInsn(DUP);
+        clinit.visitMethodInsn(
+            INVOKESTATIC, enumType, columnFillName(column), "(" + arrayDescriptor + ")V", false);
+      }
+      for (int segment = 0; segment < segmentCount; segment++) {
+        clinit.visitInsn(DUP);
+        clinit.visitMethodInsn(
+            INVOKESTATIC,
+            segmentClassType(segment),
+            columnFillName(column),
+            "(" + arrayDescriptor + ")V",
+            false);
+      }
+      clinit.visitFieldInsn(PUTSTATIC, enumType, column.getName(), arrayDescriptor);
+    }
+  }
+
+  private static String columnFillName(EnumColumn column) {
+    return "fill$" + column.getName();
+  }
+
+  /**
+   * Creates the array returned by {@code values} of a large enum. Each segment class fills its
+   * segment of the array, from which a method of the enum per segment assigns the fields.
+   */
+  private void emitSegmentedStaticInitializer(ClassWriter writer) {
+    String valuesDescriptor = "[" + enumDescriptor;
+    MethodVisitor clinit = writer.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+    clinit.visitCode();
+    pushInt(clinit, enumMembers.size());
+    clinit.visitTypeInsn(ANEWARRAY, enumType);
+    for (int segment = 0; segment < segmentCount; segment++) {
+      clinit.visitInsn(DUP);
+      clinit.visitMethodInsn(
+          INVOKESTATIC, segmentClassType(segment), "create", "(" + valuesDescriptor + ")V", false);
+    }
+    for (int segment = 0; segment < segmentCount; segment++) {
+      clinit.visitInsn(DUP);
+      clinit.visitMethodInsn(
+          INVOKESTATIC, enumType, "$assign" + segment, "(" + valuesDescriptor + ")V", false);
+    }
+    clinit.visitFieldInsn(PUTSTATIC, enumType, "$VALUES", valuesDescriptor);
+    emitColumnsInitialization(clinit);
+    clinit.visitInsn(RETURN);
+    clinit.visitMaxs(0, 0);
+    clinit.visitEnd();
+
+    for (int segment = 0; segment < segmentCount; segment++) {
+      MethodVisitor assign =
+          writer.visitMethod(
+              ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC,
+              "$assign" + segment,
+              "(" + valuesDescriptor + ")V",
+              null,
+              null);
+      assign.visitCode();
+      for (int ordinal = segmentStart(segment); ordinal < segmentEnd(segment); ordinal++) {
+        assign.visitVarInsn(ALOAD, 0);
+        pushInt(assign, ordinal);
+        assign.visitInsn(AALOAD);
+        assign.visitFieldInsn(PUTSTATIC, enumType, enumMembers.get(ordinal), enumDescriptor);
+      }
+      assign.visitInsn(RETURN);
+      assign.visitMaxs(0, 0);
+      assign.visitEnd();
+    }
+  }
+
+  /**
+   * Emits the class of a segment of a large enum. Its {@code create} stores the constants of the
+   * segment into the given array, its fill methods store the values of their columns, and with the
+   * switch dispatch its static accepts take the constant and switch on its ordinal.
+   */
+  private byte[] emitSegmentClass(int segment) {
+    boolean bodies = !options.isSwitchDispatch();
+    String segmentType = segmentClassType(segment);
+    ClassWriter writer = newClassWriter();
+    writer.visit(V1_8, ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, segmentType, null, OBJECT_TYPE, null);
+    writer.visitSource(sourceFile, null);
+    visitSegmentInnerClass(writer, segment);
+    visitVisitorInnerClasses(writer);
+
+    MethodVisitor create =
+        writer.visitMethod(ACC_STATIC, "create", "([" + enumDescriptor + ")V", null, null);
+    create.visitCode();
+    for (int ordinal = segmentStart(segment); ordinal < segmentEnd(segment); ordinal++) {
+      String constantType = bodies ? constantClassType(ordinal) : enumType;
+      if (bodies) {
+        writer.visitInnerClass(constantType, null, null, ACC_FINAL | ACC_ENUM);
+      }
+      create.visitVarInsn(ALOAD, 0);
+      pushInt(create, ordinal);
+      create.visitTypeInsn(NEW, constantType);
+      create.visitInsn(DUP);
+      create.visitLdcInsn(enumMembers.get(ordinal));
+      pushInt(create, ordinal);
+      create.visitMethodInsn(INVOKESPECIAL, constantType, "<init>", CONSTRUCTOR_DESCRIPTOR, false);
+      create.visitInsn(AASTORE);
+    }
+    create.visitInsn(RETURN);
+    create.visitMaxs(0, 0);
+    create.visitEnd();
+
+    emitColumnFills(writer, segment, ACC_STATIC);
+
+    if (!bodies) {
+      for (AcceptVariant variant : acceptVariants) {
+        emitSegmentAccept(writer, variant, segment);
+      }
+    }
+    writer.visitEnd();
+    return writer.toByteArray();
+  }
+
+  /** Emits the static accept of a segment, which switches on the ordinal of the constant. */
+  private void emitSegmentAccept(ClassWriter writer, AcceptVariant variant, int segment) {
+    MethodVisitor accept =
+        writer.visitMethod(
+            ACC_STATIC, variant.methodName(), segmentAcceptDescriptor(variant), null, null);
+    accept.visitCode();
+    Label[] cases = new Label[segmentEnd(segment) - segmentStart(segment)];
+    for (int index = 0; index < cases.length; index++) {
+      cases[index] = new Label();
+    }
+    Label defaultCase = new Label();
+    accept.visitVarInsn(ALOAD, 0);
+    accept.visitMethodInsn(INVOKEVIRTUAL, enumType, "ordinal", "()I", false);
+    accept.visitTableSwitchInsn(
+        segmentStart(segment), segmentEnd(segment) - 1, defaultCase, cases);
+    for (int index = 0; index < cases.length; index++) {
+      accept.visitLabel(cases[index]);
+      emitVisit(accept, variant, enumMembers.get(segmentStart(segment) + index));
+    }
+    accept.visitLabel(defaultCase);
+    emitThrowAssertionError(accept);
+    accept.visitMaxs(0, 0);
+    accept.visitEnd();
+  }
+
+  /**
+   * Emits the {@code parse} methods, and the methods of the segments of their tree, which
+   * javac would compile from the source rendered by {@link EnumParserTemplate}.
+   */
+  private void emitParsers(ClassWriter writer) {
+    List<Node> segments = EnumParseTree.segments(enumMembers);
+    ParseInput chars =
+        new ParseInput(
+            "(L" + CHAR_SEQUENCE_TYPE + ";)",
+            "(L" + CHAR_SEQUENCE_TYPE + ";)",
+            method -> method.visitVarInsn(ALOAD, 0),
+            method -> {
+              method.visitVarInsn(ALOAD, 0);
+              method.visitMethodInsn(INVOKEINTERFACE, CHAR_SEQUENCE_TYPE, "length", "()I", true);
+            },
+            (method, position) -> {
+              method.visitVarInsn(ALOAD, 0);
+              pushInt(method, position);
+              method.visitMethodInsn(INVOKEINTERFACE, CHAR_SEQUENCE_TYPE, "charAt", "(I)C", true);
+            });
+    ParseInput bytes =
+        new ParseInput(
+            "([BII)",
+            "([BII)",
+            method -> {
+              method.visitVarInsn(ALOAD, 0);
+              method.visitVarInsn(ILOAD, 1);
+              method.visitVarInsn(ILOAD, 2);
+            },
+            method -> method.visitVarInsn(ILOAD, 2),
+            (method, position) -> {
+              method.visitVarInsn(ALOAD, 0);
+              method.visitVarInsn(ILOAD, 1);
+              pushInt(method, position);
+              method.visitInsn(IADD);
+              method.visitInsn(BALOAD);
+            });
+    // The public method stores the position of the buffer, which its segments take as parameter
+    ParseInput buffer =
+        new ParseInput(
+            "(L" + BYTE_BUFFER_TYPE + ";)",
+            "(L" + BYTE_BUFFER_TYPE + ";I)",
+            method -> {
+              method.visitVarInsn(ALOAD, 0);
+              method.visitVarInsn(ILOAD, 1);
+            },
+            method -> {
+              method.visitVarInsn(ALOAD, 0);
+              method.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUFFER_TYPE, "remaining", "()I", false);
+            },
+            (method, position) -> {
+              method.visitVarInsn(ALOAD, 0);
+              method.visitVarInsn(ILOAD, 1);
+              pushInt(method, position);
+              method.visitInsn(IADD);
+              method.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUFFER_TYPE, "get", "(I)B", false);
+            });
+    for (ParseInput input : List.of(chars, bytes, buffer)) {
+      MethodVisitor parse =
+          writer.visitMethod(
+              ACC_PUBLIC | ACC_STATIC, "parse", input.parameters() + enumDescriptor, null, null);
+      parse.visitCode();
+      if (input == buffer) {
+        parse.visitVarInsn(ALOAD, 0);
+        parse.visitMethodInsn(INVOKEVIRTUAL, BYTE_BUFFER_TYPE, "position", "()I", false);
+        parse.visitVarInsn(ISTORE, 1);
+      }
+      emitParseNode(parse, segments.get(0), input);
+      parse.visitMaxs(0, 0);
+      parse.visitEnd();
+      for (int segment = 1; segment < segments.size(); segment++) {
+        MethodVisitor segmentParse =
+            writer.visitMethod(
+                ACC_PRIVATE | ACC_STATIC,
+                EnumParserTemplate.SEGMENT_METHOD_PREFIX + segment,
+                input.segmentParameters() + enumDescriptor,
+                null,
+                null);
+        segmentParse.visitCode();
+        emitParseNode(segmentParse, segments.get(segment), input);
+        segmentParse.visitMaxs(0, 0);
+        segmentParse.visitEnd();
+      }
+    }
+  }
+
+  /** Emits the code of a node of the tree of the parse methods, every path of which returns. */
+  private void emitParseNode(MethodVisitor method, Node node, ParseInput input) {
+    if (node instanceof Branch branch) {
+      if (branch.position() == EnumParseTree.LENGTH) {
+        input.pushLength().accept(method);
+      } else {
+        input.pushCharAt().accept(method, branch.position());
+      }
+      int[] keys = branch.cases().keySet().stream().mapToInt(Integer::intValue).toArray();
+      Label[] cases = new Label[keys.length];
+      for (int index = 0; index < cases.length; index++) {
+        cases[index] = new Label();
+      }
+      Label miss = new Label();
+      method.visitLookupSwitchInsn(miss, keys, cases);
+      int index = 0;
+      for (Node child : branch.cases().values()) {
+        method.visitLabel(cases[index++]);
+        emitParseNode(method, child, input);
+      }
+      method.visitLabel(miss);
+      method.visitInsn(ACONST_NULL);
+      method.visitInsn(ARETURN);
+    } else if (node instanceof Leaf leaf) {
+      Label miss = new Label();
+      for (int position : leaf.positions()) {
+        input.pushCharAt().accept(method, position);
+        pushInt(method, leaf.member().charAt(position));
+        method.visitJumpInsn(IF_ICMPNE, miss);
+      }
+      method.visitFieldInsn(GETSTATIC, enumType, leaf.member(), enumDescriptor);
+      method.visitInsn(ARETURN);
+      if (!leaf.positions().isEmpty()) {
+        method.visitLabel(miss);
+        method.visitInsn(ACONST_NULL);
+        method.visitInsn(ARETURN);
+      }
+    } else {
+      input.loadArguments().accept(method);
+      method.visitMethodInsn(
+          INVOKESTATIC,
+          enumType,
+          EnumParserTemplate.SEGMENT_METHOD_PREFIX + ((Call) node).segment(),
+          input.segmentParameters() + enumDescriptor,
+          false);
+      method.visitInsn(ARETURN);
+    }
+  }
+
+  /** Emits the class of the constant with the given ordinal, which overrides the accepts. */
+  private byte[] emitConstantClass(int ordinal) {
+    String constantType = constantClassType(ordinal);
+    ClassWriter writer = newClassWriter();
+    writer.visit(V1_8, ACC_FINAL | ACC_SUPER | ACC_ENUM, constantType, null, enumType, null);
+    writer.visitSource(sourceFile, null);
+    writer.visitOuterClass(enumType, null, null);
+    writer.visitInnerClass(constantType, null, null, ACC_FINAL | ACC_ENUM);
+    visitVisitorInnerClasses(writer);
+
+    emitConstructor(writer, 0, enumType);
+    for (AcceptVariant variant : acceptVariants) {
+      MethodVisitor accept =
+          writer.visitMethod(
+              ACC_PUBLIC,
+              variant.methodName(),
+              acceptDescriptor(variant),
+              acceptSignature(variant),
+              null);
+      accept.visitCode();
+      emitVisit(accept, variant, enumMembers.get(ordinal));
+      accept.visitMaxs(0, 0);
+      accept.visitEnd();
+    }
+    writer.visitEnd();
+    return writer.toByteArray();
+  }
+
+  private byte[] emitVisitor(AcceptVariant variant) {
+    ClassWriter writer = newClassWriter();
+    writer.visit(
+        V1_8,
+        ACC_PUBLIC | ACC_INTERFACE | ACC_ABSTRACT,
+        visitorType(variant),
+        variant.generic() ? "<E:Ljava/lang/Object;>Ljava/lang/Object;" : null,
+        OBJECT_TYPE,
+        null);
+    writer.visitSource(sourceFile, null);
+    visitVisitorInnerClasses(writer);
+    for (String member : enumMembers) {
+      writer
+          .visitMethod(
+              ACC_PUBLIC | ACC_ABSTRACT,
+              "visit" + member,
+              "()" + variant.returnDescriptor(),
+              variant.generic() ? "()TE;" : null,
+              null)
+          .visitEnd();
+    }
+    writer.visitEnd();
+    return writer.toByteArray();
+  }
+
+  /**
+   * Emits the static {@code tabulate} method, which evaluates the visitor once per member into an
+   * array indexed by ordinal, and wraps it in a table.
+   */
+  private void emitTabulate(ClassWriter writer, AcceptVariant variant) {
+    String tableType = tableType(variant);
+    String arrayDescriptor = tableArrayDescriptor(variant);
+    MethodVisitor tabulate =
+        writer.visitMethod(
+            ACC_PUBLIC | ACC_STATIC,
+            variant.tabulateName(),
+            "(L" + visitorType(variant) + ";)L" + tableType + ";",
+            variant.generic()
+                ? "<E:Ljava/lang/Object;>(L"
+                    + visitorType(variant)
+                    + "<TE;>;)L"
+                    + tableType
+                    + "<TE;>;"
+                : null,
+            null);
+    tabulate.visitCode();
+    // Local 1 holds the members, 2 the values and 3 the index, which is also the ordinal
+    tabulate.visitFieldInsn(GETSTATIC, enumType, "$VALUES", "[" + enumDescriptor);
+    tabulate.visitVarInsn(ASTORE, 1);
+    tabulate.visitVarInsn(ALOAD, 1);
+    tabulate.visitInsn(ARRAYLENGTH);
+    ColumnType type = variant.generic() ? null : tableElementType(variant);
+    if (type == null) {
+      tabulate.visitTypeInsn(ANEWARRAY, OBJECT_TYPE);
+    } else {
+      tabulate.visitIntInsn(NEWARRAY, type.arrayType());
+    }
+    tabulate.visitVarInsn(ASTORE, 2);
+    tabulate.visitInsn(ICONST_0);
+    tabulate.visitVarInsn(ISTORE, 3);
+    Label loop = new Label();
+    Label end = new Label();
+    tabulate.visitLabel(loop);
+    tabulate.visitVarInsn(ILOAD, 3);
+    tabulate.visitVarInsn(ALOAD, 1);
+    tabulate.visitInsn(ARRAYLENGTH);
+    tabulate.visitJumpInsn(IF_ICMPGE, end);
+    tabulate.visitVarInsn(ALOAD, 2);
+    tabulate.visitVarInsn(ILOAD, 3);
+    tabulate.visitVarInsn(ALOAD, 1);
+    tabulate.visitVarInsn(ILOAD, 3);
+    tabulate.visitInsn(AALOAD);
+    tabulate.visitVarInsn(ALOAD, 0);
+    tabulate.visitMethodInsn(
+        INVOKEVIRTUAL, enumType, variant.methodName(), acceptDescriptor(variant), false);
+    tabulate.visitInsn(type == null ? AASTORE : type.storeOpcode());
+    tabulate.visitIincInsn(3, 1);
+    tabulate.visitJumpInsn(GOTO, loop);
+    tabulate.visitLabel(end);
+    tabulate.visitTypeInsn(NEW, tableType);
+    tabulate.visitInsn(DUP);
+    tabulate.visitVarInsn(ALOAD, 2);
+    tabulate.visitMethodInsn(
+        INVOKESPECIAL, tableType, "<init>", "(" + arrayDescriptor + ")V", false);
+    tabulate.visitInsn(ARETURN);
+    tabulate.visitMaxs(0, 0);
+    tabulate.visitEnd();
+  }
+
+  /**
+   * Emits the table returned by {@code tabulate}, which holds the values in a final array and
+   * looks them up by ordinal.
+   */
+  private byte[] emitTable(AcceptVariant variant) {
+    String tableType = tableType(variant);
+    String arrayDescriptor = tableArrayDescriptor(variant);
+    ClassWriter writer = newClassWriter();
+    writer.visit(
+        V1_8,
+        ACC_PUBLIC | ACC_SUPER | ACC_FINAL,
+        tableType,
+        variant.generic() ? "<E:Ljava/lang/Object;>Ljava/lang/Object;" : null,
+        OBJECT_TYPE,
+        null);
+    writer.visitSource(sourceFile, null);
+    visitTableInnerClasses(writer);
+    writer
+        .visitField(ACC_PRIVATE | ACC_FINAL, "values", arrayDescriptor, null, null)
+        .visitEnd();
+
+    // The enum of the same package calls the constructor, Java 8 has no nestmates
+    MethodVisitor constructor =
+        writer.visitMethod(0, "<init>", "(" + arrayDescriptor + ")V", null, null);
+    constructor.visitCode();
+    constructor.visitVarInsn(ALOAD, 0);
+    constructor.visitMethodInsn(INVOKESPECIAL, OBJECT_TYPE, "<init>", "()V", false);
+    constructor.visitVarInsn(ALOAD, 0);
+    constructor.visitVarInsn(ALOAD, 1);
+    constructor.visitFieldInsn(PUTFIELD, tableType, "values", arrayDescriptor);
+    constructor.visitInsn(RETURN);
+    constructor.visitMaxs(0, 0);
+    constructor.visitEnd();
+
+    ColumnType type = variant.generic() ? null : tableElementType(variant);
+    MethodVisitor get =
+        writer.visitMethod(
+            ACC_PUBLIC,
+            "get",
+            "(" + enumDescriptor + ")" + variant.returnDescriptor(),
+            variant.generic() ? "(" + enumDescriptor + ")TE;" : null,
+            null);
+    get.visitCode();
+    get.visitVarInsn(ALOAD, 0);
+    get.visitFieldInsn(GETFIELD, tableType, "values", arrayDescriptor);
+    get.visitVarInsn(ALOAD, 1);
+    get.visitMethodInsn(INVOKEVIRTUAL, enumType, "ordinal", "()I", false);
+    get.visitInsn(type == null ? AALOAD : type.loadOpcode());
+    get.visitInsn(variant.returnOpcode());
+    get.visitMaxs(0, 0);
+    get.visitEnd();
+    writer.visitEnd();
+    return writer.toByteArray();
+  }
+
+  /** Records the tables as members of the enum, as javac would nested classes. */
+  private void visitTableInnerClasses(ClassWriter writer) {
+    for (AcceptVariant variant : acceptVariants) {
+      writer.visitInnerClass(
+          tableType(variant), enumType, variant.tableName(), ACC_PUBLIC | ACC_STATIC | ACC_FINAL);
+    }
+  }
+
+  private String tableType(AcceptVariant variant) {
+    return enumType + "$" + variant.tableName();
+  }
+
+  private static String tableArrayDescriptor(AcceptVariant variant) {
+    return variant.generic() ? "[Ljava/lang/Object;" : "[" + variant.returnDescriptor();
+  }
+
+  /** Returns the instructions handling the values of the table of a primitive visitor. */
+  private static ColumnType tableElementType(AcceptVariant variant) {
+    return ColumnType.of(
+        switch (variant.returnDescriptor()) {
+          case "I" -> "int";
+          case "J" -> "long";
+          case "D" -> "double";
+          default -> "boolean";
+        });
+  }
+
+  /** Emits a constructor which passes the name and ordinal to the given super class. */
+  private static void emitConstructor(ClassWriter writer, int access, String superType) {
+    MethodVisitor constructor =
+        writer.visitMethod(access, "<init>", CONSTRUCTOR_DESCRIPTOR, null, null);
+    constructor.visitCode();
+    constructor.visitVarInsn(ALOAD, 0);
+    constructor.visitVarInsn(ALOAD, 1);
+    constructor.visitVarInsn(ILOAD, 2);
+    constructor.visitMethodInsn(INVOKESPECIAL, superType, "<init>", CONSTRUCTOR_DESCRIPTOR, false);
+    constructor.visitInsn(RETURN);
+    constructor.visitMaxs(0, 0);
+    constructor.visitEnd();
+  }
+
+  /** Emits {@code return visitor.visitMember();}, the visitor being the first parameter. */
+  private void emitVisit(MethodVisitor method, AcceptVariant variant, String member) {
+    method.visitVarInsn(ALOAD, 1);
+    method.visitMethodInsn(
+        INVOKEINTERFACE,
+        visitorType(variant),
+        "visit" + member,
+        "()" + variant.returnDescriptor(),
+        true);
+    method.visitInsn(variant.returnOpcode());
+  }
+
+  /** Records the visitor interfaces as members of the enum, for reflection and javac. */
+  private void visitVisitorInnerClasses(ClassWriter writer) {
+    for (AcceptVariant variant : acceptVariants) {
+      writer.visitInnerClass(
+          visitorType(variant),
+          enumType,
+          variant.visitorName(),
+          ACC_PUBLIC | ACC_STATIC | ACC_INTERFACE | ACC_ABSTRACT);
+    }
+  }
+
+  private String visitorType(AcceptVariant variant) {
+    return enumType + "$" + variant.visitorName();
+  }
+
+  private String acceptDescriptor(AcceptVariant variant) {
+    return "(L" + visitorType(variant) + ";)" + variant.returnDescriptor();
+  }
+
+  private String acceptSignature(AcceptVariant variant) {
+    return variant.generic()
+        ? "<E:Ljava/lang/Object;>(L" + visitorType(variant) + "<TE;>;)TE;"
+        : null;
+  }
+
+  /** Records the class of a segment as a member of the enum, as javac would a nested class. */
+  private void visitSegmentInnerClass(ClassWriter writer, int segment) {
+    writer.visitInnerClass(
+        segmentClassType(segment),
+        enumType,
+        SEGMENT_NAME + segment,
+        ACC_PRIVATE | ACC_STATIC | ACC_FINAL | ACC_SYNTHETIC);
+  }
+
+  /** Returns the descriptor of an accept of a segment class, which takes the constant first. */
+  private String segmentAcceptDescriptor(AcceptVariant variant) {
+    return "(" + enumDescriptor + "L" + visitorType(variant) + ";)" + variant.returnDescriptor();
+  }
+
+  private String segmentClassType(int segment) {
+    return enumType + "$" + SEGMENT_NAME + segment;
+  }
+
+  private static int segmentStart(int segment) {
+    return segment * SEGMENT_SIZE;
+  }
+
+  private int segmentEnd(int segment) {
+    return Math.min(segmentStart(segment) + SEGMENT_SIZE, enumMembers.size());
+  }
+
+  /** Returns the internal name of the class of the constant with the given ordinal. */
+  private String constantClassType(int ordinal) {
+    return enumType + "$" + constantClassIndex(ordinal);
+  }
+
+  /** Numbers the constant classes from one, like javac numbers anonymous classes. */
+  private static int constantClassIndex(int ordinal) {
+    return ordinal + 1;
+  }
+
+  /** Pushes the given value of a column, of the type of the column. */
+  private static void pushValue(MethodVisitor method, Object value) {
+    if (value instanceof Integer intValue) {
+      pushInt(method, intValue);
+    } else if (value instanceof Boolean booleanValue) {
+      method.visitInsn(booleanValue ? ICONST_1 : ICONST_0);
+    } else if (value instanceof Long longValue && (longValue == 0L || longValue == 1L)) {
+      method.visitInsn(longValue == 0L ? LCONST_0 : LCONST_1);
+    } else if (value instanceof Double doubleValue
+        && (Double.doubleToRawLongBits(doubleValue) == 0L || doubleValue == 1.0)) {
+      method.visitInsn(doubleValue == 1.0 ? DCONST_1 : DCONST_0);
+    } else {
+      method.visitLdcInsn(value);
+    }
+  }
+
+  private static void pushInt(MethodVisitor method, int value) {
+    if (value >= -1 && value <= 5) {
+      method.visitInsn(ICONST_0 + value);
+    } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+      method.visitIntInsn(BIPUSH, value);
+    } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+      method.visitIntInsn(SIPUSH, value);
+    } else {
+      method.visitLdcInsn(value);
+    }
+  }
+
+  /**
+   * Returns a writer computing the frames and sizes of the methods. The emitted code never merges
+   * references of different classes, so no class needs to be loaded to compute the frames.
+   */
+  private static ClassWriter newClassWriter() {
+    return new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+      @Override
+      protected String getCommonSuperClass(String type1, String type2) {
+        return OBJECT_TYPE;
+      }
+    };
+  }
+}
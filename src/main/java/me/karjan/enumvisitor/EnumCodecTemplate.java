@@ -0,0 +1,238 @@
+package me.karjan.enumvisitor;
+
+import static me.karjan.enumvisitor.EnumVisitorUtil.LINE_SEPARATOR;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Renders the Java source code of the codec companion of an enum, such as {@code PlanetCodec}. It
+ * writes and reads a member as its wire id, declared in the definition, so the encoding does not
+ * depend on the order of the members. The id is written either as a varint of one to five bytes,
+ * or with the fixed width of the largest id, to a {@code ByteBuffer} or a {@code DataOutput}.
+ * None of its methods allocate, and an unknown id is read as {@code null}.
+ *
+ * <p>The ids of a member are read from the {@code wireId()} accessor of the enum, and looked up
+ * from an array indexed by id built when the codec is loaded, or from a sorted array of the ids
+ * when they are too sparse for it. Either way its code does not grow with the number of members.
+ */
+final class EnumCodecTemplate {
+
+  /** The suffix of the name of the codec companion, appended to the name of the enum. */
+  static final String CODEC_SUFFIX = "Codec";
+
+  /**
+   * The number of entries per member, counting a few more members for small enums, above which an
+   * array indexed by id is too sparse and the ids are looked up by a binary search instead.
+   */
+  private static final int SPARSE_FACTOR = 4;
+
+  private final String enumPackage;
+  private final String enumName;
+  private final String codecName;
+  private final List<Integer> wireIds;
+  private final StringBuilder fileContents = new StringBuilder();
+
+  EnumCodecTemplate(String enumPackage, String enumName, List<Integer> wireIds) {
+    this.enumPackage = enumPackage;
+    this.enumName = enumName;
+    this.codecName = enumName + CODEC_SUFFIX;
+    this.wireIds = wireIds;
+  }
+
+  /** Returns the width in bytes, 1, 2 or 4, of the fixed encoding of ids up to the given one. */
+  static int fixedWidth(int maxWireId) {
+    if (maxWireId <= 0xFF) {
+      return Byte.BYTES;
+    }
+    return maxWireId <= 0xFFFF ? Short.BYTES : Integer.BYTES;
+  }
+
+  /** Returns the Java source code of the codec companion. */
+  String render() {
+    int maxWireId = Collections.max(wireIds);
+    int fixedWidth = fixedWidth(maxWireId);
+    line("package " + enumPackage + ";");
+    line("");
+    line("public final class " + codecName + " {");
+    line("");
+    line("  public static final int FIXED_WIDTH = " + fixedWidth + ";");
+    line("");
+    line("  public static final int MAX_VARINT_WIDTH = " + varintWidth(maxWireId) + ";");
+    line("");
+    if (maxWireId < SPARSE_FACTOR * (wireIds.size() + 16)) {
+      appendDenseLookup(maxWireId);
+    } else {
+      appendSparseLookup();
+    }
+    line("  private " + codecName + "() {}");
+    line("");
+    appendVarint();
+    appendFixed(fixedWidth);
+    line("}");
+    return fileContents.toString();
+  }
+
+  /** Appends the lookup of the members from an array indexed by their wire ids. */
+  private void appendDenseLookup(int maxWireId) {
+    line(
+        "  private static final "
+            + enumName
+            + "[] BY_WIRE_ID = new "
+            + enumName
+            + "["
+            + (maxWireId + 1)
+            + "];");
+    line("");
+    line("  static {");
+    line("    for (" + enumName + " member : " + enumName + ".values()) {");
+    line("      BY_WIRE_ID[member.wireId()] = member;");
+    line("    }");
+    line("  }");
+    line("");
+    line("  public static " + enumName + " fromWireId(int wireId) {");
+    line("    return wireId >= 0 && wireId < BY_WIRE_ID.length ? BY_WIRE_ID[wireId] : null;");
+    line("  }");
+    line("");
+  }
+
+  /** Appends the lookup of the members by a binary search of their sorted wire ids. */
+  private void appendSparseLookup() {
+    line("  private static final " + enumName + "[] BY_WIRE_ID = " + enumName + ".values();");
+    line("");
+    line("  private static final int[] WIRE_IDS = new int[BY_WIRE_ID.length];");
+    line("");
+    line("  static {");
+    line(
+        "    java.util.Arrays.sort(BY_WIRE_ID, java.util.Comparator.comparingInt("
+            + enumName
+            + "::wireId));");
+    line("    for (int i = 0; i < BY_WIRE_ID.length; i++) {");
+    line("      WIRE_IDS[i] = BY_WIRE_ID[i].wireId();");
+    line("    }");
+    line("  }");
+    line("");
+    line("  public static " + enumName + " fromWireId(int wireId) {");
+    line("    int index = java.util.Arrays.binarySearch(WIRE_IDS, wireId);");
+    line("    return index >= 0 ? BY_WIRE_ID[index] : null;");
+    line("  }");
+    line("");
+  }
+
+  /**
+   * Appends the methods writing and reading the wire ids as unsigned varints: seven bits per
+   * byte, the lowest first, with the high bit set on every byte but the last.
+   */
+  private void appendVarint() {
+    line("  public static void write(" + enumName + " member, java.nio.ByteBuffer buffer) {");
+    line("    int wireId = member.wireId();");
+    line("    while ((wireId & ~0x7F) != 0) {");
+    line("      buffer.put((byte) (wireId | 0x80));");
+    line("      wireId >>>= 7;");
+    line("    }");
+    line("    buffer.put((byte) wireId);");
+    line("  }");
+    line("");
+    line("  public static " + enumName + " read(java.nio.ByteBuffer buffer) {");
+    line("    int wireId = 0;");
+    line("    for (int shift = 0; shift < 35; shift += 7) {");
+    line("      byte b = buffer.get();");
+    line("      wireId |= (b & 0x7F) << shift;");
+    line("      if (b >= 0) {");
+    line("        return fromWireId(wireId);");
+    line("      }");
+    line("    }");
+    line("    return null;");
+    line("  }");
+    line("");
+    line(
+        "  public static void write("
+            + enumName
+            + " member, java.io.DataOutput output) throws java.io.IOException {");
+    line("    int wireId = member.wireId();");
+    line("    while ((wireId & ~0x7F) != 0) {");
+    line("      output.writeByte(wireId | 0x80);");
+    line("      wireId >>>= 7;");
+    line("    }");
+    line("    output.writeByte(wireId);");
+    line("  }");
+    line("");
+    line(
+        "  public static "
+            + enumName
+            + " read(java.io.DataInput input) throws java.io.IOException {");
+    line("    int wireId = 0;");
+    line("    for (int shift = 0; shift < 35; shift += 7) {");
+    line("      byte b = input.readByte();");
+    line("      wireId |= (b & 0x7F) << shift;");
+    line("      if (b >= 0) {");
+    line("        return fromWireId(wireId);");
+    line("      }");
+    line("    }");
+    line("    return null;");
+    line("  }");
+    line("");
+  }
+
+  /** Appends the methods writing and reading the wire ids with the given fixed width. */
+  private void appendFixed(int fixedWidth) {
+    String put;
+    String get;
+    String write;
+    String read;
+    switch (fixedWidth) {
+      case Byte.BYTES -> {
+        put = "buffer.put((byte) member.wireId())";
+        get = "buffer.get() & 0xFF";
+        write = "output.writeByte(member.wireId())";
+        read = "input.readUnsignedByte()";
+      }
+      case Short.BYTES -> {
+        put = "buffer.putShort((short) member.wireId())";
+        get = "buffer.getShort() & 0xFFFF";
+        write = "output.writeShort(member.wireId())";
+        read = "input.readUnsignedShort()";
+      }
+      default -> {
+        put = "buffer.putInt(member.wireId())";
+        get = "buffer.getInt()";
+        write = "output.writeInt(member.wireId())";
+        read = "input.readInt()";
+      }
+    }
+    line("  public static void writeFixed(" + enumName + " member, java.nio.ByteBuffer buffer) {");
+    line("    " + put + ";");
+    line("  }");
+    line("");
+    line("  public static " + enumName + " readFixed(java.nio.ByteBuffer buffer) {");
+    line("    return fromWireId(" + get + ");");
+    line("  }");
+    line("");
+    line(
+        "  public static void writeFixed("
+            + enumName
+            + " member, java.io.DataOutput output) throws java.io.IOException {");
+    line("    " + write + ";");
+    line("  }");
+    line("");
+    line(
+        "  public static "
+            + enumName
+            + " readFixed(java.io.DataInput input) throws java.io.IOException {");
+    line("    return fromWireId(" + read + ");");
+    line("  }");
+  }
+
+  /** Returns the number of bytes of the varint of the given wire id. */
+  private static int varintWidth(int wireId) {
+    int width = 1;
+    for (int remaining = wireId >>> 7; remaining != 0; remaining >>>= 7) {
+      width++;
+    }
+    return width;
+  }
+
+  private void line(String line) {
+    fileContents.append(line).append(LINE_SEPARATOR);
+  }
+}
@@ -0,0 +1,69 @@
+package me.karjan.enumvisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A typed column of a definition, such as {@code priority:int=3}, which gives every member a
+ * primitive value. The values are generated as an array indexed by ordinal, read by an accessor
+ * of the same name on the enum.
+ */
+final class EnumColumn {
+
+  /** The name of the column holding the wire ids of the members, when the definition has them. */
+  static final String WIRE_ID = "wireId";
+
+  /** The name of the column, which is also the name of its array and of its accessor. */
+  private final String name;
+
+  /** The primitive type of the values, one of {@link GenerationOptions#PRIMITIVE_TYPES}. */
+  private final String type;
+
+  /**
+   * The values in the order of the members, boxed as {@code Integer}, {@code Long}, {@code Double}
+   * or {@code Boolean}. A member without a value has zero or false.
+   */
+  private final List<Object> values;
+
+  EnumColumn(String name, String type, List<Object> values) {
+    this.name = name;
+    this.type = type;
+    this.values = List.copyOf(values);
+  }
+
+  /** Returns the column of the given wire ids, in the order of the members. */
+  static EnumColumn wireIds(List<Integer> wireIds) {
+    return new EnumColumn(WIRE_ID, "int", new ArrayList<>(wireIds));
+  }
+
+  /** Getter for {@link #name}. */
+  String getName() {
+    return name;
+  }
+
+  /** Getter for {@link #type}. */
+  String getType() {
+    return type;
+  }
+
+  /** Getter for {@link #values}. */
+  List<Object> getValues() {
+    return values;
+  }
+
+  /** Returns the Java literal of the value of the member with the given ordinal. */
+  String literal(int ordinal) {
+    Object value = values.get(ordinal);
+    return value instanceof Long ? value + "L" : String.valueOf(value);
+  }
+
+  /** Returns the value of a member which does not give one, for the given type. */
+  static Object defaultValue(String type) {
+    return switch (type) {
+      case "int" -> 0;
+      case "long" -> 0L;
+      case "double" -> 0.0;
+      default -> false;
+    };
+  }
+}
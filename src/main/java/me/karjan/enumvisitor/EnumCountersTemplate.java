@@ -0,0 +1,121 @@
+package me.karjan.enumvisitor;
+
+import static me.karjan.enumvisitor.EnumVisitorUtil.LINE_SEPARATOR;
+
+/**
+ * Renders the Java source code of the counters companion of an enum, such as {@code
+ * PlanetCounters}, which counts events per member on contended paths without boxing or locking.
+ *
+ * <p>The counters are kept in an {@code AtomicLongArray} split into stripes, each holding a
+ * counter per member indexed by ordinal. A thread adds to the stripe picked by its identity hash,
+ * so threads mostly update different stripes. The stripes are separated by {@value #PADDING}
+ * unused counters, 128 bytes, so no two of them share a cache line or a pair of adjacent lines.
+ * Reading a total sums the member over every stripe, which like {@code LongAdder.sum()} is not an
+ * atomic snapshot while updates are in flight.
+ */
+final class EnumCountersTemplate {
+
+  /** The suffix of the name of the counters companion, appended to the name of the enum. */
+  static final String COUNTERS_SUFFIX = "Counters";
+
+  /** The number of unused {@code long} counters before and between the stripes. */
+  private static final int PADDING = 16;
+
+  /** The number of {@code long} counters in a cache line of 64 bytes. */
+  private static final int LINE_LONGS = 8;
+
+  /** The largest number of stripes, which keeps large enums from using too much memory. */
+  private static final int MAX_STRIPES = 256;
+
+  private final String enumPackage;
+  private final String enumName;
+  private final String countersName;
+  private final int memberCount;
+  private final StringBuilder fileContents = new StringBuilder();
+
+  EnumCountersTemplate(String enumPackage, String enumName, int memberCount) {
+    this.enumPackage = enumPackage;
+    this.enumName = enumName;
+    this.countersName = enumName + COUNTERS_SUFFIX;
+    this.memberCount = memberCount;
+  }
+
+  /** Returns the Java source code of the counters companion. */
+  String render() {
+    int stride = (memberCount + LINE_LONGS - 1) / LINE_LONGS * LINE_LONGS + PADDING;
+    line("package " + enumPackage + ";");
+    line("");
+    line("public final class " + countersName + " {");
+    line("");
+    line("  private static final " + enumName + "[] MEMBERS = " + enumName + ".values();");
+    line("");
+    line("  private static final int PADDING = " + PADDING + ";");
+    line("");
+    line("  private static final int STRIDE = " + stride + ";");
+    line("");
+    line("  private static final int MAX_STRIPES = " + MAX_STRIPES + ";");
+    line("");
+    line("  private final java.util.concurrent.atomic.AtomicLongArray cells;");
+    line("");
+    line("  private final int mask;");
+    line("");
+    line("  public " + countersName + "() {");
+    line("    this(java.lang.Runtime.getRuntime().availableProcessors());");
+    line("  }");
+    line("");
+    line("  public " + countersName + "(int stripes) {");
+    line("    int count = 1;");
+    line("    while (count < stripes && count < MAX_STRIPES) {");
+    line("      count <<= 1;");
+    line("    }");
+    line("    mask = count - 1;");
+    line("    cells = new java.util.concurrent.atomic.AtomicLongArray(PADDING + count * STRIDE);");
+    line("  }");
+    line("");
+    line("  public void increment(" + enumName + " member) {");
+    line("    cells.getAndIncrement(index(member));");
+    line("  }");
+    line("");
+    line("  public void add(" + enumName + " member, long delta) {");
+    line("    cells.getAndAdd(index(member), delta);");
+    line("  }");
+    line("");
+    line("  public long get(" + enumName + " member) {");
+    line("    long total = 0;");
+    line("    for (int i = PADDING + member.ordinal(); i < cells.length(); i += STRIDE) {");
+    line("      total += cells.get(i);");
+    line("    }");
+    line("    return total;");
+    line("  }");
+    line("");
+    line("  public void snapshot(java.util.function.ObjLongConsumer<" + enumName + "> visitor) {");
+    line("    for (" + enumName + " member : MEMBERS) {");
+    line("      visitor.accept(member, get(member));");
+    line("    }");
+    line("  }");
+    line("");
+    line("  public void snapshot(long[] totals) {");
+    line("    for (" + enumName + " member : MEMBERS) {");
+    line("      totals[member.ordinal()] = get(member);");
+    line("    }");
+    line("  }");
+    line("");
+    line("  public void reset() {");
+    line("    for (int i = 0; i < cells.length(); i++) {");
+    line("      cells.set(i, 0);");
+    line("    }");
+    line("  }");
+    line("");
+    line("  private int index(" + enumName + " member) {");
+    line(
+        "    int hash = java.lang.System.identityHashCode(java.lang.Thread.currentThread());");
+    line("    return PADDING + ((hash ^ hash >>> 16) & mask) * STRIDE + member.ordinal();");
+    line("  }");
+    line("}");
+    return fileContents.toString();
+  }
+
+  private void line(String line) {
+    fileContents.append(line).append(LINE_SEPARATOR);
+  }
+}
@@ -0,0 +1,72 @@
+package me.karjan.enumvisitor;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The contents of a definition file: the members of the enum, their wire ids, the columns of
+ * values of the members, and the directives for it.
+ */
+final class EnumDefinition {
+
+  /** The path of the definition, relative to the source directory. */
+  private final String relativePath;
+
+  /** The members of the enum, in the order of the definition. */
+  private final List<String> members;
+
+  /**
+   * The wire ids of the members, in the order of the members, or an empty list if the definition
+   * does not give any.
+   */
+  private final List<Integer> wireIds;
+
+  /** The columns of the definition, in the order they first appear. */
+  private final List<EnumColumn> columns;
+
+  /**
+   * The directives of the definition, keyed by their name, in the order of the definition so the
+   * first invalid one is always the one reported.
+   */
+  private final Map<String, String> directives;
+
+  EnumDefinition(
+      String relativePath,
+      List<String> members,
+      List<Integer> wireIds,
+      List<EnumColumn> columns,
+      Map<String, String> directives) {
+    this.relativePath = relativePath;
+    this.members = List.copyOf(members);
+    this.wireIds = List.copyOf(wireIds);
+    this.columns = List.copyOf(columns);
+    this.directives = Collections.unmodifiableMap(new LinkedHashMap<>(directives));
+  }
+
+  /** Getter for {@link #relativePath}. */
+  String getRelativePath() {
+    return relativePath;
+  }
+
+  /** Getter for {@link #members}. */
+  List<String> getMembers() {
+    return members;
+  }
+
+  /** Getter for {@link #wireIds}. */
+  List<Integer> getWireIds() {
+    return wireIds;
+  }
+
+  /** Getter for {@link #columns}. */
+  List<EnumColumn> getColumns() {
+    return columns;
+  }
+
+  /** Getter for {@link #directives}. */
+  Map<String, String> getDirectives() {
+    return directives;
+  }
+}
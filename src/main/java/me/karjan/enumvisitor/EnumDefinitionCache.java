@@ -0,0 +1,110 @@
+package me.karjan.enumvisitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+/**
+ * A shared build service which keeps the parsed definitions in memory, so that a definition which
+ * did not change is not parsed again, whether by another task or project of the same build, or by
+ * a later build in the same daemon. The definitions are keyed by their relative path and the hash
+ * of their contents, and the least recently used ones are evicted beyond {@link
+ * Parameters#getMaxEntries()}. A definition which fails to parse is not cached.
+ *
+ * <p>A build service only lives as long as a build, so the definitions are held by the class,
+ * which the daemon keeps loaded from one build to the next as long as the plugin does not change.
+ * Each build counts its own hits and misses, and logs them when the service is closed at the end of
+ * the build.
+ */
+abstract class EnumDefinitionCache
+    implements BuildService<EnumDefinitionCache.Parameters>, AutoCloseable {
+
+  /** The name the service is registered under, once per build. */
+  static final String NAME = "enumVisitorDefinitionCache";
+
+  /** The Gradle property setting the number of definitions kept, zero disabling the cache. */
+  static final String MAX_ENTRIES_PROPERTY = "enumVisitor.definitionCacheSize";
+
+  /** The default number of definitions kept. */
+  static final int DEFAULT_MAX_ENTRIES = 4096;
+
+  private static final Logger LOGGER = Logging.getLogger(EnumDefinitionCache.class);
+
+  /**
+   * The parsed definitions of every build of this daemon, keyed by the hash of their contents and
+   * their relative path, the least recently used first.
+   */
+  private static final Map<String, EnumDefinition> DEFINITIONS =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  /** The parameters of the service. */
+  interface Parameters extends BuildServiceParameters {
+
+    /** The number of definitions kept, beyond which the least recently used one is evicted. */
+    Property<Integer> getMaxEntries();
+  }
+
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  @Inject
+  public EnumDefinitionCache() {}
+
+  /**
+   * Returns the parsed definition at the given path, relative to the source directory, from the
+   * cache if its contents did not change since it was last parsed.
+   */
+  EnumDefinition parse(File definition, String relativePath) throws IOException {
+    byte[] contents = Files.readAllBytes(definition.toPath());
+    int maxEntries = getParameters().getMaxEntries().get();
+    if (maxEntries <= 0) {
+      misses.incrementAndGet();
+      return EnumDefinitionParser.parse(relativePath, contents);
+    }
+    String key = EnumVisitorUtil.contentHash(contents) + " " + relativePath;
+    synchronized (DEFINITIONS) {
+      EnumDefinition cached = DEFINITIONS.get(key);
+      if (cached != null) {
+        hits.incrementAndGet();
+        return cached;
+      }
+    }
+    misses.incrementAndGet();
+    EnumDefinition parsed = EnumDefinitionParser.parse(relativePath, contents);
+    synchronized (DEFINITIONS) {
+      DEFINITIONS.put(key, parsed);
+      Iterator<String> eldest = DEFINITIONS.keySet().iterator();
+      while (DEFINITIONS.size() > maxEntries) {
+        eldest.next();
+        eldest.remove();
+      }
+    }
+    return parsed;
+  }
+
+  @Override
+  public void close() {
+    int size;
+    synchronized (DEFINITIONS) {
+      size = DEFINITIONS.size();
+    }
+    LOGGER.info(
+        "Enum definition cache: "
+            + hits.get()
+            + " hits, "
+            + misses.get()
+            + " misses, "
+            + size
+            + " definitions kept");
+  }
+}
@@ -0,0 +1,22 @@
+package me.karjan.enumvisitor;
+
+import org.gradle.api.InvalidUserDataException;
+
+/** Thrown when an enum definition cannot be turned into Java source code. */
+class EnumDefinitionException extends InvalidUserDataException {
+
+  private static final long serialVersionUID = 1L;
+
+  /** The path of the offending definition, relative to the source directory. */
+  private final String definitionPath;
+
+  EnumDefinitionException(String definitionPath, String message) {
+    super(message);
+    this.definitionPath = definitionPath;
+  }
+
+  /** Getter for {@link #definitionPath}. */
+  String getDefinitionPath() {
+    return definitionPath;
+  }
+}
@@ -0,0 +1,521 @@
+package me.karjan.enumvisitor;
+
+import static me.karjan.enumvisitor.EnumVisitorUtil.DIRECTIVE_PREFIX;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Parses a definition file in a single pass over its UTF-8 bytes. Each line holds a member, a
+ * directive starting with {@code @}, or nothing. Blanks around them are ignored, and a {@code #}
+ * starts a comment which runs to the end of the line. A member can be followed by its wire id,
+ * such as {@code Mercury = 3}, and by the values of typed columns, such as {@code Mercury
+ * priority:int=3 weight:double=0.38}, which are checked while they are scanned.
+ *
+ * <p>Members are validated while they are scanned. Java identifiers of this generator are ASCII,
+ * so no decoding is needed besides the values of directives and the text of error messages, which
+ * report the line and column of the offending character. Lines may end with {@code \n}, {@code
+ * \r\n} or {@code \r}.
+ */
+final class EnumDefinitionParser {
+
+  private static final byte COMMENT = '#';
+  private static final byte DIRECTIVE = (byte) DIRECTIVE_PREFIX.charAt(0);
+  private static final byte[] BYTE_ORDER_MARK = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+  private static final byte COLUMN_TYPE = ':';
+  private static final byte COLUMN_VALUE = '=';
+  private static final Pattern INTEGER_LITERAL = Pattern.compile("[+-]?[0-9]+");
+  private static final Pattern WIRE_ID_LITERAL = Pattern.compile("[0-9]+");
+  private static final Pattern DECIMAL_LITERAL =
+      Pattern.compile("[+-]?([0-9]+(\\.[0-9]*)?|\\.[0-9]+)([eE][+-]?[0-9]+)?");
+
+  /**
+   * The methods without parameters of every enum, which the accessor of a column cannot be named
+   * like.
+   */
+  private static final Set<String> ENUM_METHODS =
+      Set.of(
+          "clone", "describeConstable", "finalize", "getClass", "getDeclaringClass", "hashCode",
+          "name", "notify", "notifyAll", "ordinal", "toString", "values", "wait");
+
+  /** A column being parsed: its type, where it is first used, and the values given so far. */
+  private static final class ColumnDeclaration {
+    private final String type;
+    private final int line;
+    private final int column;
+    private final Map<Integer, Object> values = new HashMap<>();
+
+    ColumnDeclaration(String type, int line, int column) {
+      this.type = type;
+      this.line = line;
+      this.column = column;
+    }
+  }
+
+  private final String relativePath;
+  private final byte[] contents;
+  private int index;
+  private int line = 1;
+  private int lineStart;
+
+  /** The wire ids given so far, with the member having each. */
+  private final Map<Integer, String> membersByWireId = new HashMap<>();
+
+  /** The wire ids given so far, keyed by their member. */
+  private final Map<String, Integer> wireIds = new HashMap<>();
+
+  /** The line and column of the first member without a wire id, or null if there is none. */
+  private int[] firstMemberWithoutWireId;
+
+  /**
+   * The line and column of the member named like the accessor of the wire ids, or null if there
+   * is none.
+   */
+  private int[] wireIdMember;
+
+  private EnumDefinitionParser(String relativePath, byte[] contents) {
+    this.relativePath = relativePath;
+    this.contents = contents;
+  }
+
+  /** Reads and parses the given definition file, at the given path relative to its directory. */
+  static EnumDefinition parse(File file, String relativePath) throws IOException {
+    return parse(relativePath, Files.readAllBytes(file.toPath()));
+  }
+
+  /** Parses the given contents of the definition at the given relative path. */
+  static EnumDefinition parse(String relativePath, byte[] contents) {
+    return new EnumDefinitionParser(relativePath, contents).parse();
+  }
+
+  /**
+   * Returns true if the given contents of a definition may declare wire ids: when a line which is
+   * neither a directive nor a comment has a {@code =} before any {@code :}, which would make it the
+   * value of a column. It does not validate anything, so it lets the callers which only need the
+   * wire ids skip the parse of most definitions.
+   */
+  static boolean declaresWireIds(byte[] contents) {
+    boolean skipLine = false;
+    boolean column = false;
+    boolean blankLine = true;
+    for (byte b : contents) {
+      if (isLineEnd(b)) {
+        skipLine = false;
+        column = false;
+        blankLine = true;
+      } else if (skipLine || isBlank(b)) {
+        continue;
+      } else if (b == COMMENT || blankLine && b == DIRECTIVE) {
+        skipLine = true;
+      } else if (b == COLUMN_TYPE) {
+        column = true;
+      } else if (b == COLUMN_VALUE && !column) {
+        return true;
+      } else {
+        blankLine = false;
+      }
+    }
+    return false;
+  }
+
+  private EnumDefinition parse() {
+    // The members in the order of the definition, with the line defining them
+    Map<String, Integer> members = new LinkedHashMap<>();
+    Map<String, ColumnDeclaration> columns = new LinkedHashMap<>();
+    Map<String, String> directives = new LinkedHashMap<>();
+    if (startsWithByteOrderMark()) {
+      index = lineStart = BYTE_ORDER_MARK.length;
+    }
+    while (index < contents.length) {
+      skipBlanks();
+      if (index < contents.length && contents[index] == DIRECTIVE) {
+        parseDirective(directives);
+      } else if (index < contents.length && !isTokenEnd(contents[index])) {
+        int start = index;
+        String member = parseMember(members);
+        parseWireId(members, member, start);
+        parseColumns(members.size() - 1, columns);
+      }
+      endLine();
+    }
+    List<String> memberNames = new ArrayList<>(members.keySet());
+    return new EnumDefinition(
+        relativePath,
+        memberNames,
+        toWireIds(memberNames, members),
+        toColumns(columns, members),
+        directives);
+  }
+
+  /** Parses a member, and returns its name. */
+  private String parseMember(Map<String, Integer> members) {
+    int start = index;
+    if (!EnumVisitorUtil.isJavaIdentifierStart(contents[index])) {
+      throw invalidIdentifier(start);
+    }
+    index++;
+    while (index < contents.length
+        && !isTokenEnd(contents[index])
+        && contents[index] != COLUMN_VALUE) {
+      if (!EnumVisitorUtil.isJavaIdentifierPart(contents[index])) {
+        throw invalidIdentifier(start);
+      }
+      index++;
+    }
+    String member = new String(contents, start, index - start, StandardCharsets.US_ASCII);
+    if (EnumVisitorUtil.isReservedWord(member)) {
+      throw error(
+          member + " is not a valid identifier for Java, it is a reserved word", column(start));
+    }
+    Integer firstLine = members.putIfAbsent(member, line);
+    if (firstLine != null) {
+      throw error(
+          "Duplicate line in file: " + member + " is already defined at line " + firstLine,
+          column(start));
+    }
+    return member;
+  }
+
+  /**
+   * Parses the wire id following the given member, which starts at the given index, if there is
+   * one.
+   */
+  private void parseWireId(Map<String, Integer> members, String member, int memberStart) {
+    if (EnumColumn.WIRE_ID.equals(member)) {
+      wireIdMember = new int[] {line, column(memberStart)};
+    }
+    skipBlanks();
+    if (index == contents.length || contents[index] != COLUMN_VALUE) {
+      if (firstMemberWithoutWireId == null) {
+        firstMemberWithoutWireId = new int[] {line, column(memberStart)};
+      }
+      return;
+    }
+    index++;
+    skipBlanks();
+    int start = index;
+    while (index < contents.length && !isTokenEnd(contents[index])) {
+      index++;
+    }
+    String literal = decode(start, index);
+    Integer wireId = null;
+    if (WIRE_ID_LITERAL.matcher(literal).matches()) {
+      try {
+        wireId = Integer.valueOf(literal);
+      } catch (NumberFormatException e) {
+        // Larger than an int
+      }
+    }
+    if (wireId == null) {
+      throw error(
+          literal + " is not a valid wire id, expected an int from 0 to " + Integer.MAX_VALUE,
+          column(start));
+    }
+    String other = membersByWireId.putIfAbsent(wireId, member);
+    if (other != null) {
+      throw error(
+          "Duplicate wire id "
+              + wireId
+              + ", already used by "
+              + other
+              + " at line "
+              + members.get(other),
+          column(start));
+    }
+    wireIds.put(member, wireId);
+  }
+
+  /**
+   * Returns the wire ids in the order of the members, or an empty list if the definition has none.
+   * Either every member has a wire id, or none.
+   */
+  private List<Integer> toWireIds(List<String> memberNames, Map<String, Integer> members) {
+    if (wireIds.isEmpty()) {
+      return List.of();
+    }
+    if (firstMemberWithoutWireId != null) {
+      String member =
+          memberNames.stream().filter(wireIds::containsKey).findFirst().orElseThrow();
+      throw error(
+          "Missing wire id, every member needs one since "
+              + member
+              + " at line "
+              + members.get(member)
+              + " has one",
+          firstMemberWithoutWireId[0],
+          firstMemberWithoutWireId[1]);
+    }
+    if (wireIdMember != null) {
+      throw error(
+          "The member " + EnumColumn.WIRE_ID + " clashes with the accessor of the wire ids",
+          wireIdMember[0],
+          wireIdMember[1]);
+    }
+    List<Integer> result = new ArrayList<>();
+    for (String member : memberNames) {
+      result.add(wireIds.get(member));
+    }
+    return result;
+  }
+
+  /**
+   * Parses the values of columns following the member with the given ordinal. The first token
+   * which is not a column is left for {@link #endLine()} to report.
+   */
+  private void parseColumns(int ordinal, Map<String, ColumnDeclaration> columns) {
+    Set<String> named = new HashSet<>();
+    while (true) {
+      skipBlanks();
+      int start = index;
+      int separator = -1;
+      while (index < contents.length && !isTokenEnd(contents[index])) {
+        if (contents[index] == COLUMN_TYPE && separator < 0) {
+          separator = index;
+        }
+        index++;
+      }
+      if (separator < 0) {
+        index = start;
+        return;
+      }
+      parseColumn(ordinal, start, separator, columns, named);
+    }
+  }
+
+  /**
+   * Parses the value of a column, from the given start to the current index, with the separator
+   * of its type at the given index.
+   */
+  private void parseColumn(
+      int ordinal,
+      int start,
+      int separator,
+      Map<String, ColumnDeclaration> columns,
+      Set<String> named) {
+    int assignment = separator + 1;
+    while (assignment < index && contents[assignment] != COLUMN_VALUE) {
+      assignment++;
+    }
+    if (assignment == index) {
+      throw error(
+          decode(start, index) + " is not a column, expected name:type=value", column(start));
+    }
+    String name = decode(start, separator);
+    if (!EnumVisitorUtil.isJavaIdentifier(name)) {
+      throw error(name + " is not a valid column name", column(start));
+    }
+    if (ENUM_METHODS.contains(name)) {
+      throw error(
+          "The column " + name + " clashes with the method " + name + "() of the enum",
+          column(start));
+    }
+    String type = decode(separator + 1, assignment);
+    if (!GenerationOptions.PRIMITIVE_TYPES.contains(type)) {
+      throw error(
+          "Unsupported column type "
+              + type
+              + ", expected one of: "
+              + String.join(", ", GenerationOptions.PRIMITIVE_TYPES),
+          column(separator + 1));
+    }
+    ColumnDeclaration declaration =
+        columns.computeIfAbsent(name, key -> new ColumnDeclaration(type, line, column(start)));
+    if (!declaration.type.equals(type)) {
+      throw error(
+          "The column "
+              + name
+              + " is declared as "
+              + declaration.type
+              + " at line "
+              + declaration.line
+              + ", not "
+              + type,
+          column(separator + 1));
+    }
+    if (!named.add(name)) {
+      throw error("Duplicate column " + name + " on the same line", column(start));
+    }
+    String literal = decode(assignment + 1, index);
+    Object value = parseValue(type, literal);
+    if (value == null) {
+      throw error(literal + " is not a valid " + type + " value", column(assignment + 1));
+    }
+    declaration.values.put(ordinal, value);
+  }
+
+  /** Returns the value of the given literal of a column of the given type, or null if invalid. */
+  private static Object parseValue(String type, String literal) {
+    try {
+      return switch (type) {
+        case "int" -> INTEGER_LITERAL.matcher(literal).matches() ? Integer.valueOf(literal) : null;
+        case "long" -> INTEGER_LITERAL.matcher(literal).matches() ? Long.valueOf(literal) : null;
+        case "double" -> DECIMAL_LITERAL.matcher(literal).matches()
+                && Double.isFinite(Double.parseDouble(literal))
+            ? Double.valueOf(literal)
+            : null;
+        default -> "true".equals(literal) || "false".equals(literal)
+            ? Boolean.valueOf(literal)
+            : null;
+      };
+    } catch (NumberFormatException e) {
+      // Out of the range of the type
+      return null;
+    }
+  }
+
+  /** Returns the columns with a value for every member, checking that they have unique names. */
+  private List<EnumColumn> toColumns(
+      Map<String, ColumnDeclaration> columns, Map<String, Integer> members) {
+    List<EnumColumn> result = new ArrayList<>();
+    for (Map.Entry<String, ColumnDeclaration> entry : columns.entrySet()) {
+      ColumnDeclaration declaration = entry.getValue();
+      if (members.containsKey(entry.getKey())) {
+        throw error(
+            "The column " + entry.getKey() + " clashes with the member " + entry.getKey(),
+            declaration.line,
+            declaration.column);
+      }
+      if (EnumColumn.WIRE_ID.equals(entry.getKey()) && !wireIds.isEmpty()) {
+        throw error(
+            "The column " + entry.getKey() + " clashes with the accessor of the wire ids",
+            declaration.line,
+            declaration.column);
+      }
+      List<Object> values = new ArrayList<>();
+      for (int ordinal = 0; ordinal < members.size(); ordinal++) {
+        values.add(
+            declaration.values.getOrDefault(ordinal, EnumColumn.defaultValue(declaration.type)));
+      }
+      result.add(new EnumColumn(entry.getKey(), declaration.type, values));
+    }
+    return result;
+  }
+
+  private void parseDirective(Map<String, String> directives) {
+    int start = index;
+    index++;
+    while (index < contents.length && !isTokenEnd(contents[index])) {
+      index++;
+    }
+    String name = decode(start + 1, index);
+    skipBlanks();
+    int valueStart = index;
+    int valueEnd = index;
+    while (index < contents.length && !isLineEnd(contents[index]) && contents[index] != COMMENT) {
+      index++;
+      if (!isBlank(contents[index - 1])) {
+        valueEnd = index;
+      }
+    }
+    if (directives.putIfAbsent(name, decode(valueStart, valueEnd)) != null) {
+      throw error("Duplicate directive " + DIRECTIVE_PREFIX + name, column(start));
+    }
+  }
+
+  /** Moves past the rest of the line, which may only hold blanks and a comment. */
+  private void endLine() {
+    skipBlanks();
+    if (index < contents.length && contents[index] == COMMENT) {
+      while (index < contents.length && !isLineEnd(contents[index])) {
+        index++;
+      }
+    }
+    if (index < contents.length && !isLineEnd(contents[index])) {
+      int start = index;
+      while (index < contents.length && !isTokenEnd(contents[index])) {
+        index++;
+      }
+      throw error(
+          "Unexpected " + decode(start, index) + ", there must be one member per line",
+          column(start));
+    }
+    if (index < contents.length && contents[index] == '\r') {
+      index++;
+    }
+    if (index < contents.length && contents[index] == '\n') {
+      index++;
+    }
+    line++;
+    lineStart = index;
+  }
+
+  private void skipBlanks() {
+    while (index < contents.length && isBlank(contents[index])) {
+      index++;
+    }
+  }
+
+  /** Returns the error for the identifier starting at the given index, which has a bad byte. */
+  private EnumDefinitionException invalidIdentifier(int start) {
+    int invalid = index;
+    while (index < contents.length && !isTokenEnd(contents[index])) {
+      index++;
+    }
+    return error(
+        decode(start, index)
+            + " is not a valid identifier for Java, unexpected character "
+            + decode(invalid, invalidCharacterEnd(invalid)),
+        column(invalid));
+  }
+
+  /** Returns the end of the UTF-8 sequence of the character at the given index. */
+  private int invalidCharacterEnd(int invalid) {
+    int end = invalid + 1;
+    while (end < contents.length && (contents[end] & 0xC0) == 0x80) {
+      end++;
+    }
+    return end;
+  }
+
+  /** Returns the error with the given message, located like a compiler error. */
+  private EnumDefinitionException error(String message, int column) {
+    return error(message, line, column);
+  }
+
+  private EnumDefinitionException error(String message, int line, int column) {
+    return new EnumDefinitionException(
+        relativePath, relativePath + ":" + line + ":" + column + ": " + message);
+  }
+
+  private int column(int position) {
+    return position - lineStart + 1;
+  }
+
+  private String decode(int start, int end) {
+    return new String(contents, start, end - start, StandardCharsets.UTF_8);
+  }
+
+  private boolean startsWithByteOrderMark() {
+    if (contents.length < BYTE_ORDER_MARK.length) {
+      return false;
+    }
+    for (int i = 0; i < BYTE_ORDER_MARK.length; i++) {
+      if (contents[i] != BYTE_ORDER_MARK[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isBlank(byte b) {
+    return b == ' ' || b == '\t' || b == '\f';
+  }
+
+  private static boolean isLineEnd(byte b) {
+    return b == '\n' || b == '\r';
+  }
+
+  private static boolean isTokenEnd(byte b) {
+    return isBlank(b) || isLineEnd(b) || b == COMMENT;
+  }
+}
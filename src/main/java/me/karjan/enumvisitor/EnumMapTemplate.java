@@ -0,0 +1,270 @@
+package me.karjan.enumvisitor;
+
+import static me.karjan.enumvisitor.EnumVisitorUtil.LINE_SEPARATOR;
+
+/**
+ * Renders the Java source code of the map companion of an enum, such as {@code PlanetMap<V>},
+ * which keeps a value per member for concurrent readers and writers without hashing or locking.
+ *
+ * <p>The values are kept in an {@code AtomicReferenceArray} indexed by ordinal, sized to the
+ * members of the definition. Reads are volatile loads, and every update is a single compare and
+ * set of its slot, retried while other threads update the same member. A {@code null} slot means
+ * that the member has no value, so like {@code ConcurrentHashMap} the map does not hold nulls.
+ */
+final class EnumMapTemplate {
+
+  /** The suffix of the name of the map companion, appended to the name of the enum. */
+  static final String MAP_SUFFIX = "Map";
+
+  /**
+   * The suffix of the name of the immutable snapshot nested in the map, appended to the name of
+   * the enum so it cannot hide an enum named like it.
+   */
+  private static final String SNAPSHOT_SUFFIX = "Snapshot";
+
+  private final String enumPackage;
+  private final String enumName;
+  private final String mapName;
+  private final String snapshotName;
+  private final int memberCount;
+  private final StringBuilder fileContents = new StringBuilder();
+
+  EnumMapTemplate(String enumPackage, String enumName, int memberCount) {
+    this.enumPackage = enumPackage;
+    this.enumName = enumName;
+    this.mapName = enumName + MAP_SUFFIX;
+    this.snapshotName = enumName + SNAPSHOT_SUFFIX;
+    this.memberCount = memberCount;
+  }
+
+  /** Returns the Java source code of the map companion. */
+  String render() {
+    line("package " + enumPackage + ";");
+    line("");
+    line("public final class " + mapName + "<V> {");
+    line("");
+    line("  private static final " + enumName + "[] MEMBERS = " + enumName + ".values();");
+    line("");
+    line("  private final java.util.concurrent.atomic.AtomicReferenceArray<V> values;");
+    line("");
+    line("  public " + mapName + "() {");
+    line(
+        "    values = new java.util.concurrent.atomic.AtomicReferenceArray<>("
+            + memberCount
+            + ");");
+    line("  }");
+    line("");
+    appendReads();
+    appendUpdates();
+    appendComputes();
+    appendIteration();
+    appendSnapshot();
+    line("}");
+    return fileContents.toString();
+  }
+
+  private void appendReads() {
+    line("  public V get(" + enumName + " member) {");
+    line("    return values.get(member.ordinal());");
+    line("  }");
+    line("");
+    line("  public V getOrDefault(" + enumName + " member, V defaultValue) {");
+    line("    V value = values.get(member.ordinal());");
+    line("    return value != null ? value : defaultValue;");
+    line("  }");
+    line("");
+    line("  public boolean containsKey(" + enumName + " member) {");
+    line("    return values.get(member.ordinal()) != null;");
+    line("  }");
+    line("");
+    line("  public int size() {");
+    line("    int size = 0;");
+    line("    for (int i = 0; i < values.length(); i++) {");
+    line("      if (values.get(i) != null) {");
+    line("        size++;");
+    line("      }");
+    line("    }");
+    line("    return size;");
+    line("  }");
+    line("");
+  }
+
+  private void appendUpdates() {
+    line("  public V put(" + enumName + " member, V value) {");
+    line("    return values.getAndSet(member.ordinal(), java.util.Objects.requireNonNull(value));");
+    line("  }");
+    line("");
+    line("  public V putIfAbsent(" + enumName + " member, V value) {");
+    line("    java.util.Objects.requireNonNull(value);");
+    line("    int ordinal = member.ordinal();");
+    line("    while (true) {");
+    line("      V current = values.get(ordinal);");
+    line("      if (current != null || values.compareAndSet(ordinal, null, value)) {");
+    line("        return current;");
+    line("      }");
+    line("    }");
+    line("  }");
+    line("");
+    line("  public boolean compareAndSet(" + enumName + " member, V expected, V value) {");
+    line("    return values.compareAndSet(member.ordinal(), expected, value);");
+    line("  }");
+    line("");
+    line("  public V remove(" + enumName + " member) {");
+    line("    return values.getAndSet(member.ordinal(), null);");
+    line("  }");
+    line("");
+    line("  public void clear() {");
+    line("    for (int i = 0; i < values.length(); i++) {");
+    line("      values.set(i, null);");
+    line("    }");
+    line("  }");
+    line("");
+  }
+
+  /**
+   * Appends the compute methods. Their function is called before the compare and set, so it may be
+   * called again when another thread updated the member in between, and must not have side
+   * effects.
+   */
+  private void appendComputes() {
+    line(
+        "  public V computeIfAbsent("
+            + enumName
+            + " member, java.util.function.Function<? super "
+            + enumName
+            + ", ? extends V> mapping) {");
+    line("    int ordinal = member.ordinal();");
+    line("    V current = values.get(ordinal);");
+    line("    if (current != null) {");
+    line("      return current;");
+    line("    }");
+    line("    V value = mapping.apply(member);");
+    line("    if (value == null) {");
+    line("      return null;");
+    line("    }");
+    line("    while (true) {");
+    line("      if (values.compareAndSet(ordinal, null, value)) {");
+    line("        return value;");
+    line("      }");
+    line("      current = values.get(ordinal);");
+    line("      if (current != null) {");
+    line("        return current;");
+    line("      }");
+    line("    }");
+    line("  }");
+    line("");
+    line(
+        "  public V compute("
+            + enumName
+            + " member, java.util.function.BiFunction<? super "
+            + enumName
+            + ", ? super V, ? extends V> remapping) {");
+    line("    int ordinal = member.ordinal();");
+    line("    while (true) {");
+    line("      V current = values.get(ordinal);");
+    line("      V value = remapping.apply(member, current);");
+    line("      if (values.compareAndSet(ordinal, current, value)) {");
+    line("        return value;");
+    line("      }");
+    line("    }");
+    line("  }");
+    line("");
+    line(
+        "  public V computeIfPresent("
+            + enumName
+            + " member, java.util.function.BiFunction<? super "
+            + enumName
+            + ", ? super V, ? extends V> remapping) {");
+    line("    int ordinal = member.ordinal();");
+    line("    while (true) {");
+    line("      V current = values.get(ordinal);");
+    line("      if (current == null) {");
+    line("        return null;");
+    line("      }");
+    line("      V value = remapping.apply(member, current);");
+    line("      if (values.compareAndSet(ordinal, current, value)) {");
+    line("        return value;");
+    line("      }");
+    line("    }");
+    line("  }");
+    line("");
+  }
+
+  private void appendIteration() {
+    line(
+        "  public void forEach(java.util.function.BiConsumer<? super "
+            + enumName
+            + ", ? super V> visitor) {");
+    line("    for (int i = 0; i < MEMBERS.length; i++) {");
+    line("      V value = values.get(i);");
+    line("      if (value != null) {");
+    line("        visitor.accept(MEMBERS[i], value);");
+    line("      }");
+    line("    }");
+    line("  }");
+    line("");
+  }
+
+  /**
+   * Appends the immutable snapshot, which copies the values one member at a time. Like the totals
+   * of the counters, it is not atomic while other threads update the map.
+   */
+  private void appendSnapshot() {
+    line("  public " + snapshotName + "<V> snapshot() {");
+    line("    java.lang.Object[] copy = new java.lang.Object[values.length()];");
+    line("    for (int i = 0; i < copy.length; i++) {");
+    line("      copy[i] = values.get(i);");
+    line("    }");
+    line("    return new " + snapshotName + "<>(copy);");
+    line("  }");
+    line("");
+    line("  public static final class " + snapshotName + "<V> {");
+    line("");
+    line("    private final java.lang.Object[] values;");
+    line("");
+    line("    private " + snapshotName + "(java.lang.Object[] values) {");
+    line("      this.values = values;");
+    line("    }");
+    line("");
+    line("    @java.lang.SuppressWarnings(\"unchecked\")");
+    line("    public V get(" + enumName + " member) {");
+    line("      return (V) values[member.ordinal()];");
+    line("    }");
+    line("");
+    line("    public V getOrDefault(" + enumName + " member, V defaultValue) {");
+    line("      V value = get(member);");
+    line("      return value != null ? value : defaultValue;");
+    line("    }");
+    line("");
+    line("    public boolean containsKey(" + enumName + " member) {");
+    line("      return values[member.ordinal()] != null;");
+    line("    }");
+    line("");
+    line("    public int size() {");
+    line("      int size = 0;");
+    line("      for (java.lang.Object value : values) {");
+    line("        if (value != null) {");
+    line("          size++;");
+    line("        }");
+    line("      }");
+    line("      return size;");
+    line("    }");
+    line("");
+    line("    @java.lang.SuppressWarnings(\"unchecked\")");
+    line(
+        "    public void forEach(java.util.function.BiConsumer<? super "
+            + enumName
+            + ", ? super V> visitor) {");
+    line("      for (int i = 0; i < MEMBERS.length; i++) {");
+    line("        if (values[i] != null) {");
+    line("          visitor.accept(MEMBERS[i], (V) values[i]);");
+    line("        }");
+    line("      }");
+    line("    }");
+    line("  }");
+  }
+
+  private void line(String line) {
+    fileContents.append(line).append(LINE_SEPARATOR);
+  }
+}
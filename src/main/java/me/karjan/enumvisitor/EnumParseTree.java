@@ -0,0 +1,179 @@
+package me.karjan.enumvisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The decision tree of the {@code parse} methods of an enum, shared by the source rendered by
+ * {@link EnumParserTemplate} and the class files of {@link EnumClassEmitter}. It switches on the
+ * length of the input, then on the characters which tell the remaining candidates apart, and ends
+ * with a comparison of the characters not tested yet.
+ *
+ * <p>The code of a Java method is limited to 64KB, which the tree of a few hundred members with
+ * long names already exceeds. The tree is therefore split into segments, each rendered as its own
+ * method: a subtree which does not fit in the estimated code size left in a segment is replaced by
+ * a call to the segment holding it.
+ */
+final class EnumParseTree {
+
+  /** The position of a {@link Branch} which switches on the length instead of a character. */
+  static final int LENGTH = -1;
+
+  /**
+   * The estimated code size of a segment, in bytes of bytecode, which leaves javac and the emitter
+   * ample room below the limit of a method.
+   */
+  private static final int SEGMENT_BUDGET = 32 * 1024;
+
+  /** The estimated code size of loading a character of the input, or its length. */
+  private static final int LOAD_COST = 8;
+
+  /** A node of the tree, of which every path returns a member or {@code null}. */
+  sealed interface Node permits Branch, Leaf, Call {}
+
+  /** Switches on the length or on the character at a position. Other values return null. */
+  record Branch(int position, SortedMap<Integer, Node> cases) implements Node {}
+
+  /**
+   * Returns the member if the characters at the given positions, which were not tested by the
+   * branches leading to it, match. Otherwise returns null.
+   */
+  record Leaf(String member, List<Integer> positions) implements Node {}
+
+  /** Returns the result of the segment with the given index, for the same input. */
+  record Call(int segment) implements Node {}
+
+  private final List<Node> segments = new ArrayList<>();
+
+  private EnumParseTree() {}
+
+  /**
+   * Returns the segments of the tree over the given members. The first one is the root, the
+   * others are only reached through a {@link Call}.
+   */
+  static List<Node> segments(List<String> members) {
+    SortedMap<Integer, List<String>> membersByLength = new TreeMap<>();
+    for (String member : members) {
+      membersByLength.computeIfAbsent(member.length(), key -> new ArrayList<>()).add(member);
+    }
+    SortedMap<Integer, Node> cases = new TreeMap<>();
+    for (Map.Entry<Integer, List<String>> entry : membersByLength.entrySet()) {
+      cases.put(entry.getKey(), build(entry.getValue(), new boolean[entry.getKey()]));
+    }
+    EnumParseTree tree = new EnumParseTree();
+    tree.addSegment(new Branch(LENGTH, cases));
+    return List.copyOf(tree.segments);
+  }
+
+  /**
+   * Returns the node telling apart the given members of the same length, knowing that the input
+   * already matches them at the tested positions.
+   */
+  private static Node build(List<String> members, boolean[] tested) {
+    if (members.size() == 1) {
+      List<Integer> positions = new ArrayList<>();
+      for (int position = 0; position < tested.length; position++) {
+        if (!tested[position]) {
+          positions.add(position);
+        }
+      }
+      return new Leaf(members.get(0), positions);
+    }
+    int position = discriminatingPosition(members, tested);
+    SortedMap<Integer, List<String>> membersByChar = new TreeMap<>();
+    for (String member : members) {
+      membersByChar
+          .computeIfAbsent((int) member.charAt(position), key -> new ArrayList<>())
+          .add(member);
+    }
+    tested[position] = true;
+    SortedMap<Integer, Node> cases = new TreeMap<>();
+    for (Map.Entry<Integer, List<String>> entry : membersByChar.entrySet()) {
+      cases.put(entry.getKey(), build(entry.getValue(), tested));
+    }
+    tested[position] = false;
+    return new Branch(position, cases);
+  }
+
+  /**
+   * Returns the untested position at which the members have the most distinct characters, the
+   * first one on a tie, so the tree stays shallow.
+   */
+  private static int discriminatingPosition(List<String> members, boolean[] tested) {
+    int bestPosition = -1;
+    long bestCount = 0;
+    for (int position = 0; position < tested.length; position++) {
+      if (tested[position]) {
+        continue;
+      }
+      int current = position;
+      long count = members.stream().mapToInt(member -> member.charAt(current)).distinct().count();
+      if (count > bestCount) {
+        bestPosition = position;
+        bestCount = count;
+      }
+    }
+    return bestPosition;
+  }
+
+  /** Adds a segment rooted at the given node, and returns its index. */
+  private int addSegment(Node root) {
+    int index = segments.size();
+    segments.add(null);
+    int[] remaining = {SEGMENT_BUDGET};
+    segments.set(index, place(root, remaining, true));
+    return index;
+  }
+
+  /**
+   * Returns the node to render in the current segment in place of the given one, deducting its
+   * cost from the remaining budget of the segment. A node which does not fit moves to a new
+   * segment, unless it is the root of the current one.
+   */
+  private Node place(Node node, int[] remaining, boolean root) {
+    int cost = cost(node);
+    if (cost <= remaining[0]) {
+      remaining[0] -= cost;
+      return node;
+    }
+    if (!root) {
+      Call call = new Call(segments.size());
+      remaining[0] -= cost(call);
+      addSegment(node);
+      return call;
+    }
+    if (node instanceof Branch branch) {
+      remaining[0] -= branchCost(branch);
+      SortedMap<Integer, Node> cases = new TreeMap<>();
+      for (Map.Entry<Integer, Node> entry : branch.cases().entrySet()) {
+        cases.put(entry.getKey(), place(entry.getValue(), remaining, false));
+      }
+      return new Branch(branch.position(), cases);
+    }
+    // A single leaf too large for a segment cannot be split any further
+    return node;
+  }
+
+  /** Returns the estimated code size of the node and all the nodes below it. */
+  private static int cost(Node node) {
+    if (node instanceof Branch branch) {
+      int cost = branchCost(branch);
+      for (Node child : branch.cases().values()) {
+        cost += cost(child);
+      }
+      return cost;
+    }
+    if (node instanceof Leaf leaf) {
+      return (LOAD_COST + 6) * leaf.positions().size() + 6;
+    }
+    return LOAD_COST + 4;
+  }
+
+  /** Returns the estimated code size of the switch of a branch, without its cases. */
+  private static int branchCost(Branch branch) {
+    return LOAD_COST + 12 + 8 * branch.cases().size() + 2;
+  }
+}
@@ -0,0 +1,157 @@
+package me.karjan.enumvisitor;
+
+import static me.karjan.enumvisitor.EnumVisitorUtil.LINE_SEPARATOR;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import me.karjan.enumvisitor.EnumParseTree.Branch;
+import me.karjan.enumvisitor.EnumParseTree.Call;
+import me.karjan.enumvisitor.EnumParseTree.Leaf;
+import me.karjan.enumvisitor.EnumParseTree.Node;
+
+/**
+ * Renders the static {@code parse} methods of an enum, which look up a member by its name in a
+ * {@code CharSequence}, a range of a {@code byte[]} or the remaining bytes of a {@code ByteBuffer}.
+ * A miss returns {@code null} instead of throwing, and no intermediate {@code String} is created.
+ *
+ * <p>Each method is a decision tree: a switch on the length, then switches on the characters
+ * which tell the remaining candidates apart, and a final comparison of the characters not tested
+ * yet. Member names are ASCII identifiers, so their UTF-8 bytes are their characters. The tree of
+ * a large enum continues in private {@code parseSegment} methods, see {@link EnumParseTree}.
+ */
+final class EnumParserTemplate {
+
+  /** The prefix of the names of the methods holding the segments of the tree besides the root. */
+  static final String SEGMENT_METHOD_PREFIX = "parseSegment";
+
+  /**
+   * An input the members are looked up in: the parameters of the segment methods, the arguments
+   * passing them on, and the expressions of its length and of the character at a position.
+   */
+  private record Input(
+      String parameters, String arguments, String length, IntFunction<String> charAt) {}
+
+  private final String enumName;
+  private final List<Node> segments;
+  private final StringBuilder fileContents = new StringBuilder();
+
+  EnumParserTemplate(String enumName, List<String> enumMembers) {
+    this.enumName = enumName;
+    this.segments = EnumParseTree.segments(enumMembers);
+  }
+
+  /** Returns the source code of the {@code parse} methods, each followed by a blank line. */
+  String render() {
+    Input chars =
+        new Input(
+            "java.lang.CharSequence value",
+            "value",
+            "value.length()",
+            position -> "value.charAt(" + position + ")");
+    line("  public static " + enumName + " parse(java.lang.CharSequence value) {");
+    appendNode(segments.get(0), chars, "    ");
+    line("  }");
+    line("");
+    Input bytes =
+        new Input(
+            "byte[] bytes, int offset, int length",
+            "bytes, offset, length",
+            "length",
+            position -> "bytes[offset + " + position + "]");
+    line("  public static " + enumName + " parse(byte[] bytes, int offset, int length) {");
+    appendNode(segments.get(0), bytes, "    ");
+    line("  }");
+    line("");
+    Input buffer =
+        new Input(
+            "java.nio.ByteBuffer buffer, int position",
+            "buffer, position",
+            "buffer.remaining()",
+            position -> "buffer.get(position + " + position + ")");
+    line("  public static " + enumName + " parse(java.nio.ByteBuffer buffer) {");
+    line("    int position = buffer.position();");
+    appendNode(segments.get(0), buffer, "    ");
+    line("  }");
+    line("");
+    for (int segment = 1; segment < segments.size(); segment++) {
+      for (Input input : List.of(chars, bytes, buffer)) {
+        line(
+            "  private static "
+                + enumName
+                + " "
+                + SEGMENT_METHOD_PREFIX
+                + segment
+                + "("
+                + input.parameters()
+                + ") {");
+        appendNode(segments.get(segment), input, "    ");
+        line("  }");
+        line("");
+      }
+    }
+    return fileContents.toString();
+  }
+
+  /** Appends the statements of the given node, every path of which returns. */
+  private void appendNode(Node node, Input input, String indent) {
+    if (node instanceof Branch branch) {
+      appendBranch(branch, input, indent);
+    } else if (node instanceof Leaf leaf) {
+      appendLeaf(leaf, input, indent);
+    } else {
+      line(
+          indent
+              + "return "
+              + SEGMENT_METHOD_PREFIX
+              + ((Call) node).segment()
+              + "("
+              + input.arguments()
+              + ");");
+    }
+  }
+
+  private void appendBranch(Branch branch, Input input, String indent) {
+    boolean length = branch.position() == EnumParseTree.LENGTH;
+    line(
+        indent
+            + "switch ("
+            + (length ? input.length() : input.charAt().apply(branch.position()))
+            + ") {");
+    for (Map.Entry<Integer, Node> entry : branch.cases().entrySet()) {
+      String label =
+          length ? String.valueOf(entry.getKey()) : "'" + (char) entry.getKey().intValue() + "'";
+      line(indent + "  case " + label + ":");
+      appendNode(entry.getValue(), input, indent + "    ");
+    }
+    line(indent + "  default:");
+    line(indent + "    return null;");
+    line(indent + "}");
+  }
+
+  /**
+   * Appends the comparison of the positions of the member which were not tested yet. The constant
+   * is qualified, since a member may be named like a parameter, such as {@code value}.
+   */
+  private void appendLeaf(Leaf leaf, Input input, String indent) {
+    String member = leaf.member();
+    String constant = enumName + "." + member;
+    List<String> conditions = new ArrayList<>();
+    for (int position : leaf.positions()) {
+      conditions.add(input.charAt().apply(position) + " == '" + member.charAt(position) + "'");
+    }
+    if (conditions.isEmpty()) {
+      line(indent + "return " + constant + ";");
+      return;
+    }
+    line(indent + "if (" + String.join(LINE_SEPARATOR + indent + "    && ", conditions) + ") {");
+    line(indent + "  return " + constant + ";");
+    line(indent + "}");
+    line(indent + "return null;");
+  }
+
+  private void line(String line) {
+    fileContents.append(line).append(LINE_SEPARATOR);
+  }
+}
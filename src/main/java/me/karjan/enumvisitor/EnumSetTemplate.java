@@ -0,0 +1,281 @@
+package me.karjan.enumvisitor;
+
+import static me.karjan.enumvisitor.EnumVisitorUtil.LINE_SEPARATOR;
+
+import java.util.List;
+
+/**
+ * Renders the Java source code of the set companion of an enum, such as {@code PlanetSet}. The set
+ * is a bit mask over the ordinals of the members in the order of the definition: a single {@code
+ * long} for up to 64 members, a {@code long[]} for larger enums. Its operations do not allocate,
+ * and its members are passed to an enum visitor instead of being returned by an iterator.
+ */
+final class EnumSetTemplate {
+
+  /** The suffix of the name of the set companion, appended to the name of the enum. */
+  static final String SET_SUFFIX = "Set";
+
+  /** The largest number of members which fits in a single {@code long} mask. */
+  private static final int WORD_SIZE = Long.SIZE;
+
+  private final String enumPackage;
+  private final String enumName;
+  private final String setName;
+  private final List<String> enumMembers;
+  private final StringBuilder fileContents = new StringBuilder();
+
+  EnumSetTemplate(String enumPackage, String enumName, List<String> enumMembers) {
+    this.enumPackage = enumPackage;
+    this.enumName = enumName;
+    this.setName = enumName + SET_SUFFIX;
+    this.enumMembers = enumMembers;
+  }
+
+  /** Returns the Java source code of the set companion. */
+  String render() {
+    line("package " + enumPackage + ";");
+    line("");
+    line("public final class " + setName + " {");
+    line("");
+    line("  private static final " + enumName + "[] MEMBERS = " + enumName + ".values();");
+    line("");
+    if (enumMembers.size() <= WORD_SIZE) {
+      appendSingleWord();
+    } else {
+      appendMultipleWords();
+    }
+    line("}");
+    return fileContents.toString();
+  }
+
+  /** Appends the members of a set backed by a single {@code long}. */
+  private void appendSingleWord() {
+    String allBits = unusedBits() == 0 ? "-1L" : "-1L >>> " + unusedBits();
+    line("  private static final long ALL = " + allBits + ";");
+    line("");
+    line("  private long bits;");
+    line("");
+    line("  public " + setName + "() {}");
+    line("");
+    line("  private " + setName + "(long bits) {");
+    line("    this.bits = bits;");
+    line("  }");
+    line("");
+    appendFactories("new " + setName + "(ALL)", "new " + setName + "(bits)");
+    line("  public boolean add(" + enumName + " member) {");
+    line("    long before = bits;");
+    line("    bits |= 1L << member.ordinal();");
+    line("    return bits != before;");
+    line("  }");
+    line("");
+    line("  public boolean remove(" + enumName + " member) {");
+    line("    long before = bits;");
+    line("    bits &= ~(1L << member.ordinal());");
+    line("    return bits != before;");
+    line("  }");
+    line("");
+    line("  public boolean contains(" + enumName + " member) {");
+    line("    return (bits & (1L << member.ordinal())) != 0;");
+    line("  }");
+    line("");
+    line("  public boolean containsAll(" + setName + " other) {");
+    line("    return (other.bits & ~bits) == 0;");
+    line("  }");
+    line("");
+    line("  public void union(" + setName + " other) {");
+    line("    bits |= other.bits;");
+    line("  }");
+    line("");
+    line("  public void intersect(" + setName + " other) {");
+    line("    bits &= other.bits;");
+    line("  }");
+    line("");
+    line("  public void clear() {");
+    line("    bits = 0;");
+    line("  }");
+    line("");
+    line("  public boolean isEmpty() {");
+    line("    return bits == 0;");
+    line("  }");
+    line("");
+    line("  public int size() {");
+    line("    return java.lang.Long.bitCount(bits);");
+    line("  }");
+    line("");
+    line("  public void forEach(" + enumName + "." + enumName + "Visitor<?> visitor) {");
+    line("    for (long remaining = bits; remaining != 0; remaining &= remaining - 1) {");
+    line("      MEMBERS[java.lang.Long.numberOfTrailingZeros(remaining)].accept(visitor);");
+    line("    }");
+    line("  }");
+    line("");
+    line("  @java.lang.Override");
+    line("  public boolean equals(java.lang.Object other) {");
+    line("    return other instanceof " + setName + " && ((" + setName + ") other).bits == bits;");
+    line("  }");
+    line("");
+    line("  @java.lang.Override");
+    line("  public int hashCode() {");
+    line("    return java.lang.Long.hashCode(bits);");
+    line("  }");
+    line("");
+    line("  @java.lang.Override");
+    line("  public java.lang.String toString() {");
+    line("    java.lang.StringBuilder result = new java.lang.StringBuilder(\"[\");");
+    line("    for (long remaining = bits; remaining != 0; remaining &= remaining - 1) {");
+    line("      if (result.length() > 1) {");
+    line("        result.append(\", \");");
+    line("      }");
+    line("      result.append(MEMBERS[java.lang.Long.numberOfTrailingZeros(remaining)]);");
+    line("    }");
+    line("    return result.append(']').toString();");
+    line("  }");
+  }
+
+  /** Appends the members of a set backed by a {@code long[]}, one word per 64 ordinals. */
+  private void appendMultipleWords() {
+    int words = (enumMembers.size() + WORD_SIZE - 1) / WORD_SIZE;
+    String lastWord = unusedBits() == 0 ? "-1L" : "-1L >>> " + unusedBits();
+    line("  private static final int WORDS = " + words + ";");
+    line("");
+    line("  private static final long LAST_WORD = " + lastWord + ";");
+    line("");
+    line("  private final long[] words;");
+    line("");
+    line("  public " + setName + "() {");
+    line("    this.words = new long[WORDS];");
+    line("  }");
+    line("");
+    line("  private " + setName + "(long[] words) {");
+    line("    this.words = words;");
+    line("  }");
+    line("");
+    appendFactories("new " + setName + "(all())", "new " + setName + "(words.clone())");
+    line("  private static long[] all() {");
+    line("    long[] words = new long[WORDS];");
+    line("    java.util.Arrays.fill(words, -1L);");
+    line("    words[WORDS - 1] = LAST_WORD;");
+    line("    return words;");
+    line("  }");
+    line("");
+    line("  public boolean add(" + enumName + " member) {");
+    line("    int ordinal = member.ordinal();");
+    line("    long before = words[ordinal >>> 6];");
+    line("    words[ordinal >>> 6] = before | (1L << ordinal);");
+    line("    return words[ordinal >>> 6] != before;");
+    line("  }");
+    line("");
+    line("  public boolean remove(" + enumName + " member) {");
+    line("    int ordinal = member.ordinal();");
+    line("    long before = words[ordinal >>> 6];");
+    line("    words[ordinal >>> 6] = before & ~(1L << ordinal);");
+    line("    return words[ordinal >>> 6] != before;");
+    line("  }");
+    line("");
+    line("  public boolean contains(" + enumName + " member) {");
+    line("    int ordinal = member.ordinal();");
+    line("    return (words[ordinal >>> 6] & (1L << ordinal)) != 0;");
+    line("  }");
+    line("");
+    line("  public boolean containsAll(" + setName + " other) {");
+    line("    for (int i = 0; i < WORDS; i++) {");
+    line("      if ((other.words[i] & ~words[i]) != 0) {");
+    line("        return false;");
+    line("      }");
+    line("    }");
+    line("    return true;");
+    line("  }");
+    line("");
+    line("  public void union(" + setName + " other) {");
+    line("    for (int i = 0; i < WORDS; i++) {");
+    line("      words[i] |= other.words[i];");
+    line("    }");
+    line("  }");
+    line("");
+    line("  public void intersect(" + setName + " other) {");
+    line("    for (int i = 0; i < WORDS; i++) {");
+    line("      words[i] &= other.words[i];");
+    line("    }");
+    line("  }");
+    line("");
+    line("  public void clear() {");
+    line("    java.util.Arrays.fill(words, 0L);");
+    line("  }");
+    line("");
+    line("  public boolean isEmpty() {");
+    line("    for (long word : words) {");
+    line("      if (word != 0) {");
+    line("        return false;");
+    line("      }");
+    line("    }");
+    line("    return true;");
+    line("  }");
+    line("");
+    line("  public int size() {");
+    line("    int size = 0;");
+    line("    for (long word : words) {");
+    line("      size += java.lang.Long.bitCount(word);");
+    line("    }");
+    line("    return size;");
+    line("  }");
+    line("");
+    line("  public void forEach(" + enumName + "." + enumName + "Visitor<?> visitor) {");
+    line("    for (int i = 0; i < WORDS; i++) {");
+    line("      for (long remaining = words[i]; remaining != 0; remaining &= remaining - 1) {");
+    line("        int ordinal = (i << 6) + java.lang.Long.numberOfTrailingZeros(remaining);");
+    line("        MEMBERS[ordinal].accept(visitor);");
+    line("      }");
+    line("    }");
+    line("  }");
+    line("");
+    line("  @java.lang.Override");
+    line("  public boolean equals(java.lang.Object other) {");
+    line("    return other instanceof " + setName);
+    line("        && java.util.Arrays.equals(((" + setName + ") other).words, words);");
+    line("  }");
+    line("");
+    line("  @java.lang.Override");
+    line("  public int hashCode() {");
+    line("    return java.util.Arrays.hashCode(words);");
+    line("  }");
+    line("");
+    line("  @java.lang.Override");
+    line("  public java.lang.String toString() {");
+    line("    java.lang.StringBuilder result = new java.lang.StringBuilder(\"[\");");
+    line("    for (int i = 0; i < WORDS; i++) {");
+    line("      for (long remaining = words[i]; remaining != 0; remaining &= remaining - 1) {");
+    line("        if (result.length() > 1) {");
+    line("          result.append(\", \");");
+    line("        }");
+    line("        int ordinal = (i << 6) + java.lang.Long.numberOfTrailingZeros(remaining);");
+    line("        result.append(MEMBERS[ordinal]);");
+    line("      }");
+    line("    }");
+    line("    return result.append(']').toString();");
+    line("  }");
+  }
+
+  /** Appends the static factories and {@code copy}, given the expressions creating the sets. */
+  private void appendFactories(String allOf, String copy) {
+    line("  public static " + setName + " noneOf() {");
+    line("    return new " + setName + "();");
+    line("  }");
+    line("");
+    line("  public static " + setName + " allOf() {");
+    line("    return " + allOf + ";");
+    line("  }");
+    line("");
+    line("  public " + setName + " copy() {");
+    line("    return " + copy + ";");
+    line("  }");
+    line("");
+  }
+
+  /** Returns the number of bits of the last word which do not map to a member. */
+  private int unusedBits() {
+    return (WORD_SIZE - enumMembers.size() % WORD_SIZE) % WORD_SIZE;
+  }
+
+  private void line(String line) {
+    fileContents.append(line).append(LINE_SEPARATOR);
+  }
+}
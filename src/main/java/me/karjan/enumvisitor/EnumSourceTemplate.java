@@ -0,0 +1,301 @@
+package me.karjan.enumvisitor;
+
+import static me.karjan.enumvisitor.EnumVisitorUtil.LINE_SEPARATOR;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/** Renders the Java source code of an enum including the visitor pattern for it. */
+final class EnumSourceTemplate {
+
+  /** The length up to which the values of a column are put on the same line. */
+  private static final int MAX_LINE_LENGTH = 100;
+
+  /**
+   * A flavour of {@code accept}, together with the visitor interface it takes. Besides the generic
+   * visitor, a definition can ask for visitors returning a primitive, which do not box.
+   */
+  private record AcceptVariant(
+      String typeParameters,
+      String returnType,
+      String methodName,
+      String visitorType,
+      String tableName) {
+
+    String signature() {
+      return typeParameters + returnType + " " + methodName + "(" + visitorType + " visitor)";
+    }
+
+    /** Returns the name of the matching {@code tabulate} method, such as {@code tabulateInt}. */
+    String tabulateName() {
+      return "tabulate" + methodName.substring("accept".length());
+    }
+
+    /** Returns the type of the values of the table, the erasure of a generic result. */
+    String elementType() {
+      return typeParameters.isEmpty() ? returnType : "java.lang.Object";
+    }
+  }
+
+  private final String enumPackage;
+  private final String enumName;
+  private final List<String> enumMembers;
+  private final List<EnumColumn> columns;
+  private final GenerationOptions options;
+  private final List<AcceptVariant> acceptVariants = new ArrayList<>();
+
+  EnumSourceTemplate(
+      String enumPackage,
+      String enumName,
+      List<String> enumMembers,
+      List<EnumColumn> columns,
+      GenerationOptions options) {
+    this.enumPackage = enumPackage;
+    this.enumName = enumName;
+    this.enumMembers = enumMembers;
+    this.columns = columns;
+    this.options = options;
+    acceptVariants.add(
+        new AcceptVariant("<E> ", "E", "accept", enumName + "Visitor<E>", enumName + "Table"));
+    for (String primitive : options.getPrimitiveVisitors()) {
+      String capitalized = Character.toUpperCase(primitive.charAt(0)) + primitive.substring(1);
+      acceptVariants.add(
+          new AcceptVariant(
+              "",
+              primitive,
+              "accept" + capitalized,
+              enumName + capitalized + "Visitor",
+              enumName + capitalized + "Table"));
+    }
+  }
+
+  /** Returns the Java source code of the enum. */
+  String render() {
+    StringBuilder fileContents = new StringBuilder();
+
+    fileContents
+        .append("package " + enumPackage + ";")
+        .append(LINE_SEPARATOR)
+        .append(LINE_SEPARATOR);
+
+    fileContents.append("public enum " + enumName + " {").append(LINE_SEPARATOR);
+
+    if (options.isSwitchDispatch()) {
+      appendSwitchDispatch(fileContents);
+    } else {
+      appendConstantBodiesDispatch(fileContents);
+    }
+
+    appendColumns(fileContents);
+
+    if (options.isTables()) {
+      appendTabulates(fileContents);
+    }
+
+    if (options.isParsers()) {
+      fileContents.append(new EnumParserTemplate(enumName, enumMembers).render());
+    }
+
+    StringJoiner visitorDefs = new StringJoiner(LINE_SEPARATOR);
+    for (AcceptVariant variant : acceptVariants) {
+      StringBuilder visitorDef = new StringBuilder();
+      visitorDef
+          .append("  public interface " + variant.visitorType() + " {")
+          .append(LINE_SEPARATOR);
+      enumMembers.forEach(
+          member -> {
+            visitorDef
+                .append("    " + variant.returnType() + " visit" + member + "();")
+                .append(LINE_SEPARATOR);
+          });
+      visitorDef.append("  }").append(LINE_SEPARATOR);
+      visitorDefs.add(visitorDef);
+    }
+    fileContents.append(visitorDefs.toString());
+
+    if (options.isTables()) {
+      appendTables(fileContents);
+    }
+
+    fileContents.append("}").append(LINE_SEPARATOR);
+
+    return fileContents.toString();
+  }
+
+  /**
+   * Appends the array of the values of each column, indexed by ordinal, and the accessor reading
+   * the value of a constant from it.
+   */
+  private void appendColumns(StringBuilder fileContents) {
+    for (EnumColumn column : columns) {
+      fileContents
+          .append(
+              "  private static final "
+                  + column.getType()
+                  + "[] "
+                  + column.getName()
+                  + " = {")
+          .append(LINE_SEPARATOR);
+      StringBuilder valuesLine = new StringBuilder("   ");
+      for (int ordinal = 0; ordinal < enumMembers.size(); ordinal++) {
+        String value = column.literal(ordinal) + ",";
+        if (valuesLine.length() + 1 + value.length() > MAX_LINE_LENGTH) {
+          fileContents.append(valuesLine).append(LINE_SEPARATOR);
+          valuesLine.setLength(3);
+        }
+        valuesLine.append(' ').append(value);
+      }
+      fileContents
+          .append(valuesLine)
+          .append(LINE_SEPARATOR)
+          .append("  };")
+          .append(LINE_SEPARATOR)
+          .append(LINE_SEPARATOR)
+          .append("  public final " + column.getType() + " " + column.getName() + "() {")
+          .append(LINE_SEPARATOR)
+          .append("    return " + column.getName() + "[ordinal()];")
+          .append(LINE_SEPARATOR)
+          .append("  }")
+          .append(LINE_SEPARATOR)
+          .append(LINE_SEPARATOR);
+    }
+  }
+
+  /**
+   * Appends the static {@code tabulate} methods, which evaluate a visitor once per member into an
+   * array indexed by ordinal, and wrap it in a table.
+   */
+  private void appendTabulates(StringBuilder fileContents) {
+    for (AcceptVariant variant : acceptVariants) {
+      boolean generic = !variant.typeParameters().isEmpty();
+      String tableType = variant.tableName() + (generic ? "<E>" : "");
+      StringJoiner methodDef = new StringJoiner(LINE_SEPARATOR, "", LINE_SEPARATOR);
+      methodDef
+          .add(
+              "  public static "
+                  + variant.typeParameters()
+                  + tableType
+                  + " "
+                  + variant.tabulateName()
+                  + "("
+                  + variant.visitorType()
+                  + " visitor) {")
+          .add("    " + enumName + "[] members = values();")
+          .add(
+              "    "
+                  + variant.elementType()
+                  + "[] values = new "
+                  + variant.elementType()
+                  + "[members.length];")
+          .add("    for (int i = 0; i < members.length; i++) {")
+          .add("      values[i] = members[i]." + variant.methodName() + "(visitor);")
+          .add("    }")
+          .add("    return new " + variant.tableName() + (generic ? "<>" : "") + "(values);")
+          .add("  }")
+          .add("");
+      fileContents.append(methodDef);
+    }
+  }
+
+  /** Appends the immutable tables returned by the {@code tabulate} methods. */
+  private void appendTables(StringBuilder fileContents) {
+    for (AcceptVariant variant : acceptVariants) {
+      boolean generic = !variant.typeParameters().isEmpty();
+      StringJoiner classDef = new StringJoiner(LINE_SEPARATOR, LINE_SEPARATOR, LINE_SEPARATOR);
+      classDef
+          .add(
+              "  public static final class "
+                  + variant.tableName()
+                  + (generic ? "<E>" : "")
+                  + " {")
+          .add("    private final " + variant.elementType() + "[] values;")
+          .add("")
+          .add("    private " + variant.tableName() + "(" + variant.elementType() + "[] values) {")
+          .add("      this.values = values;")
+          .add("    }")
+          .add("");
+      if (generic) {
+        classDef.add("    @java.lang.SuppressWarnings(\"unchecked\")");
+      }
+      classDef
+          .add("    public " + variant.returnType() + " get(" + enumName + " member) {")
+          .add(
+              "      return "
+                  + (generic ? "(E) " : "")
+                  + "values[member.ordinal()];")
+          .add("    }")
+          .add("  }");
+      fileContents.append(classDef);
+    }
+  }
+
+  /** Appends the constants, each with a class body overriding the abstract {@code accept}. */
+  private void appendConstantBodiesDispatch(StringBuilder fileContents) {
+    StringJoiner memberDefs =
+        new StringJoiner(
+            "," + LINE_SEPARATOR + LINE_SEPARATOR, "", ";" + LINE_SEPARATOR + LINE_SEPARATOR);
+    enumMembers.forEach(
+        member -> {
+          StringJoiner memberDef = new StringJoiner(LINE_SEPARATOR);
+          memberDef.add("  " + member + " {");
+          StringJoiner methodDefs = new StringJoiner(LINE_SEPARATOR + LINE_SEPARATOR);
+          for (AcceptVariant variant : acceptVariants) {
+            StringJoiner methodDef = new StringJoiner(LINE_SEPARATOR);
+            methodDef
+                .add("    public " + variant.signature() + " {")
+                .add("      return visitor.visit" + member + "();")
+                .add("    }");
+            methodDefs.add(methodDef.toString());
+          }
+          memberDef.add(methodDefs.toString()).add("  }");
+          memberDefs.add(memberDef.toString());
+        });
+    fileContents.append(memberDefs.toString());
+
+    for (AcceptVariant variant : acceptVariants) {
+      fileContents
+          .append("  public abstract " + variant.signature() + ";")
+          .append(LINE_SEPARATOR)
+          .append(LINE_SEPARATOR);
+    }
+  }
+
+  /**
+   * Appends the plain constants and a single final {@code accept} which switches on the ordinal.
+   * No class is generated for the constants, and switching on the ordinal rather than on the
+   * constants avoids the synthetic switch map class.
+   */
+  private void appendSwitchDispatch(StringBuilder fileContents) {
+    StringJoiner memberDefs =
+        new StringJoiner(
+            "," + LINE_SEPARATOR + LINE_SEPARATOR, "", ";" + LINE_SEPARATOR + LINE_SEPARATOR);
+    enumMembers.forEach(member -> memberDefs.add("  " + member));
+    fileContents.append(memberDefs.toString());
+
+    for (AcceptVariant variant : acceptVariants) {
+      fileContents
+          .append("  public final " + variant.signature() + " {")
+          .append(LINE_SEPARATOR)
+          .append("    switch (ordinal()) {")
+          .append(LINE_SEPARATOR);
+      for (int ordinal = 0; ordinal < enumMembers.size(); ordinal++) {
+        fileContents
+            .append("      case " + ordinal + ":")
+            .append(LINE_SEPARATOR)
+            .append("        return visitor.visit" + enumMembers.get(ordinal) + "();")
+            .append(LINE_SEPARATOR);
+      }
+      fileContents
+          .append("      default:")
+          .append(LINE_SEPARATOR)
+          .append("        throw new java.lang.AssertionError(this);")
+          .append(LINE_SEPARATOR)
+          .append("    }")
+          .append(LINE_SEPARATOR)
+          .append("  }")
+          .append(LINE_SEPARATOR)
+          .append(LINE_SEPARATOR);
+    }
+  }
+}
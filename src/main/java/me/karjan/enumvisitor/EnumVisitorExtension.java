@@ -0,0 +1,118 @@
+package me.karjan.enumvisitor;
+
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+
+/** The project wide settings of the Enum Visitor generator, exposed as {@code enumVisitor}. */
+public abstract class EnumVisitorExtension {
+
+  /** The name of the extension. */
+  public static final String NAME = "enumVisitor";
+
+  /**
+   * Whether the definitions are generated in parallel through the Gradle Worker API instead of one
+   * after another on the task thread. Defaults to {@code false}.
+   */
+  public abstract Property<Boolean> getParallel();
+
+  /**
+   * The number of definitions handled by a single unit of work when generating in parallel.
+   * Defaults to {@code 64}.
+   */
+  public abstract Property<Integer> getWorkerBatchSize();
+
+  /**
+   * The isolation of the units of work when generating in parallel: {@code none}, {@code
+   * classloader} or {@code process}. Defaults to {@code none}.
+   */
+  public abstract Property<String> getWorkerIsolation();
+
+  /**
+   * How the generated {@code accept} dispatches to the visitor: {@code bodies} gives every
+   * constant its own class body, {@code switch} uses a single final method which switches on the
+   * ordinal and generates no class per constant. A definition can override it with a directive
+   * line such as {@code @dispatch switch}. Defaults to {@code bodies}.
+   */
+  public abstract Property<String> getDispatch();
+
+  /**
+   * The primitive types ({@code int}, {@code long}, {@code double}, {@code boolean}) for which a
+   * visitor returning that primitive is generated, together with a matching {@code acceptInt},
+   * {@code acceptLong}, ... method on the enum. Such visitors do not box their results. A
+   * definition can override it with a directive line such as {@code @primitiveVisitors int long},
+   * or {@code @primitiveVisitors} for all of them. Defaults to none.
+   */
+  public abstract ListProperty<String> getPrimitiveVisitors();
+
+  /**
+   * Whether a set companion such as {@code PlanetSet} is generated next to each enum. It is a bit
+   * mask over the ordinals whose operations do not allocate. A definition can override it with a
+   * directive line {@code @sets} or {@code @sets false}. Defaults to {@code false}.
+   */
+  public abstract Property<Boolean> getSets();
+
+  /**
+   * Whether static {@code parse} methods are generated on each enum, which look up a member by its
+   * name in a {@code CharSequence}, a range of a {@code byte[]} or a {@code ByteBuffer}, and
+   * return {@code null} when there is none. A definition can override it with a directive line
+   * {@code @parsers} or {@code @parsers false}. Defaults to {@code false}.
+   */
+  public abstract Property<Boolean> getParsers();
+
+  /**
+   * Whether static {@code tabulate} methods are generated on each enum, such as {@code
+   * Planet.tabulate(visitor)}. They evaluate a pure visitor once per member and return an
+   * immutable table, such as {@code Planet.PlanetTable}, whose {@code get(member)} is a single
+   * array load. Each primitive visitor gets its own variant, such as {@code tabulateInt}, which
+   * does not box. A definition can override it with a directive line {@code @tables} or {@code
+   * @tables false}. Defaults to {@code false}.
+   */
+  public abstract Property<Boolean> getTables();
+
+  /**
+   * Whether a codec companion such as {@code PlanetCodec} is generated next to each enum. It
+   * writes and reads the members as the wire ids declared in the definition, such as {@code
+   * Mercury = 1}, as varints or with a fixed width, to a {@code ByteBuffer} or a {@code
+   * DataOutput}, without allocating. A definition can override it with a directive line {@code
+   * @codecs} or {@code @codecs false}. Defaults to {@code false}.
+   */
+  public abstract Property<Boolean> getCodecs();
+
+  /**
+   * Whether a counters companion such as {@code PlanetCounters} is generated next to each enum. It
+   * counts events per member with lock-free {@code increment} and {@code add} methods, which
+   * update striped cells padded against false sharing and do not box. A definition can override
+   * it with a directive line {@code @counters} or {@code @counters false}. Defaults to {@code
+   * false}.
+   */
+  public abstract Property<Boolean> getCounters();
+
+  /**
+   * Whether a map companion such as {@code PlanetMap<V>} is generated next to each enum. It keeps a
+   * value per member in an array indexed by ordinal, with volatile reads and lock-free updates by
+   * compare and set, in place of a locked {@code EnumMap} or a {@code ConcurrentHashMap}. A
+   * definition can override it with a directive line {@code @maps} or {@code @maps false}.
+   * Defaults to {@code false}.
+   */
+  public abstract Property<Boolean> getMaps();
+
+  /**
+   * The lock file of the wire ids, which is meant to be checked in. The generation fails when a
+   * wire id it holds is removed or given to another member, or when a wire id is not locked yet:
+   * the {@code updateEnumVisitorWireIdLock} task adds the new ones to it. Defaults to {@code
+   * enumvis-wire-ids.lock} in the project directory. It is the lock of the main source set, each
+   * other source set has its own, such as {@code enumvis-wire-ids-test.lock}.
+   */
+  public abstract RegularFileProperty getWireIdLock();
+
+  /**
+   * What is written for the enums: {@code source} for Java source files compiled along the project
+   * sources, or {@code bytecode} for class files which are put on the classpath of the main source
+   * set, so javac does not compile them. The set, codec, counters and map companions are still
+   * written as source. An enum too large for javac, of more than 2048 members, is always written as
+   * class files, even with {@code source}, which is logged at info level. Defaults to {@code
+   * source}.
+   */
+  public abstract Property<String> getEmit();
+}
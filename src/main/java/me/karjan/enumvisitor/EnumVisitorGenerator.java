@@ -0,0 +1,442 @@
+package me.karjan.enumvisitor;
+
+import static me.karjan.enumvisitor.EnumVisitorUtil.BLANK_SPACE;
+import static me.karjan.enumvisitor.EnumVisitorUtil.JAVA_FILE_EXT;
+import static me.karjan.enumvisitor.EnumVisitorUtil.MAX_MEMBERS;
+import static me.karjan.enumvisitor.EnumVisitorUtil.PACKAGE_SEPARATOR;
+import static me.karjan.enumvisitor.EnumVisitorUtil.PATH_SEPARATOR;
+import static me.karjan.enumvisitor.EnumVisitorUtil.RELATIVE_PATH_SEPARATOR;
+import static me.karjan.enumvisitor.EnumVisitorUtil.VISITOR_FILE_EXT;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import me.karjan.enumvisitor.GenerationSummary.DefinitionMetrics;
+import me.karjan.enumvisitor.GenerationSummary.Outcome;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.objectweb.asm.ClassTooLargeException;
+import org.objectweb.asm.MethodTooLargeException;
+
+/**
+ * Generates the Java source files for a single enum definition: the enum itself and its optional
+ * companions, such as the set. It holds no state besides the destination, so it can be used from
+ * the task thread as well as from worker actions.
+ */
+final class EnumVisitorGenerator {
+
+  private static final Logger LOGGER = Logging.getLogger(EnumVisitorGenerator.class);
+
+  /** The location of the generated Java files. */
+  private final File destination;
+
+  /** The location of the class files of the enums which are emitted as bytecode. */
+  private final File classesDestination;
+
+  /** The project wide settings of the code generation. */
+  private final GenerationOptions options;
+
+  /** Records what happened to the generated files. */
+  private final GenerationSummary summary;
+
+  /**
+   * The cache of the parsed definitions, or null when every definition is parsed, such as in an
+   * isolated worker.
+   */
+  private final EnumDefinitionCache definitionCache;
+
+  EnumVisitorGenerator(
+      File destination,
+      File classesDestination,
+      GenerationOptions options,
+      GenerationSummary summary,
+      EnumDefinitionCache definitionCache) {
+    this.destination = destination;
+    this.classesDestination = classesDestination;
+    this.options = options;
+    this.summary = summary;
+    this.definitionCache = definitionCache;
+  }
+
+  /**
+   * Parses the definition at the given path, relative to the source directory, through the given
+   * cache unless it is null.
+   */
+  static EnumDefinition parse(
+      File definition, String relativePath, EnumDefinitionCache definitionCache)
+      throws IOException {
+    return definitionCache != null
+        ? definitionCache.parse(definition, relativePath)
+        : EnumDefinitionParser.parse(definition, relativePath);
+  }
+
+  /**
+   * Returns the fully qualified name of the enum defined by the definition at the given path,
+   * relative to the source directory.
+   */
+  static String enumQualifiedName(String relativePath) {
+    String[] enumLocationSegments = determineEnumLocationSegments(relativePath);
+    String enumPackage = String.join(PACKAGE_SEPARATOR, enumLocationSegments);
+    return enumPackage + PACKAGE_SEPARATOR + determineEnumName(relativePath);
+  }
+
+  /**
+   * Generate the enum with visitor pattern Java source code file for the definition at the given
+   * path, relative to the source directory, and record its metrics in the summary.
+   */
+  void generate(File definition, String relativePath) throws IOException {
+    long start = System.nanoTime();
+    int filesWritten = summary.count(Outcome.WRITTEN);
+    int filesUnchanged = summary.count(Outcome.UNCHANGED);
+    long bytesWritten = summary.getBytesWritten();
+    String[] enumLocationSegments = determineEnumLocationSegments(relativePath);
+    String enumName = determineEnumName(relativePath);
+    EnumDefinition enumDefinition = parse(definition, relativePath, definitionCache);
+    long parsed = System.nanoTime();
+    GenerationOptions definitionOptions = options.forDefinition(enumDefinition);
+    checkEnumDefinition(enumLocationSegments, enumName, enumDefinition);
+    long validated = System.nanoTime();
+    emit(definition, enumLocationSegments, enumName, enumDefinition, definitionOptions);
+    summary.recordDefinition(
+        new DefinitionMetrics(
+            relativePath,
+            enumDefinition.getMembers().size(),
+            parsed - start,
+            validated - parsed,
+            System.nanoTime() - validated,
+            summary.count(Outcome.WRITTEN) - filesWritten,
+            summary.count(Outcome.UNCHANGED) - filesUnchanged,
+            summary.getBytesWritten() - bytesWritten));
+  }
+
+  /** Writes the files of a parsed and checked definition: the enum and its companions. */
+  private void emit(
+      File definition,
+      String[] enumLocationSegments,
+      String enumName,
+      EnumDefinition enumDefinition,
+      GenerationOptions definitionOptions)
+      throws IOException {
+    String relativePath = enumDefinition.getRelativePath();
+    int memberCount = enumDefinition.getMembers().size();
+    int columnCount = columnsOf(enumDefinition).size();
+    if (definitionOptions.isBytecodeEmission(memberCount, columnCount)) {
+      if (definitionOptions.isSourceEmission()) {
+        LOGGER.info(
+            "Emitting {} as class files, since javac cannot compile an enum of {} members",
+            relativePath,
+            memberCount);
+      }
+      emitEnumVisitorClassFiles(
+          enumLocationSegments, enumName, enumDefinition, definitionOptions, definition);
+      deleteOutput(resolveEnumVisitorFile(enumLocationSegments, enumName));
+    } else {
+      generateEnumVisitorSourceCode(
+          enumLocationSegments, enumName, enumDefinition, definitionOptions);
+      removeClassFiles(enumLocationSegments, enumName, Set.of());
+    }
+
+    String enumPackage = String.join(PACKAGE_SEPARATOR, enumLocationSegments);
+    String setName = enumName + EnumSetTemplate.SET_SUFFIX;
+    if (definitionOptions.isSets()) {
+      checkCompanion(definition, relativePath, "set", enumName, setName);
+      String setContents =
+          new EnumSetTemplate(enumPackage, enumName, enumDefinition.getMembers()).render();
+      writeIfChanged(
+          resolveEnumVisitorFile(enumLocationSegments, setName),
+          setContents.getBytes(StandardCharsets.UTF_8));
+    } else {
+      removeCompanion(definition, enumLocationSegments, setName);
+    }
+
+    String codecName = enumName + EnumCodecTemplate.CODEC_SUFFIX;
+    if (definitionOptions.isCodecs()) {
+      if (enumDefinition.getWireIds().isEmpty()) {
+        throw new EnumDefinitionException(
+            relativePath,
+            "The codec of "
+                + enumName
+                + " needs a wire id for every member, such as "
+                + enumDefinition.getMembers().get(0)
+                + " = 0");
+      }
+      checkCompanion(definition, relativePath, "codec", enumName, codecName);
+      String codecContents =
+          new EnumCodecTemplate(enumPackage, enumName, enumDefinition.getWireIds()).render();
+      writeIfChanged(
+          resolveEnumVisitorFile(enumLocationSegments, codecName),
+          codecContents.getBytes(StandardCharsets.UTF_8));
+    } else {
+      removeCompanion(definition, enumLocationSegments, codecName);
+    }
+
+    String countersName = enumName + EnumCountersTemplate.COUNTERS_SUFFIX;
+    if (definitionOptions.isCounters()) {
+      checkCompanion(definition, relativePath, "counters", enumName, countersName);
+      String countersContents =
+          new EnumCountersTemplate(enumPackage, enumName, enumDefinition.getMembers().size())
+              .render();
+      writeIfChanged(
+          resolveEnumVisitorFile(enumLocationSegments, countersName),
+          countersContents.getBytes(StandardCharsets.UTF_8));
+    } else {
+      removeCompanion(definition, enumLocationSegments, countersName);
+    }
+
+    String mapName = enumName + EnumMapTemplate.MAP_SUFFIX;
+    if (definitionOptions.isMaps()) {
+      checkCompanion(definition, relativePath, "map", enumName, mapName);
+      String mapContents =
+          new EnumMapTemplate(enumPackage, enumName, enumDefinition.getMembers().size()).render();
+      writeIfChanged(
+          resolveEnumVisitorFile(enumLocationSegments, mapName),
+          mapContents.getBytes(StandardCharsets.UTF_8));
+    } else {
+      removeCompanion(definition, enumLocationSegments, mapName);
+    }
+  }
+
+  /**
+   * Returns the columns of the generated enum: the ones of the definition, and the wire ids if it
+   * has some.
+   */
+  private static List<EnumColumn> columnsOf(EnumDefinition enumDefinition) {
+    if (enumDefinition.getWireIds().isEmpty()) {
+      return enumDefinition.getColumns();
+    }
+    List<EnumColumn> columns = new ArrayList<>(enumDefinition.getColumns());
+    columns.add(EnumColumn.wireIds(enumDefinition.getWireIds()));
+    return columns;
+  }
+
+  /** Fails when a definition next to the given one generates a file named like a companion. */
+  private static void checkCompanion(
+      File definition, String relativePath, String kind, String enumName, String companionName) {
+    if (isDefinedNextTo(definition, companionName)) {
+      throw new EnumDefinitionException(
+          relativePath,
+          "The "
+              + kind
+              + " companion of "
+              + enumName
+              + " clashes with the definition "
+              + companionName
+              + VISITOR_FILE_EXT);
+    }
+  }
+
+  /**
+   * Delete the Java source code files generated for the definition at the given relative path,
+   * including its companions.
+   */
+  void remove(File definition, String relativePath) throws IOException {
+    String[] enumLocationSegments = determineEnumLocationSegments(relativePath);
+    String enumName = determineEnumName(relativePath);
+    deleteOutput(resolveEnumVisitorFile(enumLocationSegments, enumName));
+    removeClassFiles(enumLocationSegments, enumName, Set.of());
+    removeCompanion(definition, enumLocationSegments, enumName + EnumSetTemplate.SET_SUFFIX);
+    removeCompanion(definition, enumLocationSegments, enumName + EnumCodecTemplate.CODEC_SUFFIX);
+    removeCompanion(
+        definition, enumLocationSegments, enumName + EnumCountersTemplate.COUNTERS_SUFFIX);
+    removeCompanion(definition, enumLocationSegments, enumName + EnumMapTemplate.MAP_SUFFIX);
+  }
+
+  /**
+   * Deletes a companion file which is no longer generated, unless a definition next to the given
+   * one generates a file of the same name.
+   */
+  private void removeCompanion(File definition, String[] enumLocationSegments, String name)
+      throws IOException {
+    if (!isDefinedNextTo(definition, name)) {
+      deleteOutput(resolveEnumVisitorFile(enumLocationSegments, name));
+    }
+  }
+
+  private static boolean isDefinedNextTo(File definition, String enumName) {
+    return new File(definition.getParentFile(), enumName + VISITOR_FILE_EXT).exists();
+  }
+
+  private void deleteOutput(File file) throws IOException {
+    if (Files.deleteIfExists(file.toPath())) {
+      summary.record(Outcome.DELETED, outputPath(file));
+    }
+  }
+
+  /**
+   * Determines the package segments of an enum from the path of its definition relative to the
+   * source directory.
+   */
+  private static String[] determineEnumLocationSegments(String relativePath) {
+    int lastSeparator = relativePath.lastIndexOf(RELATIVE_PATH_SEPARATOR);
+    String directory = lastSeparator < 0 ? "" : relativePath.substring(0, lastSeparator);
+    return directory.replace(BLANK_SPACE, "").split(RELATIVE_PATH_SEPARATOR);
+  }
+
+  private static String determineEnumName(String relativePath) {
+    String fileName =
+        relativePath.substring(relativePath.lastIndexOf(RELATIVE_PATH_SEPARATOR) + 1);
+    return fileName.substring(0, fileName.lastIndexOf('.'));
+  }
+
+  private File resolveEnumVisitorFile(String[] enumLocationSegments, String enumName) {
+    String enumLocation = String.join(PATH_SEPARATOR, enumLocationSegments);
+    Path fullDestination = FileSystems.getDefault().getPath(destination.toString(), enumLocation);
+    return new File(fullDestination.toString(), enumName + JAVA_FILE_EXT);
+  }
+
+  private void checkEnumDefinition(
+      String[] enumLocationSegments, String enumName, EnumDefinition enumDefinition) {
+    String relativePath = enumDefinition.getRelativePath();
+    String enumPackage = String.join(PACKAGE_SEPARATOR, enumLocationSegments);
+
+    if (EnumVisitorUtil.isEmpty(enumName)) {
+      throw new EnumDefinitionException(relativePath, "The enum name is empty");
+    }
+    checkForValidJavaIdentifier(relativePath, enumName);
+
+    if (EnumVisitorUtil.isEmpty(enumPackage)) {
+      throw new EnumDefinitionException(
+          relativePath, "The location of this enum maps to the default Java package: " + enumName);
+    }
+
+    if (enumDefinition.getMembers().size() == 0) {
+      throw new EnumDefinitionException(
+          relativePath, "The enum definition " + enumName + " does not have any members");
+    }
+
+    if (enumDefinition.getMembers().size() > MAX_MEMBERS) {
+      throw new EnumDefinitionException(
+          relativePath,
+          "The enum definition "
+              + enumName
+              + " has "
+              + enumDefinition.getMembers().size()
+              + " members, more than the "
+              + MAX_MEMBERS
+              + " a class file can hold");
+    }
+  }
+
+  private void generateEnumVisitorSourceCode(
+      String[] enumLocationSegments,
+      String enumName,
+      EnumDefinition enumDefinition,
+      GenerationOptions definitionOptions)
+      throws IOException {
+    String enumPackage = String.join(PACKAGE_SEPARATOR, enumLocationSegments);
+    File enumVisitorFile = resolveEnumVisitorFile(enumLocationSegments, enumName);
+
+    String fileContents =
+        new EnumSourceTemplate(
+                enumPackage,
+                enumName,
+                enumDefinition.getMembers(),
+                columnsOf(enumDefinition),
+                definitionOptions)
+            .render();
+
+    writeIfChanged(enumVisitorFile, fileContents.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Writes the class files of the enum instead of its source, and deletes the class files left
+   * over from a previous generation, such as the constant classes of another dispatch.
+   */
+  private void emitEnumVisitorClassFiles(
+      String[] enumLocationSegments,
+      String enumName,
+      EnumDefinition enumDefinition,
+      GenerationOptions definitionOptions,
+      File definition)
+      throws IOException {
+    String enumPackage = String.join(PACKAGE_SEPARATOR, enumLocationSegments);
+    Map<String, byte[]> classFiles;
+    try {
+      classFiles =
+          new EnumClassEmitter(
+                  enumPackage,
+                  enumName,
+                  enumDefinition.getMembers(),
+                  columnsOf(enumDefinition),
+                  definitionOptions,
+                  definition.getName())
+              .emit();
+    } catch (ClassTooLargeException | MethodTooLargeException e) {
+      // Such as the constants of many distinct values of columns, which have no other limit
+      throw new EnumDefinitionException(
+          enumDefinition.getRelativePath(),
+          "The enum " + enumName + " does not fit in a class file: " + e.getMessage());
+    }
+    File classesDirectory = resolveClassesDirectory(enumLocationSegments);
+    for (Map.Entry<String, byte[]> classFile : classFiles.entrySet()) {
+      writeIfChanged(new File(classesDirectory, classFile.getKey()), classFile.getValue());
+    }
+    removeClassFiles(enumLocationSegments, enumName, classFiles.keySet());
+  }
+
+  /** Deletes the class files emitted for the enum, except the ones with the given names. */
+  private void removeClassFiles(String[] enumLocationSegments, String enumName, Set<String> kept)
+      throws IOException {
+    String[] fileNames = resolveClassesDirectory(enumLocationSegments).list();
+    if (fileNames == null) {
+      return;
+    }
+    for (String fileName : fileNames) {
+      if (EnumClassEmitter.isEmittedFor(enumName, fileName) && !kept.contains(fileName)) {
+        deleteOutput(new File(resolveClassesDirectory(enumLocationSegments), fileName));
+      }
+    }
+  }
+
+  private File resolveClassesDirectory(String[] enumLocationSegments) {
+    String enumLocation = String.join(PATH_SEPARATOR, enumLocationSegments);
+    return FileSystems.getDefault().getPath(classesDestination.toString(), enumLocation).toFile();
+  }
+
+  /**
+   * Writes the contents to the given file, unless the file already has exactly these contents. An
+   * untouched file keeps its timestamp and fingerprint, so the compilation of the generated sources
+   * is not invalidated by a regeneration which did not change anything.
+   */
+  private void writeIfChanged(File file, byte[] contents) throws IOException {
+    Path path = file.toPath();
+    if (Files.isRegularFile(path)
+        && Files.size(path) == contents.length
+        && Arrays.equals(Files.readAllBytes(path), contents)) {
+      summary.record(Outcome.UNCHANGED, outputPath(file));
+      return;
+    }
+    Files.createDirectories(path.getParent());
+    Files.write(path, contents);
+    summary.recordWritten(outputPath(file), contents.length);
+  }
+
+  /**
+   * Returns the path of the given generated file, relative to the destination or the classes
+   * destination which holds it.
+   */
+  private String outputPath(File file) {
+    Path root =
+        file.toPath().startsWith(classesDestination.toPath())
+            ? classesDestination.toPath()
+            : destination.toPath();
+    return root.relativize(file.toPath())
+        .toString()
+        .replace(PATH_SEPARATOR, RELATIVE_PATH_SEPARATOR);
+  }
+
+  private static void checkForValidJavaIdentifier(String relativePath, String testString) {
+    if (!EnumVisitorUtil.isJavaIdentifier(testString)) {
+      throw new EnumDefinitionException(
+          relativePath, testString + " is not a valid identifier for Java.");
+    }
+  }
+}
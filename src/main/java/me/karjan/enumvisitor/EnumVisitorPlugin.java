@@ -1,42 +1,275 @@
 package me.karjan.enumvisitor;
 
+import static me.karjan.enumvisitor.EnumVisitorUtil.DEFAULT_CLASSES_DESTINATION;
+import static me.karjan.enumvisitor.EnumVisitorUtil.DEFAULT_DESTINATION;
+import static me.karjan.enumvisitor.EnumVisitorUtil.DEFAULT_MANIFEST;
+import static me.karjan.enumvisitor.EnumVisitorUtil.DEFAULT_WIRE_ID_LOCK;
+import static me.karjan.enumvisitor.EnumVisitorUtil.SOURCE_DIRECTORY_NAME;
+
+import java.util.List;
+import java.util.Map;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
+import org.gradle.api.attributes.Category;
+import org.gradle.api.attributes.Usage;
+import org.gradle.api.component.AdhocComponentWithVariants;
+import org.gradle.api.component.ConfigurationVariantDetails;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.ProjectLayout;
 import org.gradle.api.plugins.ExtensionContainer;
 import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.SourceSetContainer;
-import org.gradle.api.tasks.TaskContainer;
+import org.gradle.api.tasks.TaskProvider;
 
-/** Specific implementation of a Gradle Plugin for the Enum Visitor generator. */
+/**
+ * Specific implementation of a Gradle Plugin for the Enum Visitor generator. It registers a
+ * generation task per source set, so a definition only used by the tests is generated and
+ * compiled with them, without invalidating the main sources, and a task updating its lock file of
+ * wire ids.
+ */
 public final class EnumVisitorPlugin implements Plugin<Project> {
 
-  /** The name of the Enum Visitor generation task. */
+  /** The name of the Enum Visitor generation task of the main source set. */
   public static final String GENERATE_ENUM_VISITOR_TASK_NAME = "generateEnumVisitors";
 
+  /** The name of the task adding the new wire ids of the main source set to its lock file. */
+  public static final String UPDATE_WIRE_ID_LOCK_TASK_NAME = "updateEnumVisitorWireIdLock";
+
+  /** The name of the task writing the manifest of the definitions of the main source set. */
+  public static final String GENERATE_MANIFEST_TASK_NAME = "generateEnumVisitorManifest";
+
+  /** The name of the configuration publishing the manifest of the definitions. */
+  public static final String MANIFEST_ELEMENTS_CONFIGURATION_NAME = "enumVisitorManifestElements";
+
+  /** The usage of the variant holding the manifest of the definitions. */
+  static final String MANIFEST_USAGE = "enum-visitor-manifest";
+
   @Override
   public void apply(final Project target) {
 
     target.getPlugins().apply(JavaPlugin.class);
 
-    TaskContainer tasks = target.getTasks();
+    ExtensionContainer extensions = target.getExtensions();
+    EnumVisitorExtension extension =
+        extensions.create(EnumVisitorExtension.NAME, EnumVisitorExtension.class);
+    extension.getParallel().convention(false);
+    extension.getWorkerBatchSize().convention(EnumVisitorUtil.DEFAULT_WORKER_BATCH_SIZE);
+    extension.getWorkerIsolation().convention(EnumVisitorUtil.DEFAULT_WORKER_ISOLATION);
+    extension.getDispatch().convention(EnumVisitorUtil.DISPATCH_CONSTANT_BODIES);
+    extension.getPrimitiveVisitors().convention(List.of());
+    extension.getSets().convention(false);
+    extension.getParsers().convention(false);
+    extension.getTables().convention(false);
+    extension.getCodecs().convention(false);
+    extension.getCounters().convention(false);
+    extension.getMaps().convention(false);
+    extension
+        .getWireIdLock()
+        .convention(target.getLayout().getProjectDirectory().file(DEFAULT_WIRE_ID_LOCK));
+    extension.getEmit().convention(EnumVisitorUtil.EMIT_SOURCE);
 
-    GenerateEnumVisitorsTask ourPluginTask =
-        tasks.register(GENERATE_ENUM_VISITOR_TASK_NAME, GenerateEnumVisitorsTask.class).get();
+    Provider<EnumDefinitionCache> definitionCache =
+        target
+            .getGradle()
+            .getSharedServices()
+            .registerIfAbsent(
+                EnumDefinitionCache.NAME,
+                EnumDefinitionCache.class,
+                spec ->
+                    spec.getParameters()
+                        .getMaxEntries()
+                        .set(
+                            target
+                                .getProviders()
+                                .gradleProperty(EnumDefinitionCache.MAX_ENTRIES_PROPERTY)
+                                .map(Integer::parseInt)
+                                .orElse(EnumDefinitionCache.DEFAULT_MAX_ENTRIES)));
 
-    ExtensionContainer extensions = target.getExtensions();
     SourceSetContainer sourceSets = extensions.getByType(SourceSetContainer.class);
+    sourceSets.configureEach(
+        sourceSet -> configureSourceSet(target, sourceSet, extension, definitionCache));
+    configureManifest(target, definitionCache);
+  }
+
+  /**
+   * Publishes the manifest of the definitions of the main source set as a variant of the project,
+   * and of its published component, so the projects depending on it reuse its enums.
+   */
+  private static void configureManifest(
+      Project target, Provider<EnumDefinitionCache> definitionCache) {
+    TaskProvider<GenerateEnumVisitorManifestTask> manifestTask =
+        target
+            .getTasks()
+            .register(
+                GENERATE_MANIFEST_TASK_NAME,
+                GenerateEnumVisitorManifestTask.class,
+                task -> {
+                  TaskProvider<GenerateEnumVisitorsTask> generateTask =
+                      target
+                          .getTasks()
+                          .named(GENERATE_ENUM_VISITOR_TASK_NAME, GenerateEnumVisitorsTask.class);
+                  task.getSource()
+                      .convention(generateTask.flatMap(GenerateEnumVisitorsTask::getSource));
+                  // Not mapped from the task provider, which would run the generation first
+                  task.getOptions()
+                      .convention(
+                          target.provider(() -> generateTask.get().createGenerationOptions()));
+                  task.getOrigin().convention(target.getPath());
+                  task.getDefinitionCache().set(definitionCache);
+                  task.usesService(definitionCache);
+                  task.getManifest()
+                      .convention(target.getLayout().getBuildDirectory().file(DEFAULT_MANIFEST));
+                });
+    Configuration manifestElements =
+        target
+            .getConfigurations()
+            .consumable(
+                MANIFEST_ELEMENTS_CONFIGURATION_NAME,
+                configuration -> {
+                  configuration
+                      .getAttributes()
+                      .attribute(
+                          Category.CATEGORY_ATTRIBUTE,
+                          target.getObjects().named(Category.class, Category.LIBRARY))
+                      .attribute(
+                          Usage.USAGE_ATTRIBUTE,
+                          target.getObjects().named(Usage.class, MANIFEST_USAGE));
+                  configuration
+                      .getOutgoing()
+                      .artifact(manifestTask.flatMap(GenerateEnumVisitorManifestTask::getManifest));
+                })
+            .get();
+    AdhocComponentWithVariants javaComponent =
+        (AdhocComponentWithVariants) target.getComponents().getByName("java");
+    javaComponent.addVariantsFromConfiguration(
+        manifestElements, ConfigurationVariantDetails::mapToOptional);
+  }
+
+  /**
+   * Returns the manifests of the definitions of the projects and modules the given source set is
+   * compiled against. Dependencies which do not publish one, such as the projects which do not
+   * apply the plugin, are left out.
+   */
+  private static FileCollection dependencyManifests(Project target, SourceSet sourceSet) {
+    Category library = target.getObjects().named(Category.class, Category.LIBRARY);
+    Usage manifestUsage = target.getObjects().named(Usage.class, MANIFEST_USAGE);
+    return target
+        .getConfigurations()
+        .getByName(sourceSet.getCompileClasspathConfigurationName())
+        .getIncoming()
+        .artifactView(
+            view -> {
+              view.withVariantReselection();
+              // The category leaves out the variants without a usage, such as the sources
+              view.attributes(
+                  attributes ->
+                      attributes
+                          .attribute(Category.CATEGORY_ATTRIBUTE, library)
+                          .attribute(Usage.USAGE_ATTRIBUTE, manifestUsage));
+              view.componentFilter(
+                  id ->
+                      id instanceof ProjectComponentIdentifier
+                          || id instanceof ModuleComponentIdentifier);
+              view.lenient(true);
+            })
+        .getFiles();
+  }
+
+  /**
+   * Registers the generation task of the given source set, which reads the definitions of {@code
+   * src/<name>/enumvis}, and adds its outputs to the source set. The task of the main source set
+   * is {@value #GENERATE_ENUM_VISITOR_TASK_NAME}, the others are named after their source set, such
+   * as {@code generateTestEnumVisitors}, and write to their own directories and lock file.
+   */
+  private static void configureSourceSet(
+      Project target,
+      SourceSet sourceSet,
+      EnumVisitorExtension extension,
+      Provider<EnumDefinitionCache> definitionCache) {
+    ProjectLayout layout = target.getLayout();
+    boolean main = SourceSet.MAIN_SOURCE_SET_NAME.equals(sourceSet.getName());
+    TaskProvider<GenerateEnumVisitorsTask> generateTask =
+        target
+            .getTasks()
+            .register(
+                sourceSet.getTaskName("generate", "EnumVisitors"),
+                GenerateEnumVisitorsTask.class,
+                task -> {
+                  if (!main) {
+                    String suffix = "-" + sourceSet.getName();
+                    task.getSource()
+                        .convention(
+                            layout
+                                .getProjectDirectory()
+                                .dir("src/" + sourceSet.getName() + "/" + SOURCE_DIRECTORY_NAME));
+                    task.getDestination()
+                        .convention(layout.getBuildDirectory().dir(DEFAULT_DESTINATION + suffix));
+                    task.getClassesDestination()
+                        .convention(
+                            layout.getBuildDirectory().dir(DEFAULT_CLASSES_DESTINATION + suffix));
+                  }
+                  task.getParallel().convention(extension.getParallel());
+                  task.getWorkerBatchSize().convention(extension.getWorkerBatchSize());
+                  task.getWorkerIsolation().convention(extension.getWorkerIsolation());
+                  task.getDispatch().convention(extension.getDispatch());
+                  task.getPrimitiveVisitors().convention(extension.getPrimitiveVisitors());
+                  task.getSets().convention(extension.getSets());
+                  task.getParsers().convention(extension.getParsers());
+                  task.getTables().convention(extension.getTables());
+                  task.getCodecs().convention(extension.getCodecs());
+                  task.getCounters().convention(extension.getCounters());
+                  task.getMaps().convention(extension.getMaps());
+                  // Each task checks that its lock holds no other enum, so they cannot share one
+                  if (main) {
+                    task.getWireIdLock().convention(extension.getWireIdLock());
+                  } else {
+                    task.getWireIdLock()
+                        .convention(
+                            layout.getProjectDirectory().file(wireIdLockName(sourceSet.getName())));
+                  }
+                  task.getWireIdLockUpdateTask()
+                      .convention(sourceSet.getTaskName("update", "EnumVisitorWireIdLock"));
+                  task.getEmit().convention(extension.getEmit());
+                  task.getDependencyManifests().from(dependencyManifests(target, sourceSet));
+                  task.getDefinitionCache().set(definitionCache);
+                  task.usesService(definitionCache);
+                });
+
+    TaskProvider<UpdateEnumVisitorWireIdLockTask> updateLockTask =
+        target
+            .getTasks()
+            .register(
+                sourceSet.getTaskName("update", "EnumVisitorWireIdLock"),
+                UpdateEnumVisitorWireIdLockTask.class,
+                task -> {
+                  task.getSource()
+                      .convention(generateTask.flatMap(GenerateEnumVisitorsTask::getSource));
+                  task.getWireIdLock()
+                      .convention(generateTask.flatMap(GenerateEnumVisitorsTask::getWireIdLock));
+                  task.getDefinitionCache().set(definitionCache);
+                  task.usesService(definitionCache);
+                });
+    // The generation checks the lock the update writes, when both run in the same build
+    generateTask.configure(task -> task.mustRunAfter(updateLockTask));
+
+    // The provider carries the task dependency to every consumer of the source set
+    sourceSet.getJava().srcDir(generateTask.flatMap(GenerateEnumVisitorsTask::getDestination));
+    // The emitted class files are compiled against and packaged like the compiled sources
+    Provider<Directory> classesDestination =
+        generateTask.flatMap(GenerateEnumVisitorsTask::getClassesDestination);
+    sourceSet.setCompileClasspath(
+        sourceSet.getCompileClasspath().plus(target.files(classesDestination)));
+    sourceSet.getOutput().dir(Map.of("builtBy", generateTask), classesDestination);
+  }
 
-    sourceSets.named(
-        SourceSet.MAIN_SOURCE_SET_NAME,
-        sourceSet -> {
-          sourceSet.getJava().srcDir(ourPluginTask.getDestination());
-        });
-
-    tasks.named(
-        JavaPlugin.COMPILE_JAVA_TASK_NAME,
-        task -> {
-          task.dependsOn(ourPluginTask);
-        });
+  /** Returns the name of the default lock file of the wire ids of another source set than main. */
+  private static String wireIdLockName(String sourceSetName) {
+    return DEFAULT_WIRE_ID_LOCK.replace(".lock", "-" + sourceSetName + ".lock");
   }
 }
@@ -1,12 +1,34 @@
 package me.karjan.enumvisitor;
 
 import java.nio.file.FileSystems;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
 
 /** Constants and Helper methods for the Plugin. */
 class EnumVisitorUtil {
 
-  /** The default source directory for the definitions. */
-  static final String DEFAULT_SOURCE_DIRECTORY = "src/main/enumvis";
+  /** The name of the directory of the definitions of a source set, such as {@code src/test}. */
+  static final String SOURCE_DIRECTORY_NAME = "enumvis";
+
+  /** The default source directory for the definitions, the one of the main source set. */
+  static final String DEFAULT_SOURCE_DIRECTORY = "src/main/" + SOURCE_DIRECTORY_NAME;
+
+  /** The default location of the generated Java files, relative to the build directory. */
+  static final String DEFAULT_DESTINATION = "generated-src/enumvis";
+
+  /** The default location of the emitted class files, relative to the build directory. */
+  static final String DEFAULT_CLASSES_DESTINATION = "generated-classes/enumvis";
+
+  /** The default directory of the generation reports, relative to the build directory. */
+  static final String DEFAULT_REPORT_DIRECTORY = "reports/enumvis";
+
+  /** The default location of the manifest of the definitions, relative to the build directory. */
+  static final String DEFAULT_MANIFEST = "enumvis-manifest/definitions.txt";
+
+  /** The default lock file of the wire ids, relative to the project directory. */
+  static final String DEFAULT_WIRE_ID_LOCK = "enumvis-wire-ids.lock";
 
   /** The file extension for a definition. */
   static final String VISITOR_FILE_EXT = ".v";
@@ -14,14 +36,63 @@ class EnumVisitorUtil {
   /** The file extension for Java source code. */
   static final String JAVA_FILE_EXT = ".java";
 
+  /** The default number of definitions handled by a single unit of work. */
+  static final int DEFAULT_WORKER_BATCH_SIZE = 64;
+
+  /** The default isolation of the units of work. */
+  static final String DEFAULT_WORKER_ISOLATION = "none";
+
+  /** Dispatch to the visitor from a class body for each enum constant. */
+  static final String DISPATCH_CONSTANT_BODIES = "bodies";
+
+  /** Dispatch to the visitor from a single method which switches on the ordinal. */
+  static final String DISPATCH_SWITCH = "switch";
+
+  /** The emission writing the enums as Java source files, compiled along the project sources. */
+  static final String EMIT_SOURCE = "source";
+
+  /** The emission writing the enums directly as class files, which javac does not compile. */
+  static final String EMIT_BYTECODE = "bytecode";
+
+  /**
+   * The number of members of a segment of a large enum. javac initializes all the constants of an
+   * enum in a single method, limited to 64KB of code, so an enum with more members is always
+   * emitted as bytecode, with its code split into segments of this many members.
+   */
+  static final int SEGMENT_SIZE = 2048;
+
+  /**
+   * The largest number of members of an enum. The class file of the enum refers to each of its
+   * fields, and a class file holds at most 65535 constants. The values of the columns and wire ids
+   * of a large enum are held by its segment classes, so they do not count against this limit.
+   */
+  static final int MAX_MEMBERS = 20_000;
+
+  /** The prefix of the lines of a definition which hold a directive instead of a member. */
+  static final String DIRECTIVE_PREFIX = "@";
+
   static final String BLANK_SPACE = " ";
   static final String PACKAGE_SEPARATOR = ".";
 
-  static final String LINE_SEPARATOR = System.lineSeparator();
+  /**
+   * The line separator of the generated files. It does not depend on the platform, so that the
+   * outputs are the same on every machine and can be shared through the build cache.
+   */
+  static final String LINE_SEPARATOR = "\n";
   static final String PATH_SEPARATOR = FileSystems.getDefault().getSeparator();
 
-  /** Regular expression for a valid Java identifier. */
-  static final String JAVA_IDENTIFIER_REGEX = "^([a-zA-Z_$][a-zA-Z\\d_$]*)$";
+  /** The separator of the normalized relative paths reported by Gradle, on every platform. */
+  static final String RELATIVE_PATH_SEPARATOR = "/";
+
+  /** The keywords and literals of Java, which are not valid identifiers. */
+  private static final Set<String> RESERVED_WORDS =
+      Set.of(
+          "_", "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class",
+          "const", "continue", "default", "do", "double", "else", "enum", "extends", "false",
+          "final", "finally", "float", "for", "goto", "if", "implements", "import", "instanceof",
+          "int", "interface", "long", "native", "new", "null", "package", "private", "protected",
+          "public", "return", "short", "static", "strictfp", "super", "switch", "synchronized",
+          "this", "throw", "throws", "transient", "true", "try", "void", "volatile", "while");
 
   private EnumVisitorUtil() {
     // Do not instantiate
@@ -31,4 +102,42 @@ class EnumVisitorUtil {
   static boolean isEmpty(String s) {
     return (s == null || s.isBlank());
   }
+
+  /** Returns true if the given string is a valid Java identifier for this generator. */
+  static boolean isJavaIdentifier(String s) {
+    if (s.isEmpty() || !isJavaIdentifierStart(s.charAt(0))) {
+      return false;
+    }
+    for (int i = 1; i < s.length(); i++) {
+      if (!isJavaIdentifierPart(s.charAt(i))) {
+        return false;
+      }
+    }
+    return !isReservedWord(s);
+  }
+
+  /** Returns true if the given character can start an identifier: an ASCII letter, _ or $. */
+  static boolean isJavaIdentifierStart(int c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '$';
+  }
+
+  /** Returns true if the given character can be part of an identifier after its start. */
+  static boolean isJavaIdentifierPart(int c) {
+    return isJavaIdentifierStart(c) || (c >= '0' && c <= '9');
+  }
+
+  /** Returns the SHA-256 hash of the given contents of a definition, in hexadecimal. */
+  static String contentHash(byte[] contents) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(contents));
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** Returns true if the given string is a keyword or literal of Java. */
+  static boolean isReservedWord(String s) {
+    return RESERVED_WORDS.contains(s);
+  }
 }
@@ -0,0 +1,89 @@
+package me.karjan.enumvisitor;
+
+import static me.karjan.enumvisitor.EnumVisitorUtil.VISITOR_FILE_EXT;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.IgnoreEmptyDirectories;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * A gradle Task which writes the {@link DefinitionManifest} of the definitions of the main source
+ * set. The plugin publishes it as a variant of the project, next to the classes of its enums, for
+ * the projects depending on it. Each definition is parsed, through the cache shared with the
+ * generation, to apply its directives to the options.
+ */
+@CacheableTask
+public abstract class GenerateEnumVisitorManifestTask extends DefaultTask {
+
+  /** The location of the source definition files. It is fine for the directory not to exist. */
+  @InputFiles
+  @IgnoreEmptyDirectories
+  @Optional
+  @PathSensitive(PathSensitivity.RELATIVE)
+  public abstract DirectoryProperty getSource();
+
+  /** The project which compiles the enums, as written in the manifest, such as {@code :shared}. */
+  @Input
+  public abstract Property<String> getOrigin();
+
+  /** The project wide settings of the code generation, as the generation task applies them. */
+  @Input
+  public abstract Property<GenerationOptions> getOptions();
+
+  /** The cache of the parsed definitions shared with the generation tasks. */
+  @Internal
+  public abstract Property<EnumDefinitionCache> getDefinitionCache();
+
+  /** The manifest file. */
+  @OutputFile
+  public abstract RegularFileProperty getManifest();
+
+  /** Writes the manifest of the definitions in the source directory. */
+  @TaskAction
+  void generateManifest() {
+    DefinitionManifest manifest = new DefinitionManifest();
+    String origin = getOrigin().get();
+    GenerationOptions options = getOptions().get();
+    getSource()
+        .getAsFileTree()
+        .matching(pattern -> pattern.include("**/*" + VISITOR_FILE_EXT))
+        .visit(
+            details -> {
+              if (details.isDirectory()) {
+                return;
+              }
+              String relativePath = details.getRelativePath().getPathString();
+              try {
+                EnumDefinition definition =
+                    EnumVisitorGenerator.parse(
+                        details.getFile(), relativePath, getDefinitionCache().getOrNull());
+                manifest.add(
+                    EnumVisitorGenerator.enumQualifiedName(relativePath),
+                    EnumVisitorUtil.contentHash(Files.readAllBytes(details.getFile().toPath())),
+                    options.forDefinition(definition).signature(),
+                    origin);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+    try {
+      manifest.writeTo(getManifest().get().getAsFile().toPath());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -1,204 +1,613 @@
 package me.karjan.enumvisitor;
 
-import static me.karjan.enumvisitor.EnumVisitorUtil.BLANK_SPACE;
+import static me.karjan.enumvisitor.EnumVisitorUtil.DEFAULT_CLASSES_DESTINATION;
+import static me.karjan.enumvisitor.EnumVisitorUtil.DEFAULT_DESTINATION;
+import static me.karjan.enumvisitor.EnumVisitorUtil.DEFAULT_REPORT_DIRECTORY;
 import static me.karjan.enumvisitor.EnumVisitorUtil.DEFAULT_SOURCE_DIRECTORY;
-import static me.karjan.enumvisitor.EnumVisitorUtil.JAVA_FILE_EXT;
-import static me.karjan.enumvisitor.EnumVisitorUtil.JAVA_IDENTIFIER_REGEX;
-import static me.karjan.enumvisitor.EnumVisitorUtil.LINE_SEPARATOR;
-import static me.karjan.enumvisitor.EnumVisitorUtil.PACKAGE_SEPARATOR;
+import static me.karjan.enumvisitor.EnumVisitorUtil.DEFAULT_WIRE_ID_LOCK;
 import static me.karjan.enumvisitor.EnumVisitorUtil.PATH_SEPARATOR;
+import static me.karjan.enumvisitor.EnumVisitorUtil.RELATIVE_PATH_SEPARATOR;
 import static me.karjan.enumvisitor.EnumVisitorUtil.VISITOR_FILE_EXT;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.nio.file.FileSystems;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
 import javax.inject.Inject;
+import me.karjan.enumvisitor.GenerationSummary.Outcome;
 import org.gradle.api.DefaultTask;
-import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileType;
 import org.gradle.api.file.ProjectLayout;
-import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.IgnoreEmptyDirectories;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
-import org.gradle.api.tasks.TaskExecutionException;
+import org.gradle.work.ChangeType;
+import org.gradle.work.FileChange;
+import org.gradle.work.Incremental;
+import org.gradle.work.InputChanges;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutionException;
+import org.gradle.workers.WorkerExecutor;
 
 /**
  * A gradle Task which performs the work to generate the Java source files for an enum including the
- * visitor pattern for it.
+ * visitor pattern for it. With {@link #getEmit()} set to {@code bytecode} the enums are written as
+ * class files to {@link #getClassesDestination()} instead, so javac does not have to compile them.
+ *
+ * <p>The task is incremental: only added or modified definitions are regenerated and the Java
+ * source files of removed definitions are deleted. A full rebuild only happens when Gradle cannot
+ * determine the changes, for example when the generator itself has changed. Generated files are
+ * only written when their contents change, so a regeneration which does not change anything does
+ * not cause the generated sources to be recompiled.
+ *
+ * <p>Definitions are generated one after another on the task thread, or in batches through the
+ * Gradle Worker API when {@link #getParallel()} is enabled. In both cases definitions are handled
+ * in the order of their paths, so the reported failure is the same.
+ *
+ * <p>The task is cacheable and relocatable: definitions are tracked by their path relative to the
+ * source directory and the generated files only depend on the contents of the definitions.
+ *
+ * <p>The wire ids of the added and modified definitions are checked against the lock file {@link
+ * #getWireIdLock()} before anything is generated, and the task fails when some are not locked
+ * yet. It never writes the lock, which is added to by {@link UpdateEnumVisitorWireIdLockTask}.
+ * The lock file is an input, but not an incremental one: when it changes, such as when an id is
+ * locked or retired, all the definitions are checked again.
+ *
+ * <p>Each execution writes a {@link GenerationReport} to {@link #getReportFile()}, with the time
+ * spent on every generated definition, and logs a summary of it at info level. A definition whose
+ * files cannot be read or written fails the task.
  */
-class GenerateEnumVisitorsTask extends DefaultTask {
+@CacheableTask
+abstract class GenerateEnumVisitorsTask extends DefaultTask {
 
-  ProjectLayout projectLayout;
+  @Inject
+  public GenerateEnumVisitorsTask(ProjectLayout projectLayout) {
+    getSource().convention(projectLayout.getProjectDirectory().dir(DEFAULT_SOURCE_DIRECTORY));
+    getDestination().convention(projectLayout.getBuildDirectory().dir(DEFAULT_DESTINATION));
+    getClassesDestination()
+        .convention(projectLayout.getBuildDirectory().dir(DEFAULT_CLASSES_DESTINATION));
+    getParallel().convention(false);
+    getWorkerBatchSize().convention(EnumVisitorUtil.DEFAULT_WORKER_BATCH_SIZE);
+    getWorkerIsolation().convention(EnumVisitorUtil.DEFAULT_WORKER_ISOLATION);
+    getDispatch().convention(EnumVisitorUtil.DISPATCH_CONSTANT_BODIES);
+    getPrimitiveVisitors().convention(List.of());
+    getSets().convention(false);
+    getParsers().convention(false);
+    getTables().convention(false);
+    getCodecs().convention(false);
+    getCounters().convention(false);
+    getMaps().convention(false);
+    getWireIdLock().convention(projectLayout.getProjectDirectory().file(DEFAULT_WIRE_ID_LOCK));
+    getWireIdLockUpdateTask().convention(EnumVisitorPlugin.UPDATE_WIRE_ID_LOCK_TASK_NAME);
+    getEmit().convention(EnumVisitorUtil.EMIT_SOURCE);
+    getReportFile()
+        .convention(
+            projectLayout
+                .getBuildDirectory()
+                .file(DEFAULT_REPORT_DIRECTORY + RELATIVE_PATH_SEPARATOR + getName() + ".json"));
+  }
 
-  /** The location of the source definition files. */
-  @InputDirectory @Optional File source = getProject().file(DEFAULT_SOURCE_DIRECTORY);
+  /** The location of the source definition files. It is fine for the directory not to exist. */
+  @Incremental
+  @InputFiles
+  @IgnoreEmptyDirectories
+  @Optional
+  @PathSensitive(PathSensitivity.RELATIVE)
+  public abstract DirectoryProperty getSource();
 
   /** The location of the generated Java files. */
-  @OutputDirectory @Optional
-  File destination =
-      getProject().getLayout().getBuildDirectory().file("generated-src/enumvis").get().getAsFile();
+  @OutputDirectory
+  public abstract DirectoryProperty getDestination();
+
+  /** The location of the class files of the enums which are emitted as bytecode. */
+  @OutputDirectory
+  public abstract DirectoryProperty getClassesDestination();
+
+  /** Whether the definitions are generated in parallel through the Gradle Worker API. */
+  @Internal
+  public abstract Property<Boolean> getParallel();
+
+  /** The number of definitions handled by a single unit of work when generating in parallel. */
+  @Internal
+  public abstract Property<Integer> getWorkerBatchSize();
+
+  /** The isolation of the units of work: {@code none}, {@code classloader} or {@code process}. */
+  @Internal
+  public abstract Property<String> getWorkerIsolation();
+
+  /**
+   * How {@code accept} dispatches to the visitor, unless a definition overrides it with a
+   * directive: {@code bodies} for a class body per constant, or {@code switch} for a single method
+   * switching on the ordinal.
+   */
+  @Input
+  public abstract Property<String> getDispatch();
+
+  /**
+   * The primitive types ({@code int}, {@code long}, {@code double}, {@code boolean}) for which a
+   * specialized visitor is generated, unless a definition overrides them with a directive.
+   */
+  @Input
+  public abstract ListProperty<String> getPrimitiveVisitors();
+
+  /**
+   * Whether a bit mask set companion is generated next to each enum, unless a definition
+   * overrides it with a directive.
+   */
+  @Input
+  public abstract Property<Boolean> getSets();
+
+  /**
+   * Whether static {@code parse} methods are generated on each enum, unless a definition overrides
+   * it with a directive.
+   */
+  @Input
+  public abstract Property<Boolean> getParsers();
+
+  /**
+   * Whether static {@code tabulate} methods memoizing a visitor per member are generated on each
+   * enum, unless a definition overrides it with a directive.
+   */
+  @Input
+  public abstract Property<Boolean> getTables();
+
+  /**
+   * Whether a codec companion writing and reading the members as their wire ids is generated next
+   * to each enum, unless a definition overrides it with a directive.
+   */
+  @Input
+  public abstract Property<Boolean> getCodecs();
+
+  /**
+   * Whether a counters companion counting events per member is generated next to each enum,
+   * unless a definition overrides it with a directive.
+   */
+  @Input
+  public abstract Property<Boolean> getCounters();
+
+  /**
+   * Whether a map companion keeping a value per member is generated next to each enum, unless a
+   * definition overrides it with a directive.
+   */
+  @Input
+  public abstract Property<Boolean> getMaps();
+
+  /**
+   * The lock file of the wire ids, which the wire ids of the definitions are checked against. It is
+   * fine for the file not to exist as long as no definition declares wire ids.
+   */
+  @InputFiles
+  @Optional
+  @PathSensitive(PathSensitivity.NONE)
+  public abstract RegularFileProperty getWireIdLock();
+
+  /** The name of the task which adds the new wire ids to the lock, named when some are missing. */
+  @Internal
+  public abstract Property<String> getWireIdLockUpdateTask();
+
+  /**
+   * Whether the enums are written as Java source files, {@code source}, or directly as class
+   * files, {@code bytecode}.
+   */
+  @Input
+  public abstract Property<String> getEmit();
+
+  /**
+   * The manifests of the definitions of the dependencies, whose enums are not generated again. A
+   * definition identical to one of them is skipped, and one which differs fails the task. They are
+   * not incremental inputs: when they change, all the definitions are checked again.
+   */
+  @InputFiles
+  @PathSensitive(PathSensitivity.NONE)
+  public abstract ConfigurableFileCollection getDependencyManifests();
+
+  /**
+   * The JSON report of the last execution. It is not an output of the task: it is not restored from
+   * the build cache, and it is left as it is when the task is up to date.
+   */
+  @Internal
+  public abstract RegularFileProperty getReportFile();
+
+  /**
+   * The cache of the parsed definitions shared by the tasks of the build, and by the builds of the
+   * daemon.
+   */
+  @Internal
+  public abstract Property<EnumDefinitionCache> getDefinitionCache();
 
   @Inject
-  public GenerateEnumVisitorsTask(ProjectLayout projectLayout) {
-    this.projectLayout = projectLayout;
-  }
+  protected abstract WorkerExecutor getWorkerExecutor();
 
-  /** Getter for {@link #source}. */
-  File getSource() {
-    return source;
+  /**
+   * Generate the enum with visitor pattern Java source code files for the definitions in the
+   * source directory which were added or modified since the last execution, and delete the files
+   * of the definitions which were removed.
+   */
+  @TaskAction
+  void generatorEnumVisitors(InputChanges inputChanges) {
+    if (!getSource().isPresent()) {
+      return;
+    }
+    long start = System.nanoTime();
+    int definitionCount = checkForDuplicateEnums();
+    File destination = getDestination().get().getAsFile();
+    File classesDestination = getClassesDestination().get().getAsFile();
+
+    List<FileChange> changes = new ArrayList<>();
+    for (FileChange change : inputChanges.getFileChanges(getSource())) {
+      if (change.getFileType() != FileType.DIRECTORY
+          && change.getNormalizedPath().endsWith(VISITOR_FILE_EXT)) {
+        changes.add(change);
+      }
+    }
+    changes.sort(Comparator.comparing(FileChange::getNormalizedPath));
+    DefinitionManifest providedDefinitions;
+    try {
+      providedDefinitions = DefinitionManifest.readAll(getDependencyManifests());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    GenerationOptions options = createGenerationOptions();
+    Set<String> providedPaths = new HashSet<>();
+    for (FileChange change : changes) {
+      if (change.getChangeType() != ChangeType.REMOVED
+          && isProvided(
+              providedDefinitions, options, change.getFile(), change.getNormalizedPath())) {
+        providedPaths.add(change.getNormalizedPath());
+      }
+    }
+    checkWireIds(changes, providedPaths, !inputChanges.isIncremental());
+    long wireIdCheckNanos = System.nanoTime() - start;
+
+    GenerationSummary summary = new GenerationSummary();
+    EnumVisitorGenerator generator =
+        new EnumVisitorGenerator(
+            destination, classesDestination, options, summary, getDefinitionCache().getOrNull());
+    List<String> definitionPaths = new ArrayList<>();
+    int removed = 0;
+    for (FileChange change : changes) {
+      String relativePath = change.getNormalizedPath();
+      if (change.getChangeType() == ChangeType.REMOVED) {
+        removeFiles(generator, change.getFile(), relativePath);
+        removed++;
+        getLogger().info("Removed " + relativePath);
+      } else if (providedPaths.contains(relativePath)) {
+        // Its files may be left over from before the dependency defined the same enum
+        removeFiles(generator, change.getFile(), relativePath);
+        getLogger().info("Provided by a dependency " + relativePath);
+      } else {
+        definitionPaths.add(relativePath);
+      }
+    }
+
+    if (getParallel().get()) {
+      summary.add(generateInParallel(definitionPaths, options));
+    } else {
+      File sourceDirectory = getSource().get().getAsFile();
+      for (String relativePath : definitionPaths) {
+        try {
+          generator.generate(new File(sourceDirectory, relativePath), relativePath);
+        } catch (IOException e) {
+          throw new UncheckedIOException("Could not generate the files of " + relativePath, e);
+        }
+        getLogger().info(relativePath);
+      }
+    }
+
+    if (!inputChanges.isIncremental()) {
+      deleteStaleOutputs(destination, summary);
+      deleteStaleOutputs(classesDestination, summary);
+    }
+    GenerationReport report =
+        new GenerationReport(
+            getPath(),
+            inputChanges.isIncremental(),
+            getParallel().get(),
+            System.nanoTime() - start,
+            wireIdCheckNanos,
+            removed,
+            providedPaths.size(),
+            definitionCount - definitionPaths.size() - providedPaths.size(),
+            summary);
+    try {
+      report.writeTo(getReportFile().get().getAsFile().toPath());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    getLogger().info(report.summaryLine());
   }
 
-  /** Getter for {@link #destination}. */
-  File getDestination() {
-    return destination;
+  private static void removeFiles(
+      EnumVisitorGenerator generator, File definition, String relativePath) {
+    try {
+      generator.remove(definition, relativePath);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not remove the files of " + relativePath, e);
+    }
   }
 
   /**
-   * Generate all enum with visitor pattern Java source code files for definitions in the source
-   * directory.
+   * Returns true if the given definition is identical to the one of the same enum in the manifest
+   * of a dependency, and generated with the same options, whose classes are then used instead of
+   * generating the enum again. Fails when the dependency defines the enum differently, or with
+   * other options, since the API of its classes would not be the one of this definition.
    */
-  @TaskAction
-  void generatorEnumVisitors() {
-    projectLayout
-        .getProjectDirectory()
-        .dir(DEFAULT_SOURCE_DIRECTORY)
-        .getAsFileTree()
-        .visit(visitor -> visitFile(visitor));
+  private boolean isProvided(
+      DefinitionManifest providedDefinitions,
+      GenerationOptions options,
+      File definition,
+      String relativePath) {
+    String enumName = EnumVisitorGenerator.enumQualifiedName(relativePath);
+    DefinitionManifest.Entry entry = providedDefinitions.get(enumName);
+    if (entry == null) {
+      return false;
+    }
+    String contentHash;
+    String definitionOptions;
+    try {
+      contentHash = EnumVisitorUtil.contentHash(Files.readAllBytes(definition.toPath()));
+      definitionOptions =
+          options
+              .forDefinition(
+                  EnumVisitorGenerator.parse(
+                      definition, relativePath, getDefinitionCache().getOrNull()))
+              .signature();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read " + relativePath, e);
+    }
+    if (!entry.contentHash().equals(contentHash)) {
+      throw new EnumDefinitionException(
+          relativePath,
+          "The enum "
+              + enumName
+              + " is also defined by "
+              + entry.origin()
+              + ", differently. Remove this definition to use the enum of "
+              + entry.origin()
+              + ", or rename it");
+    }
+    if (!entry.options().equals(definitionOptions)) {
+      throw new EnumDefinitionException(
+          relativePath,
+          "The enum "
+              + enumName
+              + " is also defined by "
+              + entry.origin()
+              + ", with the options "
+              + entry.options()
+              + " instead of "
+              + definitionOptions
+              + ". Remove this definition to use the enum of "
+              + entry.origin()
+              + ", or rename it");
+    }
+    return true;
   }
 
-  private void visitFile(FileVisitDetails visitor) {
-    File file = visitor.getFile();
-    if (file.getName().endsWith(VISITOR_FILE_EXT)) {
-      try {
-        String[] enumLocationSegments = determineEnumLocationSegments(file);
-        String fileName = file.getName();
-        String enumName = fileName.substring(0, fileName.lastIndexOf('.'));
-        List<String> enumMembers = readFileLinesToSet(file);
-        generateEnumVisitorSourceCode(enumLocationSegments, enumName, enumMembers);
-      } catch (IOException e) {
-        // ignore
+  /**
+   * Checks the wire ids of the changed definitions against the lock, which must hold all of them.
+   * In a full rebuild every definition is among the changes, and the lock must not hold any enum
+   * which is not. Only the definitions which declare wire ids, or whose enum has locked ones, are
+   * parsed, and the definitions provided by a dependency are left to its own lock.
+   */
+  private void checkWireIds(List<FileChange> changes, Set<String> providedPaths, boolean full) {
+    File sourceDirectory = getSource().get().getAsFile();
+    try {
+      WireIdLock wireIdLock = WireIdLock.read(getWireIdLock().get().getAsFile().toPath());
+      Set<String> enumNames = new HashSet<>();
+      for (FileChange change : changes) {
+        String relativePath = change.getNormalizedPath();
+        String enumName = EnumVisitorGenerator.enumQualifiedName(relativePath);
+        if (change.getChangeType() == ChangeType.REMOVED) {
+          wireIdLock.checkRemoved(relativePath, enumName);
+          continue;
+        }
+        enumNames.add(enumName);
+        File file = new File(sourceDirectory, relativePath);
+        if (providedPaths.contains(relativePath)
+            || !wireIdLock.contains(enumName)
+                && !EnumDefinitionParser.declaresWireIds(Files.readAllBytes(file.toPath()))) {
+          continue;
+        }
+        EnumDefinition definition;
+        try {
+          definition =
+              EnumVisitorGenerator.parse(file, relativePath, getDefinitionCache().getOrNull());
+        } catch (EnumDefinitionException e) {
+          // Reported by the generation, in the order of the definitions
+          continue;
+        }
+        wireIdLock.update(
+            relativePath, enumName, definition.getMembers(), definition.getWireIds());
       }
-      getLogger().info(file.getName());
+      if (full) {
+        wireIdLock.checkRemovedExcept(enumNames);
+      }
+      wireIdLock.checkNothingAdded(getWireIdLockUpdateTask().get());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
   }
 
-  private String[] determineEnumLocationSegments(File file) {
-    String sourcePathStr = source.getPath();
-    String filePathStr = file.getPath();
-    return filePathStr
-        .replace(sourcePathStr, "")
-        .replace(file.getName(), "")
-        .replace(PATH_SEPARATOR, PACKAGE_SEPARATOR)
-        .replace(BLANK_SPACE, "")
-        .substring(1)
-        .split("\\" + PACKAGE_SEPARATOR);
+  /**
+   * Deletes the files in the destination which were not generated during a full rebuild. Gradle
+   * only removes the outputs it knows about before a full rebuild, anything else left in the
+   * destination would otherwise end up being compiled.
+   */
+  private void deleteStaleOutputs(File destination, GenerationSummary summary) {
+    Path destinationPath = destination.toPath();
+    if (!Files.isDirectory(destinationPath)) {
+      return;
+    }
+    try (Stream<Path> paths = Files.walk(destinationPath)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        String outputPath =
+            destinationPath
+                .relativize(path)
+                .toString()
+                .replace(PATH_SEPARATOR, RELATIVE_PATH_SEPARATOR);
+        if (Files.isRegularFile(path) && !summary.isOutput(outputPath)) {
+          Files.delete(path);
+          summary.record(Outcome.DELETED, outputPath);
+        } else if (Files.isDirectory(path) && !path.equals(destinationPath)) {
+          try (Stream<Path> children = Files.list(path)) {
+            if (children.findAny().isEmpty()) {
+              Files.delete(path);
+            }
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
   }
 
-  private List<String> readFileLinesToSet(File file) throws IOException {
-    List<String> linesList = new ArrayList<>();
-    Set<String> linesSet = new HashSet<>();
-    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-      String line;
-      while ((line = reader.readLine()) != null) {
-        if (linesSet.contains(line)) {
-          throwTaskExecutionException("Duplicate line in file " + file.getName() + ": " + line);
-        }
-        linesSet.add(line);
-        linesList.add(line);
+  /**
+   * Fails when several definitions in the source directory map to the same enum, and returns the
+   * number of definitions.
+   */
+  private int checkForDuplicateEnums() {
+    Map<String, TreeSet<String>> definitionsByEnum = new TreeMap<>();
+    getSource()
+        .getAsFileTree()
+        .matching(pattern -> pattern.include("**/*" + VISITOR_FILE_EXT))
+        .visit(
+            details -> {
+              if (!details.isDirectory()) {
+                String relativePath = details.getRelativePath().getPathString();
+                definitionsByEnum
+                    .computeIfAbsent(
+                        EnumVisitorGenerator.enumQualifiedName(relativePath), k -> new TreeSet<>())
+                    .add(relativePath);
+              }
+            });
+    for (Map.Entry<String, TreeSet<String>> entry : definitionsByEnum.entrySet()) {
+      if (entry.getValue().size() > 1) {
+        throw new EnumDefinitionException(
+            entry.getValue().first(),
+            "Duplicate enum " + entry.getKey() + " defined in files " + entry.getValue());
       }
     }
-    return linesList;
+    return definitionsByEnum.size();
   }
 
-  private void generateEnumVisitorSourceCode(
-      String[] enumLocationSegments, String enumName, List<String> enumMembers) throws IOException {
-    String enumPackage = String.join(PACKAGE_SEPARATOR, enumLocationSegments);
-    String enumLocation = String.join(PATH_SEPARATOR, enumLocationSegments);
+  /** Returns the project wide settings of the code generation. */
+  GenerationOptions createGenerationOptions() {
+    return new GenerationOptions(
+        getDispatch().get(),
+        getPrimitiveVisitors().get(),
+        getSets().get(),
+        getParsers().get(),
+        getTables().get(),
+        getCodecs().get(),
+        getCounters().get(),
+        getMaps().get(),
+        getEmit().get());
+  }
 
-    if (EnumVisitorUtil.isEmpty(enumName)) {
-      throwTaskExecutionException("The enum name is empty");
+  private GenerationSummary generateInParallel(
+      List<String> definitionPaths, GenerationOptions options) {
+    int batchSize = getWorkerBatchSize().get();
+    if (batchSize < 1) {
+      throw new InvalidUserDataException("The worker batch size must be positive: " + batchSize);
     }
-    checkForValidJavaIdentifier(enumName);
-
-    if (EnumVisitorUtil.isEmpty(enumPackage)) {
-      throwTaskExecutionException(
-          "The location of this enum maps to the default Java package: " + enumName);
+    String isolation = getWorkerIsolation().get();
+    WorkQueue workQueue = createWorkQueue(isolation);
+    List<File> summaryFiles = new ArrayList<>();
+    for (int i = 0; i < definitionPaths.size(); i += batchSize) {
+      List<String> batch =
+          List.copyOf(definitionPaths.subList(i, Math.min(i + batchSize, definitionPaths.size())));
+      File summaryFile = new File(getTemporaryDir(), "batch-" + summaryFiles.size() + ".txt");
+      summaryFiles.add(summaryFile);
+      workQueue.submit(
+          GenerateEnumVisitorsWorkAction.class,
+          parameters -> {
+            parameters.getSourceDirectory().set(getSource());
+            parameters.getDestination().set(getDestination());
+            parameters.getClassesDestination().set(getClassesDestination());
+            parameters.getDefinitionPaths().set(batch);
+            parameters.getOptions().set(options);
+            parameters.getSummaryFile().set(summaryFile);
+            // Isolated workers load their own classes, which cannot see the service
+            if (isolation.equalsIgnoreCase("none")) {
+              parameters.getDefinitionCache().set(getDefinitionCache());
+            }
+          });
     }
-
-    if (enumMembers.size() == 0) {
-      throwTaskExecutionException("The enum definition " + enumName + " does not have any members");
+    try {
+      workQueue.await();
+    } catch (WorkerExecutionException e) {
+      throw firstDefinitionFailure(e);
     }
 
-    for (String member : enumMembers) {
-      checkForValidJavaIdentifier(member);
+    GenerationSummary summary = new GenerationSummary();
+    try {
+      for (File summaryFile : summaryFiles) {
+        summary.add(GenerationSummary.readFrom(summaryFile.toPath()));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
-
-    Path fullDestination = FileSystems.getDefault().getPath(destination.toString(), enumLocation);
-    fullDestination.toFile().mkdirs();
-    File enumVisitorFile = new File(fullDestination.toString(), enumName + JAVA_FILE_EXT);
-
-    enumVisitorFile.createNewFile();
-
-    StringBuilder fileContents = new StringBuilder();
-
-    fileContents
-        .append("package " + enumPackage + ";")
-        .append(LINE_SEPARATOR)
-        .append(LINE_SEPARATOR);
-
-    fileContents.append("public enum " + enumName + " {").append(LINE_SEPARATOR);
-
-    StringJoiner memberDefs =
-        new StringJoiner(
-            "," + LINE_SEPARATOR + LINE_SEPARATOR, "", ";" + LINE_SEPARATOR + LINE_SEPARATOR);
-    enumMembers.forEach(
-        member -> {
-          StringJoiner memberDef = new StringJoiner(LINE_SEPARATOR);
-          memberDef
-              .add("  " + member + " {")
-              .add("    public <E> E accept(" + enumName + "Visitor<E> visitor) {")
-              .add("      return visitor.visit" + member + "();")
-              .add("    }")
-              .add("  }");
-          memberDefs.add(memberDef.toString());
-        });
-    fileContents.append(memberDefs.toString());
-
-    fileContents
-        .append("  public abstract <E> E accept(" + enumName + "Visitor<E> visitor);")
-        .append(LINE_SEPARATOR)
-        .append(LINE_SEPARATOR);
-
-    fileContents.append("  public interface " + enumName + "Visitor<E> {").append(LINE_SEPARATOR);
-
-    enumMembers.forEach(
-        member -> {
-          fileContents.append("    E visit" + member + "();").append(LINE_SEPARATOR);
-        });
-
-    fileContents.append("  }").append(LINE_SEPARATOR);
-
-    fileContents.append("}").append(LINE_SEPARATOR);
-
-    Files.write(enumVisitorFile.toPath(), fileContents.toString().getBytes());
+    return summary;
   }
 
-  private void checkForValidJavaIdentifier(String testString) {
-    if (!testString.matches(JAVA_IDENTIFIER_REGEX)) {
-      throwTaskExecutionException(testString + " is not a valid identifier for Java.");
+  private WorkQueue createWorkQueue(String isolation) {
+    switch (isolation.toLowerCase()) {
+      case "none":
+        return getWorkerExecutor().noIsolation();
+      case "classloader":
+        return getWorkerExecutor().classLoaderIsolation();
+      case "process":
+        return getWorkerExecutor().processIsolation();
+      default:
+        throw new InvalidUserDataException(
+            "Unsupported worker isolation "
+                + isolation
+                + ", expected one of: none, classloader, process");
     }
   }
 
-  private void throwTaskExecutionException(String causeMsg) {
-    throw new TaskExecutionException(this, new Throwable(causeMsg));
+  /**
+   * Picks the failure of the definition with the lowest path, which is the one a sequential
+   * generation would have reported, regardless of the order in which the batches completed.
+   */
+  private static RuntimeException firstDefinitionFailure(WorkerExecutionException e) {
+    EnumDefinitionException first = null;
+    for (Throwable cause : e.getCauses()) {
+      for (Throwable t = cause; t != null; t = t.getCause()) {
+        if (t instanceof EnumDefinitionException definitionException) {
+          if (first == null
+              || definitionException.getDefinitionPath().compareTo(first.getDefinitionPath())
+                  < 0) {
+            first = definitionException;
+          }
+          break;
+        }
+      }
+    }
+    return first != null ? first : e;
   }
 }
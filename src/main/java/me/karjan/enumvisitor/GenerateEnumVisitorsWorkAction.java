@@ -0,0 +1,80 @@
+package me.karjan.enumvisitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import javax.inject.Inject;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+
+/**
+ * A unit of work which generates the Java source or class files for a batch of definitions. It is
+ * submitted to the Gradle Worker API by {@link GenerateEnumVisitorsTask} when parallel generation
+ * is enabled.
+ */
+abstract class GenerateEnumVisitorsWorkAction
+    implements WorkAction<GenerateEnumVisitorsWorkAction.Parameters> {
+
+  private static final Logger LOGGER = Logging.getLogger(GenerateEnumVisitorsWorkAction.class);
+
+  /** The parameters of a batch of definitions. */
+  interface Parameters extends WorkParameters {
+
+    /** The location of the source definition files. */
+    DirectoryProperty getSourceDirectory();
+
+    /** The location of the generated Java files. */
+    DirectoryProperty getDestination();
+
+    /** The location of the class files of the enums which are emitted as bytecode. */
+    DirectoryProperty getClassesDestination();
+
+    /** The paths of the definitions in this batch, relative to the source directory. */
+    ListProperty<String> getDefinitionPaths();
+
+    /** The project wide settings of the code generation. */
+    Property<GenerationOptions> getOptions();
+
+    /** The file receiving the {@link GenerationSummary} of this batch. */
+    RegularFileProperty getSummaryFile();
+
+    /** The cache of the parsed definitions, only set for workers without isolation. */
+    Property<EnumDefinitionCache> getDefinitionCache();
+  }
+
+  @Inject
+  public GenerateEnumVisitorsWorkAction() {}
+
+  @Override
+  public void execute() {
+    Parameters parameters = getParameters();
+    File sourceDirectory = parameters.getSourceDirectory().get().getAsFile();
+    GenerationSummary summary = new GenerationSummary();
+    EnumVisitorGenerator generator =
+        new EnumVisitorGenerator(
+            parameters.getDestination().get().getAsFile(),
+            parameters.getClassesDestination().get().getAsFile(),
+            parameters.getOptions().get(),
+            summary,
+            parameters.getDefinitionCache().getOrNull());
+    for (String relativePath : parameters.getDefinitionPaths().get()) {
+      try {
+        generator.generate(new File(sourceDirectory, relativePath), relativePath);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not generate the files of " + relativePath, e);
+      }
+      LOGGER.info(relativePath);
+    }
+    try {
+      summary.writeTo(parameters.getSummaryFile().get().getAsFile().toPath());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
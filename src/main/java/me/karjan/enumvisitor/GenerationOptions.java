@@ -0,0 +1,340 @@
+package me.karjan.enumvisitor;
+
+import static me.karjan.enumvisitor.EnumVisitorUtil.DISPATCH_CONSTANT_BODIES;
+import static me.karjan.enumvisitor.EnumVisitorUtil.DISPATCH_SWITCH;
+import static me.karjan.enumvisitor.EnumVisitorUtil.EMIT_BYTECODE;
+import static me.karjan.enumvisitor.EnumVisitorUtil.EMIT_SOURCE;
+import static me.karjan.enumvisitor.EnumVisitorUtil.SEGMENT_SIZE;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.gradle.api.InvalidUserDataException;
+
+/**
+ * The settings of the code generation. The project wide settings come from the task, and each
+ * definition can override them with directives such as {@code @dispatch switch}.
+ */
+final class GenerationOptions implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  /** The name of the directive selecting the {@link #dispatch}. */
+  static final String DISPATCH_DIRECTIVE = "dispatch";
+
+  /** The name of the directive selecting the {@link #primitiveVisitors}. */
+  static final String PRIMITIVE_VISITORS_DIRECTIVE = "primitiveVisitors";
+
+  /** The name of the directive selecting the {@link #sets}. */
+  static final String SETS_DIRECTIVE = "sets";
+
+  /** The name of the directive selecting the {@link #parsers}. */
+  static final String PARSERS_DIRECTIVE = "parsers";
+
+  /** The name of the directive selecting the {@link #tables}. */
+  static final String TABLES_DIRECTIVE = "tables";
+
+  /** The name of the directive selecting the {@link #codecs}. */
+  static final String CODECS_DIRECTIVE = "codecs";
+
+  /** The name of the directive selecting the {@link #counters}. */
+  static final String COUNTERS_DIRECTIVE = "counters";
+
+  /** The name of the directive selecting the {@link #maps}. */
+  static final String MAPS_DIRECTIVE = "maps";
+
+  /** The primitive types a visitor can return, in the order their interfaces are generated. */
+  static final List<String> PRIMITIVE_TYPES = List.of("int", "long", "double", "boolean");
+
+  /**
+   * How {@code accept} dispatches to the visitor: {@value EnumVisitorUtil#DISPATCH_CONSTANT_BODIES}
+   * gives every constant its own class body, {@value EnumVisitorUtil#DISPATCH_SWITCH} uses a single
+   * method switching on the ordinal.
+   */
+  private final String dispatch;
+
+  /**
+   * The primitive types for which a specialized visitor and {@code accept} method are generated,
+   * such as {@code PlanetIntVisitor} and {@code acceptInt}.
+   */
+  private final List<String> primitiveVisitors;
+
+  /** Whether a bit mask set companion such as {@code PlanetSet} is generated next to the enum. */
+  private final boolean sets;
+
+  /**
+   * Whether static {@code parse} methods looking up a member by its name in characters or bytes
+   * are generated on the enum.
+   */
+  private final boolean parsers;
+
+  /**
+   * Whether static {@code tabulate} methods are generated on the enum, which evaluate a visitor
+   * once per member into an immutable table indexed by ordinal.
+   */
+  private final boolean tables;
+
+  /**
+   * Whether a codec companion such as {@code PlanetCodec} is generated next to the enum, which
+   * writes and reads the members as their wire ids.
+   */
+  private final boolean codecs;
+
+  /**
+   * Whether a counters companion such as {@code PlanetCounters} is generated next to the enum,
+   * which counts events per member in striped and padded cells.
+   */
+  private final boolean counters;
+
+  /**
+   * Whether a map companion such as {@code PlanetMap<V>} is generated next to the enum, which keeps
+   * a value per member in an array indexed by ordinal updated by compare and set.
+   */
+  private final boolean maps;
+
+  /**
+   * What is written for the enums: {@value EnumVisitorUtil#EMIT_SOURCE} for Java source files,
+   * {@value EnumVisitorUtil#EMIT_BYTECODE} for class files. It applies to the whole project, so
+   * there is no directive for it.
+   */
+  private final String emit;
+
+  GenerationOptions(
+      String dispatch,
+      List<String> primitiveVisitors,
+      boolean sets,
+      boolean parsers,
+      boolean tables,
+      boolean codecs,
+      boolean counters,
+      boolean maps,
+      String emit) {
+    this.dispatch = checkDispatch(dispatch);
+    this.primitiveVisitors = checkPrimitiveVisitors(primitiveVisitors);
+    this.sets = sets;
+    this.parsers = parsers;
+    this.tables = tables;
+    this.codecs = codecs;
+    this.counters = counters;
+    this.maps = maps;
+    this.emit = checkEmit(emit);
+  }
+
+  /** Getter for {@link #dispatch}. */
+  String getDispatch() {
+    return dispatch;
+  }
+
+  /** Returns true if {@code accept} switches on the ordinal instead of using class bodies. */
+  boolean isSwitchDispatch() {
+    return DISPATCH_SWITCH.equals(dispatch);
+  }
+
+  /** Getter for {@link #primitiveVisitors}. */
+  List<String> getPrimitiveVisitors() {
+    return primitiveVisitors;
+  }
+
+  /** Getter for {@link #sets}. */
+  boolean isSets() {
+    return sets;
+  }
+
+  /** Getter for {@link #parsers}. */
+  boolean isParsers() {
+    return parsers;
+  }
+
+  /** Getter for {@link #tables}. */
+  boolean isTables() {
+    return tables;
+  }
+
+  /** Getter for {@link #codecs}. */
+  boolean isCodecs() {
+    return codecs;
+  }
+
+  /** Getter for {@link #counters}. */
+  boolean isCounters() {
+    return counters;
+  }
+
+  /** Getter for {@link #maps}. */
+  boolean isMaps() {
+    return maps;
+  }
+
+  /**
+   * Returns true if the enum with the given numbers of members and columns is written as class
+   * files: when the emission is {@value EnumVisitorUtil#EMIT_BYTECODE}, or when javac cannot
+   * compile it.
+   */
+  boolean isBytecodeEmission(int memberCount, int columnCount) {
+    return EMIT_BYTECODE.equals(emit) || isTooLargeForJavac(memberCount, columnCount);
+  }
+
+  /**
+   * Returns true if javac cannot compile the enum with the given numbers of members and columns,
+   * so it is emitted as bytecode whatever the emission: an enum of more than {@link
+   * EnumVisitorUtil#SEGMENT_SIZE} members. javac also fills the arrays of the columns in the static
+   * initializer, each value taking about half the code of a constant, so columns lower that limit.
+   */
+  static boolean isTooLargeForJavac(int memberCount, int columnCount) {
+    return memberCount * (2 + columnCount) > 2 * SEGMENT_SIZE;
+  }
+
+  /** Returns true if the enums are written as source files, unless javac cannot compile them. */
+  boolean isSourceEmission() {
+    return EMIT_SOURCE.equals(emit);
+  }
+
+  /**
+   * Returns the options as a single word, such as {@code dispatch=switch;sets=true;...}, which the
+   * {@link DefinitionManifest} holds to compare the enums generated by two projects.
+   */
+  String signature() {
+    return DISPATCH_DIRECTIVE
+        + "="
+        + dispatch
+        + ";"
+        + PRIMITIVE_VISITORS_DIRECTIVE
+        + "="
+        + String.join(",", primitiveVisitors)
+        + ";"
+        + SETS_DIRECTIVE
+        + "="
+        + sets
+        + ";"
+        + PARSERS_DIRECTIVE
+        + "="
+        + parsers
+        + ";"
+        + TABLES_DIRECTIVE
+        + "="
+        + tables
+        + ";"
+        + CODECS_DIRECTIVE
+        + "="
+        + codecs
+        + ";"
+        + COUNTERS_DIRECTIVE
+        + "="
+        + counters
+        + ";"
+        + MAPS_DIRECTIVE
+        + "="
+        + maps
+        + ";emit="
+        + emit;
+  }
+
+  /** Returns the options for the given definition, with its directives applied. */
+  GenerationOptions forDefinition(EnumDefinition definition) {
+    String definitionDispatch = dispatch;
+    List<String> definitionPrimitiveVisitors = primitiveVisitors;
+    boolean definitionSets = sets;
+    boolean definitionParsers = parsers;
+    boolean definitionTables = tables;
+    boolean definitionCodecs = codecs;
+    boolean definitionCounters = counters;
+    boolean definitionMaps = maps;
+    for (Map.Entry<String, String> directive : definition.getDirectives().entrySet()) {
+      try {
+        switch (directive.getKey()) {
+          case DISPATCH_DIRECTIVE -> definitionDispatch = checkDispatch(directive.getValue());
+          case PRIMITIVE_VISITORS_DIRECTIVE -> definitionPrimitiveVisitors =
+              parsePrimitiveVisitors(directive.getValue());
+          case SETS_DIRECTIVE -> definitionSets = parseFlag(directive);
+          case PARSERS_DIRECTIVE -> definitionParsers = parseFlag(directive);
+          case TABLES_DIRECTIVE -> definitionTables = parseFlag(directive);
+          case CODECS_DIRECTIVE -> definitionCodecs = parseFlag(directive);
+          case COUNTERS_DIRECTIVE -> definitionCounters = parseFlag(directive);
+          case MAPS_DIRECTIVE -> definitionMaps = parseFlag(directive);
+          default -> throw new InvalidUserDataException(
+              "Unknown directive @" + directive.getKey());
+        }
+      } catch (InvalidUserDataException e) {
+        throw new EnumDefinitionException(
+            definition.getRelativePath(),
+            e.getMessage() + " in file " + definition.getRelativePath());
+      }
+    }
+    return new GenerationOptions(
+        definitionDispatch,
+        definitionPrimitiveVisitors,
+        definitionSets,
+        definitionParsers,
+        definitionTables,
+        definitionCodecs,
+        definitionCounters,
+        definitionMaps,
+        emit);
+  }
+
+  private static String checkDispatch(String dispatch) {
+    if (!DISPATCH_CONSTANT_BODIES.equals(dispatch) && !DISPATCH_SWITCH.equals(dispatch)) {
+      throw new InvalidUserDataException(
+          "Unsupported dispatch "
+              + dispatch
+              + ", expected one of: "
+              + DISPATCH_CONSTANT_BODIES
+              + ", "
+              + DISPATCH_SWITCH);
+    }
+    return dispatch;
+  }
+
+  private static String checkEmit(String emit) {
+    if (!EMIT_SOURCE.equals(emit) && !EMIT_BYTECODE.equals(emit)) {
+      throw new InvalidUserDataException(
+          "Unsupported emit " + emit + ", expected one of: " + EMIT_SOURCE + ", " + EMIT_BYTECODE);
+    }
+    return emit;
+  }
+
+  /**
+   * Parses the value of a directive switching a feature on or off: {@code true}, {@code false}, or
+   * nothing for {@code true}.
+   */
+  private static boolean parseFlag(Map.Entry<String, String> directive) {
+    String value = directive.getValue().trim();
+    if (EnumVisitorUtil.isEmpty(value) || "true".equals(value)) {
+      return true;
+    }
+    if ("false".equals(value)) {
+      return false;
+    }
+    throw new InvalidUserDataException(
+        "Unsupported value " + value + " of directive @" + directive.getKey());
+  }
+
+  /**
+   * Parses the value of a {@code @primitiveVisitors} directive: the primitive types separated by
+   * commas or blanks, or nothing for all of them.
+   */
+  private static List<String> parsePrimitiveVisitors(String value) {
+    if (EnumVisitorUtil.isEmpty(value)) {
+      return PRIMITIVE_TYPES;
+    }
+    return checkPrimitiveVisitors(Arrays.asList(value.trim().split("[,\\s]+")));
+  }
+
+  /** Validates the primitive types and puts them in their canonical order. */
+  private static List<String> checkPrimitiveVisitors(List<String> primitiveVisitors) {
+    for (String primitive : primitiveVisitors) {
+      if (!PRIMITIVE_TYPES.contains(primitive)) {
+        throw new InvalidUserDataException(
+            "Unsupported primitive visitor "
+                + primitive
+                + ", expected one of: "
+                + String.join(", ", PRIMITIVE_TYPES));
+      }
+    }
+    List<String> ordered = new ArrayList<>(PRIMITIVE_TYPES);
+    ordered.retainAll(primitiveVisitors);
+    return List.copyOf(ordered);
+  }
+}
@@ -0,0 +1,191 @@
+package me.karjan.enumvisitor;
+
+import static me.karjan.enumvisitor.EnumVisitorUtil.LINE_SEPARATOR;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import me.karjan.enumvisitor.GenerationSummary.DefinitionMetrics;
+import me.karjan.enumvisitor.GenerationSummary.Outcome;
+
+/**
+ * The report of one execution of {@link GenerateEnumVisitorsTask}, written as JSON for build
+ * dashboards and summarized in a line of the log. It holds the time spent parsing, validating and
+ * emitting each generated definition, its number of members and the bytes written for it, along
+ * with the totals of the execution and the number of definitions which were skipped because they
+ * did not change.
+ *
+ * <p>The durations are in nanoseconds. When generating in parallel, the totals of the phases add
+ * up the time of every worker, so they can exceed the duration of the execution.
+ */
+final class GenerationReport {
+
+  private final String taskPath;
+  private final boolean incremental;
+  private final boolean parallel;
+
+  /** The time the whole execution took. */
+  private final long durationNanos;
+
+  /** The time spent checking the wire ids against the lock file, before generating. */
+  private final long wireIdCheckNanos;
+
+  /** The number of definitions whose files were deleted because the definition was removed. */
+  private final int removed;
+
+  /** The number of definitions which were not generated because a dependency has the same. */
+  private final int provided;
+
+  /** The number of definitions which were not generated again because they did not change. */
+  private final int skipped;
+
+  private final GenerationSummary summary;
+
+  GenerationReport(
+      String taskPath,
+      boolean incremental,
+      boolean parallel,
+      long durationNanos,
+      long wireIdCheckNanos,
+      int removed,
+      int provided,
+      int skipped,
+      GenerationSummary summary) {
+    this.taskPath = taskPath;
+    this.incremental = incremental;
+    this.parallel = parallel;
+    this.durationNanos = durationNanos;
+    this.wireIdCheckNanos = wireIdCheckNanos;
+    this.removed = removed;
+    this.provided = provided;
+    this.skipped = skipped;
+    this.summary = summary;
+  }
+
+  /** Returns the line of the log summarizing the execution. */
+  String summaryLine() {
+    List<DefinitionMetrics> definitions = summary.getDefinitions();
+    return "Enum visitor definitions: "
+        + definitions.size()
+        + " generated with "
+        + total(definitions, DefinitionMetrics::members)
+        + " members, "
+        + skipped
+        + " skipped, "
+        + removed
+        + " removed in "
+        + millis(durationNanos)
+        + " (parse "
+        + millis(total(definitions, DefinitionMetrics::parseNanos))
+        + ", validate "
+        + millis(total(definitions, DefinitionMetrics::validateNanos))
+        + ", emit "
+        + millis(total(definitions, DefinitionMetrics::emitNanos))
+        + "). Enum visitor files: "
+        + summary
+        + ", "
+        + summary.getBytesWritten()
+        + " bytes written";
+  }
+
+  /** Writes the report as JSON to the given file, creating its directory if needed. */
+  void writeTo(Path file) throws IOException {
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    Files.write(file, toJson().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Returns the report as a JSON object. */
+  String toJson() {
+    List<DefinitionMetrics> definitions = summary.getDefinitions();
+    StringBuilder json = new StringBuilder();
+    json.append("{").append(LINE_SEPARATOR);
+    field(json, 1, "task", string(taskPath));
+    field(json, 1, "incremental", String.valueOf(incremental));
+    field(json, 1, "parallel", String.valueOf(parallel));
+    field(json, 1, "durationNanos", durationNanos);
+    field(json, 1, "wireIdCheckNanos", wireIdCheckNanos);
+    field(json, 1, "parseNanos", total(definitions, DefinitionMetrics::parseNanos));
+    field(json, 1, "validateNanos", total(definitions, DefinitionMetrics::validateNanos));
+    field(json, 1, "emitNanos", total(definitions, DefinitionMetrics::emitNanos));
+    field(json, 1, "definitionsGenerated", definitions.size());
+    field(json, 1, "definitionsSkipped", skipped);
+    field(json, 1, "definitionsRemoved", removed);
+    field(json, 1, "definitionsProvided", provided);
+    field(json, 1, "members", total(definitions, DefinitionMetrics::members));
+    field(json, 1, "filesWritten", summary.count(Outcome.WRITTEN));
+    field(json, 1, "filesUnchanged", summary.count(Outcome.UNCHANGED));
+    field(json, 1, "filesDeleted", summary.count(Outcome.DELETED));
+    field(json, 1, "bytesWritten", summary.getBytesWritten());
+    indent(json, 1).append(string("definitions")).append(": [");
+    for (int i = 0; i < definitions.size(); i++) {
+      DefinitionMetrics metrics = definitions.get(i);
+      json.append(i == 0 ? "" : ",").append(LINE_SEPARATOR);
+      indent(json, 2).append("{").append(LINE_SEPARATOR);
+      field(json, 3, "path", string(metrics.relativePath()));
+      field(json, 3, "members", metrics.members());
+      field(json, 3, "parseNanos", metrics.parseNanos());
+      field(json, 3, "validateNanos", metrics.validateNanos());
+      field(json, 3, "emitNanos", metrics.emitNanos());
+      field(json, 3, "filesWritten", metrics.filesWritten());
+      field(json, 3, "filesUnchanged", metrics.filesUnchanged());
+      indent(json, 3)
+          .append(string("bytesWritten"))
+          .append(": ")
+          .append(metrics.bytesWritten())
+          .append(LINE_SEPARATOR);
+      indent(json, 2).append("}");
+    }
+    json.append(definitions.isEmpty() ? "" : LINE_SEPARATOR + "  ").append("]");
+    json.append(LINE_SEPARATOR).append("}").append(LINE_SEPARATOR);
+    return json.toString();
+  }
+
+  /** Appends a numeric field of an object which is followed by another one. */
+  private static void field(StringBuilder json, int depth, String name, long value) {
+    field(json, depth, name, String.valueOf(value));
+  }
+
+  /** Appends a field of an object which is followed by another one. */
+  private static void field(StringBuilder json, int depth, String name, String value) {
+    indent(json, depth)
+        .append(string(name))
+        .append(": ")
+        .append(value)
+        .append(",")
+        .append(LINE_SEPARATOR);
+  }
+
+  private static StringBuilder indent(StringBuilder json, int depth) {
+    return json.append("  ".repeat(depth));
+  }
+
+  /** Returns the total of the given metric over the generated definitions. */
+  private static long total(
+      List<DefinitionMetrics> definitions, ToLongFunction<DefinitionMetrics> metric) {
+    return definitions.stream().mapToLong(metric).sum();
+  }
+
+  private static String millis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos) + " ms";
+  }
+
+  /** Returns the given value as a JSON string, escaping the quotes and control characters. */
+  private static String string(String value) {
+    StringBuilder string = new StringBuilder("\"");
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        string.append('\\').append(c);
+      } else if (c < ' ') {
+        string.append(String.format("\\u%04x", (int) c));
+      } else {
+        string.append(c);
+      }
+    }
+    return string.append('"').toString();
+  }
+}
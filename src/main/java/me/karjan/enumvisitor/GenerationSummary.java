@@ -0,0 +1,168 @@
+package me.karjan.enumvisitor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of what happened to the generated files during one execution of {@link
+ * GenerateEnumVisitorsTask}: whether they were written, left untouched because their contents did
+ * not change, or deleted. Worker actions write their summary to a file which the task merges back.
+ *
+ * <p>It also keeps the metrics of every generated definition, which end up in the {@link
+ * GenerationReport}.
+ */
+final class GenerationSummary {
+
+  private static final String FIELD_SEPARATOR = "\t";
+
+  /** The first field of the lines of a summary file holding the metrics of a definition. */
+  private static final String DEFINITION = "DEFINITION";
+
+  /** What happened to a generated file. */
+  enum Outcome {
+    WRITTEN,
+    UNCHANGED,
+    DELETED
+  }
+
+  /**
+   * The metrics of the generation of a definition: the time spent parsing it, validating it and
+   * emitting its files, and what happened to these files.
+   */
+  record DefinitionMetrics(
+      String relativePath,
+      int members,
+      long parseNanos,
+      long validateNanos,
+      long emitNanos,
+      int filesWritten,
+      int filesUnchanged,
+      long bytesWritten) {}
+
+  /** The outcome of every generated file, keyed by its path relative to the destination. */
+  private final Map<String, Outcome> outcomes = new LinkedHashMap<>();
+
+  /** The number of generated files with each outcome. */
+  private final Map<Outcome, Integer> counts = new EnumMap<>(Outcome.class);
+
+  /** The metrics of the generated definitions, in the order they were generated. */
+  private final List<DefinitionMetrics> definitions = new ArrayList<>();
+
+  /** The number of bytes of the written files. */
+  private long bytesWritten;
+
+  /** Records the outcome for the generated file at the given path, relative to the destination. */
+  void record(Outcome outcome, String outputPath) {
+    Outcome previous = outcomes.put(outputPath, outcome);
+    if (previous != null) {
+      counts.merge(previous, -1, Integer::sum);
+    }
+    counts.merge(outcome, 1, Integer::sum);
+  }
+
+  /** Records the given number of bytes written to the generated file at the given path. */
+  void recordWritten(String outputPath, int bytes) {
+    record(Outcome.WRITTEN, outputPath);
+    bytesWritten += bytes;
+  }
+
+  /** Records the metrics of a generated definition. */
+  void recordDefinition(DefinitionMetrics metrics) {
+    definitions.add(metrics);
+  }
+
+  /** Returns true if the file at the given path, relative to the destination, is up to date. */
+  boolean isOutput(String outputPath) {
+    Outcome outcome = outcomes.get(outputPath);
+    return outcome != null && outcome != Outcome.DELETED;
+  }
+
+  /** Returns the number of generated files with the given outcome. */
+  int count(Outcome outcome) {
+    return counts.getOrDefault(outcome, 0);
+  }
+
+  /** Getter for {@link #bytesWritten}. */
+  long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  /** Getter for {@link #definitions}. */
+  List<DefinitionMetrics> getDefinitions() {
+    return definitions;
+  }
+
+  /** Merges the summary of a worker action into this one. */
+  void add(GenerationSummary other) {
+    other.outcomes.forEach((outputPath, outcome) -> record(outcome, outputPath));
+    definitions.addAll(other.definitions);
+    bytesWritten += other.bytesWritten;
+  }
+
+  /** Writes this summary to the given file, so it can be read back by {@link #readFrom(Path)}. */
+  void writeTo(Path file) throws IOException {
+    List<String> lines = new ArrayList<>();
+    outcomes.forEach((outputPath, outcome) -> lines.add(outcome + FIELD_SEPARATOR + outputPath));
+    for (DefinitionMetrics metrics : definitions) {
+      lines.add(
+          String.join(
+              FIELD_SEPARATOR,
+              DEFINITION,
+              String.valueOf(metrics.members()),
+              String.valueOf(metrics.parseNanos()),
+              String.valueOf(metrics.validateNanos()),
+              String.valueOf(metrics.emitNanos()),
+              String.valueOf(metrics.filesWritten()),
+              String.valueOf(metrics.filesUnchanged()),
+              String.valueOf(metrics.bytesWritten()),
+              metrics.relativePath()));
+    }
+    Files.write(file, lines, StandardCharsets.UTF_8);
+  }
+
+  /** Reads a summary written by {@link #writeTo(Path)}. */
+  static GenerationSummary readFrom(Path file) throws IOException {
+    GenerationSummary summary = new GenerationSummary();
+    for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+      if (line.startsWith(DEFINITION + FIELD_SEPARATOR)) {
+        // The path comes last, so the limit keeps any separator in it
+        String[] fields = line.split(FIELD_SEPARATOR, 9);
+        DefinitionMetrics metrics =
+            new DefinitionMetrics(
+                fields[8],
+                Integer.parseInt(fields[1]),
+                Long.parseLong(fields[2]),
+                Long.parseLong(fields[3]),
+                Long.parseLong(fields[4]),
+                Integer.parseInt(fields[5]),
+                Integer.parseInt(fields[6]),
+                Long.parseLong(fields[7]));
+        summary.recordDefinition(metrics);
+        // Every file is written while generating a definition
+        summary.bytesWritten += metrics.bytesWritten();
+        continue;
+      }
+      int separator = line.indexOf(FIELD_SEPARATOR);
+      summary.record(
+          Outcome.valueOf(line.substring(0, separator)), line.substring(separator + 1));
+    }
+    return summary;
+  }
+
+  @Override
+  public String toString() {
+    return count(Outcome.WRITTEN)
+        + " written, "
+        + count(Outcome.UNCHANGED)
+        + " unchanged, "
+        + count(Outcome.DELETED)
+        + " deleted";
+  }
+}
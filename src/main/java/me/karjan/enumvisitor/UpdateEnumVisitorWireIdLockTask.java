@@ -0,0 +1,84 @@
+package me.karjan.enumvisitor;
+
+import static me.karjan.enumvisitor.EnumVisitorUtil.VISITOR_FILE_EXT;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.IgnoreEmptyDirectories;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.UntrackedTask;
+
+/**
+ * A gradle Task which adds the new wire ids of the definitions of a source set to its {@link
+ * WireIdLock}, which {@link GenerateEnumVisitorsTask} only checks them against. The same checks
+ * apply, so the update never changes, reuses or removes a locked id, and the lock is only written
+ * when ids were added.
+ */
+@UntrackedTask(because = "It updates the lock file it reads, which is checked in")
+public abstract class UpdateEnumVisitorWireIdLockTask extends DefaultTask {
+
+  /** The location of the source definition files. It is fine for the directory not to exist. */
+  @InputFiles
+  @IgnoreEmptyDirectories
+  @Optional
+  @PathSensitive(PathSensitivity.RELATIVE)
+  public abstract DirectoryProperty getSource();
+
+  /** The lock file of the wire ids, which is created if it does not exist. */
+  @Internal
+  public abstract RegularFileProperty getWireIdLock();
+
+  /** The cache of the parsed definitions shared with the generation tasks. */
+  @Internal
+  public abstract Property<EnumDefinitionCache> getDefinitionCache();
+
+  /** Checks the wire ids of every definition against the lock, and adds the new ones to it. */
+  @TaskAction
+  void updateWireIdLock() {
+    SortedMap<String, File> definitions = new TreeMap<>();
+    if (getSource().isPresent()) {
+      getSource()
+          .getAsFileTree()
+          .matching(pattern -> pattern.include("**/*" + VISITOR_FILE_EXT))
+          .visit(
+              details -> {
+                if (!details.isDirectory()) {
+                  definitions.put(details.getRelativePath().getPathString(), details.getFile());
+                }
+              });
+    }
+    try {
+      WireIdLock wireIdLock = WireIdLock.read(getWireIdLock().get().getAsFile().toPath());
+      Set<String> enumNames = new HashSet<>();
+      for (Map.Entry<String, File> entry : definitions.entrySet()) {
+        String relativePath = entry.getKey();
+        String enumName = EnumVisitorGenerator.enumQualifiedName(relativePath);
+        enumNames.add(enumName);
+        EnumDefinition definition =
+            EnumVisitorGenerator.parse(
+                entry.getValue(), relativePath, getDefinitionCache().getOrNull());
+        wireIdLock.update(
+            relativePath, enumName, definition.getMembers(), definition.getWireIds());
+      }
+      wireIdLock.checkRemovedExcept(enumNames);
+      wireIdLock.writeIfChanged();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,296 @@
+package me.karjan.enumvisitor;
+
+import static me.karjan.enumvisitor.EnumVisitorUtil.LINE_SEPARATOR;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.gradle.api.InvalidUserDataException;
+
+/**
+ * The wire ids of the enums as they were when last generated, kept in a lock file which is checked
+ * in with the definitions. A wire id which is written by one version of an enum may be read by
+ * another, so an id which was locked can neither be removed nor given to another member. The
+ * generation only checks the wire ids against the lock, new ones are added to it by a dedicated
+ * task.
+ *
+ * <p>Each line of the file holds the qualified name of an enum, a wire id and its member, such as
+ * {@code pkgA.pkg1.Planet 3 Earth}. An id which was deliberately removed is kept as retired, with
+ * {@value #RETIRED} instead of the member, so it is not reused. The lines are sorted, so the file
+ * does not depend on the order the definitions were generated in.
+ */
+final class WireIdLock {
+
+  /** The member of a retired wire id, which no member can take again. */
+  static final String RETIRED = "-";
+
+  private static final String COMMENT = "#";
+
+  private static final String HEADER =
+      "# The wire ids of the generated enums. Check this file in: a locked id can neither be"
+          + LINE_SEPARATOR
+          + "# removed nor reused. To remove a member, retire its id by replacing the member with "
+          + RETIRED
+          + "."
+          + LINE_SEPARATOR;
+
+  /** The file the lock is read from and written to. */
+  private final Path file;
+
+  /** The locked members, keyed by their wire id, keyed by the qualified name of their enum. */
+  private final SortedMap<String, SortedMap<Integer, String>> membersByEnum;
+
+  /**
+   * The enums whose wire ids were added since the lock was read, keyed by their qualified name,
+   * with the path of their definition.
+   */
+  private final SortedMap<String, String> addedEnums = new TreeMap<>();
+
+  private WireIdLock(Path file, SortedMap<String, SortedMap<Integer, String>> membersByEnum) {
+    this.file = file;
+    this.membersByEnum = membersByEnum;
+  }
+
+  /** Reads the lock from the given file, which is empty if the file does not exist. */
+  static WireIdLock read(Path file) throws IOException {
+    SortedMap<String, SortedMap<Integer, String>> membersByEnum = new TreeMap<>();
+    if (!Files.isRegularFile(file)) {
+      return new WireIdLock(file, membersByEnum);
+    }
+    List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    for (int i = 0; i < lines.size(); i++) {
+      String line = lines.get(i).trim();
+      if (line.isEmpty() || line.startsWith(COMMENT)) {
+        continue;
+      }
+      String[] fields = line.split("\\s+");
+      Integer wireId = fields.length == 3 ? parseWireId(fields[1]) : null;
+      if (wireId == null) {
+        throw new InvalidUserDataException(
+            file + ":" + (i + 1) + ": Expected an enum, a wire id and a member, not " + line);
+      }
+      membersByEnum.computeIfAbsent(fields[0], key -> new TreeMap<>()).put(wireId, fields[2]);
+    }
+    return new WireIdLock(file, membersByEnum);
+  }
+
+  private static Integer parseWireId(String value) {
+    try {
+      int wireId = Integer.parseInt(value);
+      return wireId >= 0 ? wireId : null;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /** Returns true if the given enum has locked wire ids. */
+  boolean contains(String enumName) {
+    return membersByEnum.containsKey(enumName);
+  }
+
+  /**
+   * Checks the wire ids of the given enum, in the order of its members, against the locked ones,
+   * and locks the new ones. An enum without wire ids must not have any locked.
+   */
+  void update(String relativePath, String enumName, List<String> members, List<Integer> wireIds) {
+    SortedMap<Integer, String> locked = membersByEnum.get(enumName);
+    if (wireIds.isEmpty()) {
+      if (locked != null) {
+        throw removedEnum(relativePath, enumName, "no longer declares wire ids");
+      }
+      return;
+    }
+    SortedMap<Integer, String> declared = new TreeMap<>();
+    Map<String, Integer> declaredIds = new HashMap<>();
+    for (int ordinal = 0; ordinal < members.size(); ordinal++) {
+      declared.put(wireIds.get(ordinal), members.get(ordinal));
+      declaredIds.put(members.get(ordinal), wireIds.get(ordinal));
+    }
+    if (locked == null) {
+      membersByEnum.put(enumName, new TreeMap<>(declared));
+      addedEnums.put(enumName, relativePath);
+      return;
+    }
+    for (Map.Entry<Integer, String> entry : locked.entrySet()) {
+      checkLocked(relativePath, enumName, entry.getKey(), entry.getValue(), declared, declaredIds);
+    }
+    int lockedWidth = EnumCodecTemplate.fixedWidth(locked.lastKey());
+    int maxWireId = declared.lastKey();
+    if (EnumCodecTemplate.fixedWidth(maxWireId) > lockedWidth) {
+      throw new EnumDefinitionException(
+          relativePath,
+          "The wire id "
+              + maxWireId
+              + " of "
+              + declared.get(maxWireId)
+              + " grows the fixed width of the wire ids of "
+              + enumName
+              + " from "
+              + lockedWidth
+              + " to "
+              + EnumCodecTemplate.fixedWidth(maxWireId)
+              + " bytes, which breaks the fixed encoding. Remove the lines of "
+              + enumName
+              + " from "
+              + file.getFileName()
+              + " to accept it");
+    }
+    for (Map.Entry<Integer, String> entry : declared.entrySet()) {
+      if (locked.putIfAbsent(entry.getKey(), entry.getValue()) == null) {
+        addedEnums.put(enumName, relativePath);
+      }
+    }
+  }
+
+  /** Fails if the given locked wire id is not declared by the same member. */
+  private void checkLocked(
+      String relativePath,
+      String enumName,
+      int wireId,
+      String lockedMember,
+      Map<Integer, String> declared,
+      Map<String, Integer> declaredIds) {
+    String member = declared.get(wireId);
+    if (lockedMember.equals(member)) {
+      return;
+    }
+    String message;
+    if (RETIRED.equals(lockedMember)) {
+      if (member == null) {
+        return;
+      }
+      message =
+          "The wire id "
+              + wireId
+              + " of "
+              + enumName
+              + " is retired, it cannot be reused by "
+              + member;
+    } else if (member != null) {
+      message =
+          "The wire id "
+              + wireId
+              + " of "
+              + enumName
+              + " belongs to "
+              + lockedMember
+              + ", it cannot be reused by "
+              + member
+              + ". If "
+              + member
+              + " is a rename of "
+              + lockedMember
+              + ", rename it in "
+              + file.getFileName()
+              + " too";
+    } else if (declaredIds.containsKey(lockedMember)) {
+      message =
+          "The wire id of "
+              + lockedMember
+              + " of "
+              + enumName
+              + " changed from "
+              + wireId
+              + " to "
+              + declaredIds.get(lockedMember);
+    } else {
+      message =
+          "The wire id "
+              + wireId
+              + " of "
+              + lockedMember
+              + " of "
+              + enumName
+              + " was removed. Retire it by replacing "
+              + lockedMember
+              + " with "
+              + RETIRED
+              + " in "
+              + file.getFileName();
+    }
+    throw new EnumDefinitionException(relativePath, message);
+  }
+
+  /** Fails if the given enum, whose definition was removed, has locked wire ids. */
+  void checkRemoved(String relativePath, String enumName) {
+    if (membersByEnum.containsKey(enumName)) {
+      throw removedEnum(relativePath, enumName, "was removed");
+    }
+  }
+
+  /**
+   * Fails if an enum other than the given ones has locked wire ids, which means that its definition
+   * was removed.
+   */
+  void checkRemovedExcept(Set<String> enumNames) {
+    for (String enumName : membersByEnum.keySet()) {
+      if (!enumNames.contains(enumName)) {
+        String relativePath =
+            enumName.replace(
+                    EnumVisitorUtil.PACKAGE_SEPARATOR, EnumVisitorUtil.RELATIVE_PATH_SEPARATOR)
+                + EnumVisitorUtil.VISITOR_FILE_EXT;
+        checkRemoved(relativePath, enumName);
+      }
+    }
+  }
+
+  private EnumDefinitionException removedEnum(String relativePath, String enumName, String what) {
+    return new EnumDefinitionException(
+        relativePath,
+        "The enum "
+            + enumName
+            + ", which has locked wire ids, "
+            + what
+            + ". Remove its lines from "
+            + file.getFileName()
+            + " if its ids are no longer read anywhere");
+  }
+
+  /**
+   * Fails if wire ids were added since the lock was read, naming the task which adds them to the
+   * lock.
+   */
+  void checkNothingAdded(String updateTaskName) {
+    if (addedEnums.isEmpty()) {
+      return;
+    }
+    String enumName = addedEnums.firstKey();
+    throw new EnumDefinitionException(
+        addedEnums.get(enumName),
+        "The wire ids of "
+            + enumName
+            + " are not all locked in "
+            + file.getFileName()
+            + ". Run the "
+            + updateTaskName
+            + " task to lock them, and check the lock in");
+  }
+
+  /** Writes the lock to its file if wire ids were added since it was read. */
+  void writeIfChanged() throws IOException {
+    if (addedEnums.isEmpty()) {
+      return;
+    }
+    StringBuilder contents = new StringBuilder(HEADER);
+    for (Map.Entry<String, SortedMap<Integer, String>> entry : membersByEnum.entrySet()) {
+      for (Map.Entry<Integer, String> member : entry.getValue().entrySet()) {
+        contents
+            .append(entry.getKey())
+            .append(' ')
+            .append(member.getKey())
+            .append(' ')
+            .append(member.getValue())
+            .append(LINE_SEPARATOR);
+      }
+    }
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    Files.write(file, contents.toString().getBytes(StandardCharsets.UTF_8));
+  }
+}
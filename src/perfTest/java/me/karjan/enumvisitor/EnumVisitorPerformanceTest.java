@@ -0,0 +1,296 @@
+package me.karjan.enumvisitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Measures how {@code generateEnumVisitors} scales with synthetic trees of definitions, and fails
+ * when a scenario is slower, or uses more heap, than its baseline allows.
+ *
+ * <p>Each size, such as {@code 1000x100} for a thousand definitions of a hundred members, is
+ * measured in four scenarios: a clean generation, a build in which nothing changed, the edit of a
+ * single definition and the deletion of one. A scenario runs {@value #DEFAULT_ITERATIONS} times
+ * after a warm up, and its median wall-clock time and largest heap peak are compared with {@value
+ * #BASELINES}. The heap peak is the sum of the peaks of the heap memory pools of the daemon,
+ * which the build resets when it starts.
+ *
+ * <p>The baselines depend on the machine they were recorded on, so the measurements are written in
+ * the same format to the file named by the {@code perfTest.results} system property, to record new
+ * ones. The sizes, iterations and tolerance are changed with the {@code perfTest.sizes}, {@code
+ * perfTest.iterations} and {@code perfTest.tolerance} system properties.
+ */
+public class EnumVisitorPerformanceTest {
+
+  /** The resource holding the baselines, keyed by scenario, size and measure. */
+  private static final String BASELINES = "performance-baselines.properties";
+
+  private static final String DEFAULT_SIZES = "100x10,1000x100,10000x10,20x5000";
+
+  private static final int DEFAULT_ITERATIONS = 3;
+
+  /** How many times its baseline a measure may be before it fails. */
+  private static final double DEFAULT_TOLERANCE = 1.5;
+
+  /** The time a measure may exceed its baseline by, whatever the tolerance, to absorb jitter. */
+  private static final long MIN_SLACK_MILLIS = 100;
+
+  private static final String HEAP_PEAK_PREFIX = "Enum visitor heap peak: ";
+
+  private static final Pattern HEAP_PEAK = Pattern.compile(HEAP_PEAK_PREFIX + "(\\d+)");
+
+  private static final String BUILD_FILE =
+      """
+      import java.lang.management.ManagementFactory
+      import java.lang.management.MemoryType
+
+      plugins {
+        id 'me.karjan.enumvisitor'
+      }
+
+      ManagementFactory.memoryPoolMXBeans.each { it.resetPeakUsage() }
+
+      def reportHeapPeak = tasks.register('reportHeapPeak') {
+        doLast {
+          long peak = ManagementFactory.memoryPoolMXBeans
+              .findAll { it.type == MemoryType.HEAP }
+              .sum { it.peakUsage.used }
+          println "%s${peak}"
+        }
+      }
+
+      tasks.named('generateEnumVisitors') {
+        finalizedBy reportHeapPeak
+      }
+      """
+          .formatted(HEAP_PEAK_PREFIX);
+
+  @Rule public TemporaryFolder tempProjectDir = new TemporaryFolder();
+
+  @Test
+  public void testGenerateVisitors_scaling() throws IOException {
+    Properties baselines = new Properties();
+    try (InputStream input = getClass().getResourceAsStream(BASELINES)) {
+      baselines.load(input);
+    }
+    int iterations = Integer.getInteger("perfTest.iterations", DEFAULT_ITERATIONS);
+    double tolerance =
+        Double.parseDouble(
+            System.getProperty("perfTest.tolerance", String.valueOf(DEFAULT_TOLERANCE)));
+    Properties results = new Properties();
+    List<String> regressions = new ArrayList<>();
+    for (String size : System.getProperty("perfTest.sizes", DEFAULT_SIZES).split(",")) {
+      String[] counts = size.trim().split("x");
+      Tree tree =
+          new Tree(
+              tempProjectDir.newFolder(size.trim()),
+              Integer.parseInt(counts[0]),
+              Integer.parseInt(counts[1]));
+      for (Measure measure : tree.measureScenarios(iterations)) {
+        measure.record(results);
+        measure.compare(baselines, tolerance, regressions);
+        System.out.println(measure);
+      }
+    }
+    String resultsFile = System.getProperty("perfTest.results");
+    if (resultsFile != null) {
+      File file = new File(resultsFile);
+      file.getParentFile().mkdirs();
+      try (OutputStream output = Files.newOutputStream(file.toPath())) {
+        results.store(output, "Measured by " + getClass().getSimpleName());
+      }
+    }
+    Assert.assertTrue(
+        "Slower or larger than the baselines:\n" + String.join("\n", regressions),
+        regressions.isEmpty());
+  }
+
+  /** A synthetic project of a number of definitions, each of the same number of members. */
+  private static final class Tree {
+
+    private final File sourceDir;
+    private final int definitions;
+    private final int members;
+    private final GradleRunner runner;
+
+    Tree(File projectDir, int definitions, int members) throws IOException {
+      this.sourceDir = new File(projectDir, "src/main/enumvis");
+      this.definitions = definitions;
+      this.members = members;
+      Files.writeString(new File(projectDir, "settings.gradle").toPath(), "");
+      Files.writeString(new File(projectDir, "build.gradle").toPath(), BUILD_FILE);
+      // The same heap for every size, so they share a daemon and their peaks compare
+      Files.writeString(
+          new File(projectDir, "gradle.properties").toPath(), "org.gradle.jvmargs=-Xmx1g\n");
+      for (int i = 0; i < definitions; i++) {
+        writeDefinition(i, members);
+      }
+      this.runner = GradleRunner.create().withProjectDir(projectDir).withPluginClasspath();
+    }
+
+    /** Returns the name of this size, such as {@code 1000x100}. */
+    String size() {
+      return definitions + "x" + members;
+    }
+
+    /** Spreads the definitions over packages of at most a hundred. */
+    private File definitionFile(int index) {
+      return new File(sourceDir, "perf/p" + index / 100 + "/Definition" + index + ".v");
+    }
+
+    private void writeDefinition(int index, int memberCount) throws IOException {
+      StringBuilder contents = new StringBuilder();
+      for (int member = 0; member < memberCount; member++) {
+        contents.append("Member").append(member).append('\n');
+      }
+      File file = definitionFile(index);
+      file.getParentFile().mkdirs();
+      Files.writeString(file.toPath(), contents, StandardCharsets.UTF_8);
+    }
+
+    List<Measure> measureScenarios(int iterations) throws IOException {
+      // Starts the daemon and compiles the build script, then settles the outputs
+      build(TaskOutcome.SUCCESS, "generateEnumVisitors");
+      build(null, "generateEnumVisitors");
+      List<Measure> measures = new ArrayList<>();
+
+      // A clean build parses every definition, as in a new daemon
+      Measure clean = new Measure("clean", size());
+      for (int i = 0; i < iterations; i++) {
+        clean.add(
+            build(
+                TaskOutcome.SUCCESS,
+                "generateEnumVisitors",
+                "--rerun-tasks",
+                "-PenumVisitor.definitionCacheSize=0"));
+      }
+      measures.add(clean);
+
+      Measure noOp = new Measure("noOp", size());
+      for (int i = 0; i < iterations; i++) {
+        noOp.add(build(TaskOutcome.UP_TO_DATE, "generateEnumVisitors"));
+      }
+      measures.add(noOp);
+
+      Measure edit = new Measure("edit", size());
+      for (int i = 0; i < iterations; i++) {
+        writeDefinition(i % definitions, members + 1 + i);
+        edit.add(build(TaskOutcome.SUCCESS, "generateEnumVisitors"));
+      }
+      measures.add(edit);
+
+      Measure delete = new Measure("delete", size());
+      for (int i = 0; i < iterations; i++) {
+        Files.delete(definitionFile(definitions - 1 - i).toPath());
+        delete.add(build(TaskOutcome.SUCCESS, "generateEnumVisitors"));
+      }
+      measures.add(delete);
+      return measures;
+    }
+
+    /** Runs a build, checking the outcome of the generation unless null, and measures it. */
+    private long[] build(TaskOutcome expected, String... arguments) {
+      long start = System.nanoTime();
+      BuildResult result = runner.withArguments(arguments).build();
+      long millis = (System.nanoTime() - start) / 1_000_000;
+      if (expected != null) {
+        Assert.assertEquals(
+            size() + " " + Arrays.toString(arguments),
+            expected,
+            result.task(":generateEnumVisitors").getOutcome());
+      }
+      Matcher heapPeak = HEAP_PEAK.matcher(result.getOutput());
+      Assert.assertTrue("The build did not report its heap peak", heapPeak.find());
+      return new long[] {millis, Long.parseLong(heapPeak.group(1)) / (1024 * 1024)};
+    }
+  }
+
+  /** The wall-clock times and heap peaks of the iterations of a scenario. */
+  private static final class Measure {
+
+    private final String scenario;
+    private final String size;
+    private final List<Long> millis = new ArrayList<>();
+    private long heapMegabytes;
+
+    Measure(String scenario, String size) {
+      this.scenario = scenario;
+      this.size = size;
+    }
+
+    void add(long[] measured) {
+      millis.add(measured[0]);
+      heapMegabytes = Math.max(heapMegabytes, measured[1]);
+    }
+
+    long medianMillis() {
+      List<Long> sorted = new ArrayList<>(millis);
+      sorted.sort(null);
+      return sorted.get(sorted.size() / 2);
+    }
+
+    private String key(String measure) {
+      return scenario + "." + size + "." + measure;
+    }
+
+    void record(Properties results) {
+      results.setProperty(key("millis"), String.valueOf(medianMillis()));
+      results.setProperty(key("heapMegabytes"), String.valueOf(heapMegabytes));
+    }
+
+    /** Adds a line to the given regressions for each measure beyond its baseline. */
+    void compare(Properties baselines, double tolerance, List<String> regressions) {
+      compare(baselines, "millis", medianMillis(), tolerance, MIN_SLACK_MILLIS, regressions);
+      compare(baselines, "heapMegabytes", heapMegabytes, tolerance, 0, regressions);
+    }
+
+    private void compare(
+        Properties baselines,
+        String measure,
+        long measured,
+        double tolerance,
+        long slack,
+        List<String> regressions) {
+      String baseline = baselines.getProperty(key(measure));
+      if (baseline == null) {
+        return;
+      }
+      long expected = Long.parseLong(baseline);
+      long limit = Math.max((long) (expected * tolerance), expected + slack);
+      if (measured > limit) {
+        regressions.add(
+            key(measure) + ": " + measured + ", baseline " + expected + ", limit " + limit);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return scenario
+          + " "
+          + size
+          + ": "
+          + medianMillis()
+          + " ms of "
+          + millis
+          + ", heap peak "
+          + heapMegabytes
+          + " MB";
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package me.karjan.enumvisitor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Automated unit tests for {@link EnumCodecTemplate}. */
+public class EnumCodecTemplateTest {
+
+  @Test
+  public void test_fixedWidth_withSingleByteIds() {
+    Assert.assertEquals(1, EnumCodecTemplate.fixedWidth(0));
+    Assert.assertEquals(1, EnumCodecTemplate.fixedWidth(0xFF));
+  }
+
+  @Test
+  public void test_fixedWidth_withTwoByteIds() {
+    Assert.assertEquals(2, EnumCodecTemplate.fixedWidth(0x100));
+    Assert.assertEquals(2, EnumCodecTemplate.fixedWidth(0xFFFF));
+  }
+
+  @Test
+  public void test_fixedWidth_withFourByteIds() {
+    Assert.assertEquals(4, EnumCodecTemplate.fixedWidth(0x10000));
+    Assert.assertEquals(4, EnumCodecTemplate.fixedWidth(Integer.MAX_VALUE));
+  }
+}
@@ -0,0 +1,115 @@
+package me.karjan.enumvisitor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Automated unit tests for {@link EnumDefinitionParser}. */
+public class EnumDefinitionParserTest {
+
+  private static final String PATH = "pkgA/Planet.v";
+
+  private static EnumDefinition parse(String contents) {
+    return EnumDefinitionParser.parse(PATH, contents.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void assertError(String contents, String expectedMessage) {
+    EnumDefinitionException e =
+        Assert.assertThrows(EnumDefinitionException.class, () -> parse(contents));
+    Assert.assertEquals(expectedMessage, e.getMessage());
+    Assert.assertEquals(PATH, e.getDefinitionPath());
+  }
+
+  @Test
+  public void test_parse_withByteOrderMark() {
+    Assert.assertEquals(List.of("Mercury", "Venus"), parse("\uFEFFMercury\nVenus\n").getMembers());
+  }
+
+  @Test
+  public void test_parse_withCarriageReturns() {
+    Assert.assertEquals(List.of("Mercury", "Venus"), parse("Mercury\rVenus\r").getMembers());
+  }
+
+  @Test
+  public void test_parse_withCarriageReturnLineFeeds() {
+    Assert.assertEquals(
+        List.of("Mercury", "Venus", "Earth"), parse("Mercury\r\n\r\nVenus\r\nEarth").getMembers());
+  }
+
+  @Test
+  public void test_parse_withComments() {
+    EnumDefinition definition = parse("# The planets\nMercury # first\n  \n\tVenus#second\n#\n");
+    Assert.assertEquals(List.of("Mercury", "Venus"), definition.getMembers());
+    Assert.assertTrue(definition.getWireIds().isEmpty());
+  }
+
+  @Test
+  public void test_parse_withWireIds() {
+    Assert.assertEquals(List.of(3, 0), parse("Mercury = 3\nVenus=0 # none\n").getWireIds());
+  }
+
+  @Test
+  public void test_parse_keepsDirectivesInOrder() {
+    EnumDefinition definition = parse("@tables\n@sets false\n@dispatch switch\nMercury\n");
+    Assert.assertEquals(
+        List.of("tables", "sets", "dispatch"), List.copyOf(definition.getDirectives().keySet()));
+    Assert.assertEquals("false", definition.getDirectives().get("sets"));
+  }
+
+  @Test
+  public void test_parse_withKeyword() {
+    assertError(
+        "Mercury\nclass\n",
+        PATH + ":2:1: class is not a valid identifier for Java, it is a reserved word");
+  }
+
+  @Test
+  public void test_parse_withLiteral() {
+    assertError(
+        "  null\n", PATH + ":1:3: null is not a valid identifier for Java, it is a reserved word");
+  }
+
+  @Test
+  public void test_parse_withColumnNamedLikeEnumMethod() {
+    assertError(
+        "Mercury ordinal:int=1\n",
+        PATH + ":1:9: The column ordinal clashes with the method ordinal() of the enum");
+  }
+
+  @Test
+  public void test_parse_withInvalidCharacter() {
+    assertError(
+        "Mercury\r\n\tVen-us\r\n",
+        PATH + ":2:5: Ven-us is not a valid identifier for Java, unexpected character -");
+  }
+
+  @Test
+  public void test_parse_withDuplicateMember() {
+    assertError(
+        "Mercury\n# comment\nMercury\n",
+        PATH + ":3:1: Duplicate line in file: Mercury is already defined at line 1");
+  }
+
+  @Test
+  public void test_declaresWireIds_withWireIds() {
+    Assert.assertTrue(EnumDefinitionParser.declaresWireIds(bytes("Mercury = 1\n")));
+    Assert.assertTrue(EnumDefinitionParser.declaresWireIds(bytes("Mercury=1 weight:double=1\n")));
+  }
+
+  @Test
+  public void test_declaresWireIds_withColumnsOnly() {
+    Assert.assertFalse(
+        EnumDefinitionParser.declaresWireIds(bytes("Mercury weight:double=0.38\nVenus\n")));
+  }
+
+  @Test
+  public void test_declaresWireIds_withCommentsAndDirectives() {
+    Assert.assertFalse(
+        EnumDefinitionParser.declaresWireIds(bytes("@dispatch switch\n# a = b\nMercury # = 1\n")));
+  }
+
+  private static byte[] bytes(String contents) {
+    return contents.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,99 @@
+package me.karjan.enumvisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import me.karjan.enumvisitor.EnumParseTree.Branch;
+import me.karjan.enumvisitor.EnumParseTree.Call;
+import me.karjan.enumvisitor.EnumParseTree.Leaf;
+import me.karjan.enumvisitor.EnumParseTree.Node;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Automated unit tests for {@link EnumParseTree}. */
+public class EnumParseTreeTest {
+
+  /** Returns the member the segments return for the given input, as the parse methods do. */
+  private static String lookup(List<Node> segments, String input) {
+    Node node = segments.get(0);
+    while (true) {
+      if (node instanceof Branch branch) {
+        int key =
+            branch.position() == EnumParseTree.LENGTH
+                ? input.length()
+                : input.charAt(branch.position());
+        node = branch.cases().get(key);
+        if (node == null) {
+          return null;
+        }
+      } else if (node instanceof Call call) {
+        node = segments.get(call.segment());
+      } else {
+        Leaf leaf = (Leaf) node;
+        for (int position : leaf.positions()) {
+          if (input.charAt(position) != leaf.member().charAt(position)) {
+            return null;
+          }
+        }
+        return leaf.member();
+      }
+    }
+  }
+
+  private static List<String> members(int count, String prefix) {
+    List<String> members = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      members.add(prefix + i);
+    }
+    return members;
+  }
+
+  @Test
+  public void test_segments_withFewMembers() {
+    List<String> members = List.of("Mercury", "Venus", "Earth", "Mars", "Jupiter");
+    List<Node> segments = EnumParseTree.segments(members);
+    Assert.assertEquals(1, segments.size());
+    for (String member : members) {
+      Assert.assertEquals(member, lookup(segments, member));
+    }
+    Assert.assertNull(lookup(segments, "Pluto"));
+    Assert.assertNull(lookup(segments, "Mercurx"));
+    Assert.assertNull(lookup(segments, ""));
+  }
+
+  @Test
+  public void test_segments_withManyMembers() {
+    List<String> members = members(3000, "MemberWithAFairlyLongNameNumber");
+    List<Node> segments = EnumParseTree.segments(members);
+    Assert.assertTrue("Segments: " + segments.size(), segments.size() > 1);
+    Assert.assertTrue(segments.get(0) instanceof Branch);
+    for (String member : members) {
+      Assert.assertEquals(member, lookup(segments, member));
+    }
+    Assert.assertNull(lookup(segments, "MemberWithAFairlyLongNameNumber3000"));
+    Assert.assertNull(lookup(segments, "MemberWithAFairlyLongNameNumbe"));
+  }
+
+  @Test
+  public void test_segments_reachesEverySegment() {
+    List<Node> segments = EnumParseTree.segments(members(3000, "MemberWithAFairlyLongNameNumber"));
+    boolean[] called = new boolean[segments.size()];
+    called[0] = true;
+    for (Node segment : segments) {
+      markCalls(segment, called);
+    }
+    for (int i = 0; i < called.length; i++) {
+      Assert.assertTrue("Segment " + i + " is not called", called[i]);
+    }
+  }
+
+  private static void markCalls(Node node, boolean[] called) {
+    if (node instanceof Branch branch) {
+      for (Node child : branch.cases().values()) {
+        markCalls(child, called);
+      }
+    } else if (node instanceof Call call) {
+      Assert.assertFalse("Segment " + call.segment() + " is called twice", called[call.segment()]);
+      called[call.segment()] = true;
+    }
+  }
+}
@@ -6,7 +6,9 @@ import static me.karjan.enumvisitor.EnumVisitorUtil.VISITOR_FILE_EXT;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.gradle.api.plugins.JavaPlugin;
@@ -231,6 +233,2014 @@ public class EnumVisitorPluginTest {
     verifyJavaFile(expectedGenFile);
   }
 
+  @Test
+  public void testGenerateVisitors_incrementalChanges() throws IOException {
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgI");
+    writeVisitorDefinition(tempSourceDir, "Unchanged");
+    writeVisitorDefinition(tempSourceDir, "Modified");
+    writeVisitorDefinition(tempSourceDir, "Removed");
+
+    GradleRunner runner =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME)
+            .withPluginClasspath();
+    runner.build();
+
+    File genDir = new File(tempProjectDir.getRoot(), "build/generated-src/enumvis/pkgI");
+    File unchangedFile = new File(genDir, "Unchanged" + JAVA_FILE_EXT);
+    File modifiedFile = new File(genDir, "Modified" + JAVA_FILE_EXT);
+    File removedFile = new File(genDir, "Removed" + JAVA_FILE_EXT);
+    File addedFile = new File(genDir, "Added" + JAVA_FILE_EXT);
+    long markerTime = 1_000_000_000_000L;
+    Assert.assertTrue(unchangedFile.setLastModified(markerTime));
+    Assert.assertTrue(modifiedFile.setLastModified(markerTime));
+    Assert.assertTrue(removedFile.exists());
+    Assert.assertFalse(addedFile.exists());
+
+    writeVisitorDefinition(tempSourceDir, "Modified", "ValidMember\nOtherMember\n");
+    Files.delete(new File(tempSourceDir, "Removed" + VISITOR_FILE_EXT).toPath());
+    writeVisitorDefinition(tempSourceDir, "Added");
+
+    BuildResult result = runner.build();
+
+    BuildTask task = result.task(":" + EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME);
+    Assert.assertEquals(TaskOutcome.SUCCESS, task.getOutcome());
+    Assert.assertEquals(
+        "An unchanged definition must not be regenerated",
+        markerTime,
+        unchangedFile.lastModified());
+    Assert.assertNotEquals(
+        "A modified definition must be regenerated", markerTime, modifiedFile.lastModified());
+    Assert.assertTrue(Files.readString(modifiedFile.toPath()).contains("visitOtherMember"));
+    Assert.assertFalse("A removed definition must be deleted", removedFile.exists());
+    verifyJavaFile(addedFile);
+
+    result = runner.build();
+
+    task = result.task(":" + EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME);
+    Assert.assertEquals(TaskOutcome.UP_TO_DATE, task.getOutcome());
+  }
+
+  @Test
+  public void testGenerateVisitors_withDuplicateEnum() throws IOException {
+    writeVisitorDefinition(tempProjectDir.newFolder("src", "main", "enumvis", "pkg A"), "Twin");
+    writeVisitorDefinition(tempProjectDir.newFolder("src", "main", "enumvis", "pkgA"), "Twin");
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME)
+            .withPluginClasspath()
+            .buildAndFail();
+
+    String expectedOutput = "Duplicate enum pkgA.Twin defined in files [pkg A/Twin.v, pkgA/Twin.v]";
+    Assert.assertTrue(
+        "Build result output does not contain expected string: " + expectedOutput,
+        result.getOutput().contains(expectedOutput));
+  }
+
+  @Test
+  public void testGenerateVisitors_inParallel() throws IOException {
+    appendToBuildFile(
+        """
+        enumVisitor {
+          parallel = true
+          workerBatchSize = 2
+          workerIsolation = 'classloader'
+        }
+        """);
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgP");
+    for (int i = 0; i < 5; i++) {
+      writeVisitorDefinition(tempSourceDir, "Parallel" + i);
+    }
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(JavaPlugin.COMPILE_JAVA_TASK_NAME)
+            .withPluginClasspath()
+            .build();
+
+    BuildTask task = result.task(":" + EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME);
+    Assert.assertEquals(TaskOutcome.SUCCESS, task.getOutcome());
+    for (int i = 0; i < 5; i++) {
+      verifyJavaFile(
+          new File(
+              tempProjectDir.getRoot() + "/build/generated-src/enumvis/pkgP",
+              "Parallel" + i + JAVA_FILE_EXT));
+    }
+  }
+
+  @Test
+  public void testGenerateVisitors_inParallelReportsFirstFailure() throws IOException {
+    appendToBuildFile(
+        """
+        enumVisitor {
+          parallel = true
+          workerBatchSize = 1
+        }
+        """);
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgP");
+    writeVisitorDefinition(tempSourceDir, "Valid");
+    writeVisitorDefinition(tempSourceDir, "FirstInvalid", "First!Invalid");
+    writeVisitorDefinition(tempSourceDir, "SecondInvalid", "Second!Invalid");
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME)
+            .withPluginClasspath()
+            .buildAndFail();
+
+    String expectedOutput = "First!Invalid is not a valid identifier for Java";
+    Assert.assertTrue(
+        "Build result output does not contain expected string: " + expectedOutput,
+        result.getOutput().contains(expectedOutput));
+    Assert.assertFalse(result.getOutput().contains("Second!Invalid"));
+  }
+
+  @Test
+  public void testGenerateVisitors_relocatableBuildCache() throws IOException {
+    File buildCacheDir = tempProjectDir.newFolder("build-cache");
+    File firstProjectDir = tempProjectDir.newFolder("first");
+    File secondProjectDir = tempProjectDir.newFolder("second", "checkout");
+    for (File projectDir : new File[] {firstProjectDir, secondProjectDir}) {
+      String settingsString =
+          """
+          buildCache {
+            local {
+              directory = '%s'
+            }
+          }
+          """
+              .formatted(buildCacheDir.toURI());
+      Files.write(new File(projectDir, "settings.gradle").toPath(), settingsString.getBytes());
+      Files.copy(tempBuildFile.toPath(), new File(projectDir, "build.gradle").toPath());
+      File tempSourceDir = new File(projectDir, "src/main/enumvis/pkgC");
+      tempSourceDir.mkdirs();
+      writeVisitorDefinition(tempSourceDir, "Cached");
+    }
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(firstProjectDir)
+            .withArguments(EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME, "--build-cache")
+            .withPluginClasspath()
+            .build();
+
+    BuildTask task = result.task(":" + EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME);
+    Assert.assertEquals(TaskOutcome.SUCCESS, task.getOutcome());
+
+    result =
+        GradleRunner.create()
+            .withProjectDir(secondProjectDir)
+            .withArguments(EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME, "--build-cache")
+            .withPluginClasspath()
+            .build();
+
+    task = result.task(":" + EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME);
+    Assert.assertEquals(TaskOutcome.FROM_CACHE, task.getOutcome());
+    verifyJavaFile(
+        new File(secondProjectDir, "build/generated-src/enumvis/pkgC/Cached" + JAVA_FILE_EXT));
+  }
+
+  @Test
+  public void testGenerateVisitors_withoutSourceDirectory() throws IOException {
+    File tempJavaDir = tempProjectDir.newFolder("src", "main", "java", "pkgJ");
+    Files.write(
+        new File(tempJavaDir, "Plain" + JAVA_FILE_EXT).toPath(),
+        "package pkgJ; public class Plain {}".getBytes());
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(JavaPlugin.COMPILE_JAVA_TASK_NAME)
+            .withPluginClasspath()
+            .build();
+
+    BuildTask task = result.task(":" + JavaPlugin.COMPILE_JAVA_TASK_NAME);
+    Assert.assertEquals(TaskOutcome.SUCCESS, task.getOutcome());
+  }
+
+  @Test
+  public void testGenerateVisitors_lazyTaskRegistration() throws IOException {
+    appendToBuildFile(
+        """
+        tasks.configureEach {
+          if (name == '%s') {
+            println 'Realized enum visitor task'
+          }
+        }
+        """
+            .formatted(EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME));
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments("help")
+            .withPluginClasspath()
+            .build();
+
+    Assert.assertFalse(result.getOutput().contains("Realized enum visitor task"));
+  }
+
+  @Test
+  public void testGenerateVisitors_perSourceSet() throws IOException {
+    appendToBuildFile(
+        """
+        sourceSets {
+          feature
+        }
+        """);
+    File mainSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgN");
+    writeVisitorDefinition(mainSourceDir, "Shared", "One = 1\n");
+    File testSourceDir = tempProjectDir.newFolder("src", "test", "enumvis", "pkgN");
+    writeVisitorDefinition(testSourceDir, "TestOnly", "Fixture = 1\n");
+    File featureSourceDir = tempProjectDir.newFolder("src", "feature", "enumvis", "pkgN");
+    writeVisitorDefinition(featureSourceDir, "FeatureOnly", "Flag\n");
+    File testJavaDir = tempProjectDir.newFolder("src", "test", "java", "pkgN");
+    Files.writeString(
+        new File(testJavaDir, "UsesBoth" + JAVA_FILE_EXT).toPath(),
+        "package pkgN; class UsesBoth { Shared s = Shared.One; TestOnly t = TestOnly.Fixture; }");
+    File featureJavaDir = tempProjectDir.newFolder("src", "feature", "java", "pkgN");
+    Files.writeString(
+        new File(featureJavaDir, "UsesFeature" + JAVA_FILE_EXT).toPath(),
+        "package pkgN; class UsesFeature { FeatureOnly flag = FeatureOnly.Flag; }");
+
+    GradleRunner runner =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(
+                "updateEnumVisitorWireIdLock",
+                "updateTestEnumVisitorWireIdLock",
+                "compileTestJava",
+                "compileFeatureJava")
+            .withPluginClasspath();
+    BuildResult result = runner.build();
+
+    Assert.assertEquals(TaskOutcome.SUCCESS, result.task(":generateEnumVisitors").getOutcome());
+    Assert.assertEquals(
+        TaskOutcome.SUCCESS, result.task(":generateTestEnumVisitors").getOutcome());
+    Assert.assertEquals(
+        TaskOutcome.SUCCESS, result.task(":generateFeatureEnumVisitors").getOutcome());
+    File buildDir = new File(tempProjectDir.getRoot(), "build");
+    Assert.assertTrue(new File(buildDir, "generated-src/enumvis-test/pkgN/TestOnly.java").exists());
+    Assert.assertFalse(new File(buildDir, "generated-src/enumvis/pkgN/TestOnly.java").exists());
+    Assert.assertTrue(
+        new File(buildDir, "generated-src/enumvis-feature/pkgN/FeatureOnly.java").exists());
+    String mainLock =
+        Files.readString(new File(tempProjectDir.getRoot(), "enumvis-wire-ids.lock").toPath());
+    Assert.assertTrue(mainLock.contains("pkgN.Shared 1 One"));
+    Assert.assertFalse(mainLock.contains("TestOnly"));
+    String testLock =
+        Files.readString(
+            new File(tempProjectDir.getRoot(), "enumvis-wire-ids-test.lock").toPath());
+    Assert.assertTrue(testLock.contains("pkgN.TestOnly 1 Fixture"));
+
+    // The generation only reads the lock files, so it is up to date after them
+    result = runner.withArguments("compileTestJava", "compileFeatureJava").build();
+
+    Assert.assertEquals(
+        TaskOutcome.UP_TO_DATE, result.task(":generateEnumVisitors").getOutcome());
+    Assert.assertEquals(
+        TaskOutcome.UP_TO_DATE, result.task(":generateTestEnumVisitors").getOutcome());
+
+    writeVisitorDefinition(testSourceDir, "TestOnly", "Fixture = 1\nOther = 2\n");
+    result = runner.withArguments("compileTestJava").buildAndFail();
+
+    Assert.assertTrue(
+        result.getOutput(),
+        result
+            .getOutput()
+            .contains(
+                "The wire ids of pkgN.TestOnly are not all locked in enumvis-wire-ids-test.lock."
+                    + " Run the updateTestEnumVisitorWireIdLock task to lock them"));
+
+    result = runner.withArguments("updateTestEnumVisitorWireIdLock", "compileTestJava").build();
+
+    Assert.assertEquals(
+        TaskOutcome.SUCCESS, result.task(":generateTestEnumVisitors").getOutcome());
+    Assert.assertEquals(TaskOutcome.SUCCESS, result.task(":compileTestJava").getOutcome());
+    Assert.assertEquals(
+        TaskOutcome.UP_TO_DATE, result.task(":generateEnumVisitors").getOutcome());
+    Assert.assertEquals(TaskOutcome.UP_TO_DATE, result.task(":compileJava").getOutcome());
+  }
+
+  @Test
+  public void testGenerateVisitors_reusesDefinitionsOfDependencies() throws IOException {
+    Files.writeString(
+        tempProjectDir.newFile("settings.gradle").toPath(),
+        "include 'shared', 'app', 'plain'\n");
+    File sharedDir = tempProjectDir.newFolder("shared");
+    Files.writeString(
+        new File(sharedDir, "build.gradle").toPath(),
+        """
+        plugins {
+          id 'me.karjan.enumvisitor'
+        }
+        """);
+    File plainDir = tempProjectDir.newFolder("plain");
+    Files.writeString(
+        new File(plainDir, "build.gradle").toPath(),
+        """
+        plugins {
+          id 'java-library'
+        }
+        """);
+    File appDir = tempProjectDir.newFolder("app");
+    Files.writeString(
+        new File(appDir, "build.gradle").toPath(),
+        """
+        plugins {
+          id 'me.karjan.enumvisitor'
+        }
+        dependencies {
+          implementation project(':shared')
+          implementation project(':plain')
+        }
+        """);
+    File sharedSourceDir = tempProjectDir.newFolder("shared", "src", "main", "enumvis", "pkgS");
+    writeVisitorDefinition(sharedSourceDir, "Status", "Active\nRetired\n");
+    File appSourceDir = tempProjectDir.newFolder("app", "src", "main", "enumvis", "pkgS");
+    writeVisitorDefinition(appSourceDir, "Status", "Active\nRetired\n");
+    writeVisitorDefinition(appSourceDir, "Local");
+    File appJavaDir = tempProjectDir.newFolder("app", "src", "main", "java", "pkgS");
+    Files.writeString(
+        new File(appJavaDir, "UsesStatus" + JAVA_FILE_EXT).toPath(),
+        "package pkgS; class UsesStatus { Status s = Status.Retired; Local l = Local.ValidMember;"
+            + " }");
+
+    GradleRunner runner =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(":app:compileJava")
+            .withPluginClasspath();
+    BuildResult result = runner.build();
+
+    Assert.assertEquals(
+        TaskOutcome.SUCCESS, result.task(":shared:generateEnumVisitorManifest").getOutcome());
+    Assert.assertEquals(TaskOutcome.SUCCESS, result.task(":app:compileJava").getOutcome());
+    String manifest =
+        Files.readString(new File(sharedDir, "build/enumvis-manifest/definitions.txt").toPath());
+    Assert.assertTrue(manifest.contains("pkgS.Status "));
+    Assert.assertTrue(manifest.contains(" :shared"));
+    File appGeneratedDir = new File(appDir, "build/generated-src/enumvis/pkgS");
+    Assert.assertFalse(new File(appGeneratedDir, "Status" + JAVA_FILE_EXT).exists());
+    Assert.assertTrue(new File(appGeneratedDir, "Local" + JAVA_FILE_EXT).exists());
+    Assert.assertTrue(
+        new File(sharedDir, "build/generated-src/enumvis/pkgS/Status" + JAVA_FILE_EXT).exists());
+
+    writeVisitorDefinition(appSourceDir, "Status", "Active\nRetired\nPending\n");
+    result = runner.buildAndFail();
+
+    Assert.assertTrue(
+        result
+            .getOutput()
+            .contains(
+                "The enum pkgS.Status is also defined by :shared, differently. Remove this"
+                    + " definition to use the enum of :shared, or rename it"));
+  }
+
+  @Test
+  public void testGenerateVisitors_failsOnDefinitionsOfDependenciesWithOtherOptions()
+      throws IOException {
+    Files.writeString(
+        tempProjectDir.newFile("settings.gradle").toPath(), "include 'shared', 'app'\n");
+    File sharedDir = tempProjectDir.newFolder("shared");
+    Files.writeString(
+        new File(sharedDir, "build.gradle").toPath(),
+        """
+        plugins {
+          id 'me.karjan.enumvisitor'
+        }
+        """);
+    File appDir = tempProjectDir.newFolder("app");
+    File appBuildFile = new File(appDir, "build.gradle");
+    String appBuild =
+        """
+        plugins {
+          id 'me.karjan.enumvisitor'
+        }
+        dependencies {
+          implementation project(':shared')
+        }
+        """;
+    Files.writeString(appBuildFile.toPath(), appBuild + "enumVisitor {\n  sets = true\n}\n");
+    File sharedSourceDir = tempProjectDir.newFolder("shared", "src", "main", "enumvis", "pkgS");
+    writeVisitorDefinition(sharedSourceDir, "Status", "Active\nRetired\n");
+    File appSourceDir = tempProjectDir.newFolder("app", "src", "main", "enumvis", "pkgS");
+    writeVisitorDefinition(appSourceDir, "Status", "Active\nRetired\n");
+
+    GradleRunner runner =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(":app:compileJava")
+            .withPluginClasspath();
+    BuildResult result = runner.buildAndFail();
+
+    // StatusSet would be missing from the classes of :shared
+    Assert.assertTrue(
+        result.getOutput(),
+        result
+            .getOutput()
+            .contains(
+                "The enum pkgS.Status is also defined by :shared, with the options"
+                    + " dispatch=bodies;primitiveVisitors=;sets=false;"));
+    Assert.assertTrue(
+        result.getOutput(), result.getOutput().contains("sets=true;parsers=false;"));
+
+    Files.writeString(appBuildFile.toPath(), appBuild);
+    result = runner.build();
+
+    Assert.assertEquals(
+        TaskOutcome.SUCCESS, result.task(":app:generateEnumVisitors").getOutcome());
+    Assert.assertFalse(
+        new File(appDir, "build/generated-src/enumvis/pkgS/Status" + JAVA_FILE_EXT).exists());
+  }
+
+  @Test
+  public void testGenerateVisitors_configurationCache() throws IOException {
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgA");
+    writeVisitorDefinition(tempSourceDir, "Cached");
+
+    GradleRunner runner =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(JavaPlugin.COMPILE_JAVA_TASK_NAME, "--configuration-cache")
+            .withPluginClasspath();
+    BuildResult result = runner.build();
+
+    BuildTask task = result.task(":" + EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME);
+    Assert.assertEquals(TaskOutcome.SUCCESS, task.getOutcome());
+    Assert.assertTrue(result.getOutput().contains("Configuration cache entry stored"));
+
+    result = runner.build();
+
+    task = result.task(":" + EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME);
+    Assert.assertEquals(TaskOutcome.UP_TO_DATE, task.getOutcome());
+    Assert.assertTrue(result.getOutput().contains("Reusing configuration cache"));
+  }
+
+  @Test
+  public void testGenerateVisitors_unchangedOutputIsNotRewritten() throws IOException {
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgU");
+    writeVisitorDefinition(tempSourceDir, "Stable", "ValidMember\n");
+
+    GradleRunner runner =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(JavaPlugin.COMPILE_JAVA_TASK_NAME, "--info")
+            .withPluginClasspath();
+    BuildResult result = runner.build();
+    Assert.assertTrue(result.getOutput().contains("1 written, 0 unchanged, 0 deleted"));
+
+    writeVisitorDefinition(tempSourceDir, "Stable", "ValidMember\r\n");
+    result = runner.build();
+
+    BuildTask task = result.task(":" + EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME);
+    Assert.assertEquals(TaskOutcome.SUCCESS, task.getOutcome());
+    Assert.assertTrue(result.getOutput().contains("0 written, 1 unchanged, 0 deleted"));
+    task = result.task(":" + JavaPlugin.COMPILE_JAVA_TASK_NAME);
+    Assert.assertEquals(TaskOutcome.UP_TO_DATE, task.getOutcome());
+  }
+
+  @Test
+  public void testGenerateVisitors_writesReport() throws IOException {
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgR");
+    writeVisitorDefinition(tempSourceDir, "Alpha", "First\nSecond\n");
+    writeVisitorDefinition(tempSourceDir, "Beta", "Only\n");
+    writeVisitorDefinition(tempSourceDir, "Gamma", "Only\n");
+
+    GradleRunner runner =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME, "--info")
+            .withPluginClasspath();
+    BuildResult result = runner.build();
+
+    Assert.assertTrue(
+        result
+            .getOutput()
+            .contains(
+                "Enum visitor definitions: 3 generated with 4 members, 0 skipped, 0 removed"));
+    File reportFile =
+        new File(tempProjectDir.getRoot(), "build/reports/enumvis/generateEnumVisitors.json");
+    String report = Files.readString(reportFile.toPath());
+    Assert.assertTrue(report.contains("\"task\": \":generateEnumVisitors\","));
+    Assert.assertTrue(report.contains("\"definitionsGenerated\": 3,"));
+    Assert.assertTrue(report.contains("\"members\": 4,"));
+    Assert.assertTrue(report.contains("\"filesWritten\": 3,"));
+    Assert.assertTrue(report.contains("\"path\": \"pkgR/Alpha.v\","));
+    Assert.assertTrue(report.contains("\"parseNanos\": "));
+
+    writeVisitorDefinition(tempSourceDir, "Alpha", "First\nSecond\nThird\n");
+    Files.delete(new File(tempSourceDir, "Beta" + VISITOR_FILE_EXT).toPath());
+    result = runner.build();
+
+    Assert.assertTrue(
+        result
+            .getOutput()
+            .contains(
+                "Enum visitor definitions: 1 generated with 3 members, 1 skipped, 1 removed"));
+    Assert.assertTrue(result.getOutput().contains("1 written, 0 unchanged, 1 deleted"));
+    report = Files.readString(reportFile.toPath());
+    Assert.assertTrue(report.contains("\"incremental\": true,"));
+    Assert.assertTrue(report.contains("\"definitionsSkipped\": 1,"));
+    Assert.assertTrue(report.contains("\"definitionsRemoved\": 1,"));
+    Assert.assertFalse(report.contains("pkgR/Gamma.v"));
+  }
+
+  @Test
+  public void testGenerateVisitors_reusesParsedDefinitions() throws IOException {
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgQ");
+    // Contents no other test uses, so no other build of the daemon cached them
+    writeVisitorDefinition(tempSourceDir, "Cached", "Cached" + System.nanoTime() + "\n");
+    writeVisitorDefinition(tempSourceDir, "Other", "Other" + System.nanoTime() + "\n");
+
+    GradleRunner runner =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME, "--info")
+            .withPluginClasspath();
+    BuildResult result = runner.build();
+
+    // Parsed once to generate: they declare no wire ids, so their check does not parse them
+    Assert.assertTrue(result.getOutput().contains("Enum definition cache: 0 hits, 2 misses"));
+
+    result =
+        runner
+            .withArguments(
+                EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME, "--info", "--rerun-tasks")
+            .build();
+
+    Assert.assertTrue(result.getOutput().contains("Enum definition cache: 2 hits, 0 misses"));
+
+    result =
+        runner
+            .withArguments(
+                EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME,
+                "--info",
+                "--rerun-tasks",
+                "-PenumVisitor.definitionCacheSize=0")
+            .build();
+
+    Assert.assertTrue(result.getOutput().contains("Enum definition cache: 0 hits, 2 misses"));
+  }
+
+  @Test
+  public void testGenerateVisitors_reportsUnwritableOutputs() throws IOException {
+    // Outside of the build directory, where Gradle does not clean up stale files
+    appendToBuildFile(
+        """
+        tasks.named('generateEnumVisitors') {
+          destination = file('generated')
+        }
+        """);
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgR");
+    writeVisitorDefinition(tempSourceDir, "Blocked", "Only\n");
+    // A file where the directory of the package belongs
+    File packageFile = new File(tempProjectDir.getRoot(), "generated/pkgR");
+    packageFile.getParentFile().mkdirs();
+    Files.write(packageFile.toPath(), new byte[0]);
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME)
+            .withPluginClasspath()
+            .buildAndFail();
+
+    Assert.assertTrue(
+        result.getOutput().contains("Could not generate the files of pkgR/Blocked.v"));
+  }
+
+  @Test
+  public void testGenerateVisitors_fullRebuildDeletesStaleOutputs() throws IOException {
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgU");
+    writeVisitorDefinition(tempSourceDir, "Tampered");
+
+    GradleRunner runner =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME, "--info")
+            .withPluginClasspath();
+    runner.build();
+
+    // Changing an output forces Gradle to run the task non-incrementally
+    File genDir = new File(tempProjectDir.getRoot(), "build/generated-src/enumvis");
+    File tamperedFile = new File(genDir, "pkgU/Tampered" + JAVA_FILE_EXT);
+    Files.write(tamperedFile.toPath(), "package pkgU; enum Tampered {}".getBytes());
+    File staleFile = new File(genDir, "pkgS/Stale" + JAVA_FILE_EXT);
+    staleFile.getParentFile().mkdirs();
+    Files.write(staleFile.toPath(), "package pkgS; class Stale {}".getBytes());
+
+    BuildResult result = runner.build();
+
+    Assert.assertTrue(result.getOutput().contains("1 written, 0 unchanged, 1 deleted"));
+    Assert.assertFalse(staleFile.exists());
+    Assert.assertFalse(staleFile.getParentFile().exists());
+    verifyJavaFile(tamperedFile);
+  }
+
+  @Test
+  public void testGenerateVisitors_withSwitchDispatch() throws IOException {
+    appendToBuildFile(
+        """
+        enumVisitor {
+          dispatch = 'switch'
+        }
+        """);
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgD");
+    writeVisitorDefinition(tempSourceDir, "Compact", "First\nSecond\nThird\n");
+    writeVisitorDefinition(tempSourceDir, "Bodies", "@dispatch bodies\nFirst\nSecond\n");
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(JavaPlugin.COMPILE_JAVA_TASK_NAME)
+            .withPluginClasspath()
+            .build();
+
+    BuildTask task = result.task(":" + JavaPlugin.COMPILE_JAVA_TASK_NAME);
+    Assert.assertEquals(TaskOutcome.SUCCESS, task.getOutcome());
+    verifyJavaFile(
+        new File(
+            tempProjectDir.getRoot() + "/build/generated-src/enumvis/pkgD",
+            "Compact" + JAVA_FILE_EXT));
+
+    File classesDir = new File(tempProjectDir.getRoot(), "build/classes/java/main/pkgD");
+    Assert.assertTrue(new File(classesDir, "Compact.class").exists());
+    Assert.assertTrue(new File(classesDir, "Compact$CompactVisitor.class").exists());
+    Assert.assertFalse(
+        "The switch dispatch must not generate a class per constant",
+        new File(classesDir, "Compact$1.class").exists());
+    Assert.assertTrue(
+        "The definition directive must override the project setting",
+        new File(classesDir, "Bodies$1.class").exists());
+  }
+
+  @Test
+  public void testGenerateVisitors_withUnknownDirective() throws IOException {
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgD");
+    writeVisitorDefinition(tempSourceDir, "Unknown", "@frobnicate yes\nFirst\n");
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME)
+            .withPluginClasspath()
+            .buildAndFail();
+
+    String expectedOutput = "Unknown directive @frobnicate";
+    Assert.assertTrue(
+        "Build result output does not contain expected string: " + expectedOutput,
+        result.getOutput().contains(expectedOutput));
+  }
+
+  @Test
+  public void testGenerateVisitors_withPrimitiveVisitors() throws IOException {
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgV");
+    writeVisitorDefinition(
+        tempSourceDir, "WithBodies", "@primitiveVisitors int boolean\nFirst\nSecond\n");
+    writeVisitorDefinition(
+        tempSourceDir, "WithSwitch", "@dispatch switch\n@primitiveVisitors\nFirst\nSecond\n");
+    File tempJavaDir = tempProjectDir.newFolder("src", "main", "java", "pkgV");
+    String javaSource =
+        """
+        package pkgV;
+
+        class Usage {
+          static int cost(WithBodies value) {
+            return value.acceptInt(
+                new WithBodies.WithBodiesIntVisitor() {
+                  public int visitFirst() {
+                    return 1;
+                  }
+
+                  public int visitSecond() {
+                    return 2;
+                  }
+                });
+          }
+
+          static double weight(WithSwitch value) {
+            return value.acceptDouble(
+                new WithSwitch.WithSwitchDoubleVisitor() {
+                  public double visitFirst() {
+                    return 0.5;
+                  }
+
+                  public double visitSecond() {
+                    return 1.5;
+                  }
+                });
+          }
+        }
+        """;
+    Files.write(new File(tempJavaDir, "Usage" + JAVA_FILE_EXT).toPath(), javaSource.getBytes());
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(JavaPlugin.COMPILE_JAVA_TASK_NAME)
+            .withPluginClasspath()
+            .build();
+
+    BuildTask task = result.task(":" + JavaPlugin.COMPILE_JAVA_TASK_NAME);
+    Assert.assertEquals(TaskOutcome.SUCCESS, task.getOutcome());
+    File genDir = new File(tempProjectDir.getRoot(), "build/generated-src/enumvis/pkgV");
+    String bodiesSource = Files.readString(new File(genDir, "WithBodies" + JAVA_FILE_EXT).toPath());
+    Assert.assertTrue(bodiesSource.contains("public interface WithBodiesBooleanVisitor"));
+    Assert.assertFalse(bodiesSource.contains("WithBodiesLongVisitor"));
+    String switchSource = Files.readString(new File(genDir, "WithSwitch" + JAVA_FILE_EXT).toPath());
+    Assert.assertTrue(switchSource.contains("public final long acceptLong(WithSwitchLongVisitor"));
+  }
+
+  @Test
+  public void testGenerateVisitors_withUnsupportedPrimitiveVisitor() throws IOException {
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgV");
+    writeVisitorDefinition(tempSourceDir, "Unsupported", "@primitiveVisitors char\nFirst\n");
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME)
+            .withPluginClasspath()
+            .buildAndFail();
+
+    String expectedOutput = "Unsupported primitive visitor char";
+    Assert.assertTrue(
+        "Build result output does not contain expected string: " + expectedOutput,
+        result.getOutput().contains(expectedOutput));
+  }
+
+  @Test
+  public void testGenerateVisitors_withSets() throws IOException {
+    appendToBuildFile(
+        """
+        enumVisitor {
+          sets = true
+        }
+
+        tasks.register('checkSets', JavaExec) {
+          classpath = sourceSets.main.runtimeClasspath
+          mainClass = 'pkgS.Usage'
+        }
+        """);
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgS");
+    writeVisitorDefinition(tempSourceDir, "Small", "@dispatch switch\nFirst\nSecond\nThird\n");
+    StringBuilder largeMembers = new StringBuilder();
+    for (int i = 0; i < 70; i++) {
+      largeMembers.append("Member").append(i).append(LINE_SEPARATOR);
+    }
+    writeVisitorDefinition(tempSourceDir, "Large", largeMembers.toString());
+    writeVisitorDefinition(tempSourceDir, "Plain", "@sets false\nFirst\n");
+    File tempJavaDir = tempProjectDir.newFolder("src", "main", "java", "pkgS");
+    String javaSource =
+        """
+        package pkgS;
+
+        class Usage {
+          public static void main(String[] args) {
+            SmallSet small = SmallSet.noneOf();
+            check(small.add(Small.Third) && !small.add(Small.Third), "add");
+            small.add(Small.First);
+            check(small.contains(Small.First) && !small.contains(Small.Second), "contains");
+            check(small.toString().equals("[First, Third]"), small.toString());
+            SmallSet other = SmallSet.allOf();
+            check(other.size() == 3 && other.containsAll(small), "allOf");
+            other.remove(Small.First);
+            other.intersect(small);
+            check(other.toString().equals("[Third]"), other.toString());
+
+            LargeSet large = LargeSet.allOf();
+            check(large.size() == 70, "size");
+            check(large.remove(Large.Member65) && !large.contains(Large.Member65), "remove");
+            LargeSet copy = large.copy();
+            copy.clear();
+            copy.add(Large.Member65);
+            copy.add(Large.Member3);
+            check(copy.toString().equals("[Member3, Member65]"), copy.toString());
+            large.union(copy);
+            check(large.equals(LargeSet.allOf()), "union");
+            check(!LargeSet.noneOf().equals(copy) && LargeSet.noneOf().isEmpty(), "isEmpty");
+          }
+
+          static void check(boolean condition, String message) {
+            if (!condition) {
+              throw new AssertionError(message);
+            }
+          }
+        }
+        """;
+    Files.write(new File(tempJavaDir, "Usage" + JAVA_FILE_EXT).toPath(), javaSource.getBytes());
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments("checkSets")
+            .withPluginClasspath()
+            .build();
+
+    BuildTask task = result.task(":checkSets");
+    Assert.assertEquals(TaskOutcome.SUCCESS, task.getOutcome());
+    File genDir = new File(tempProjectDir.getRoot(), "build/generated-src/enumvis/pkgS");
+    Assert.assertTrue(new File(genDir, "SmallSet" + JAVA_FILE_EXT).exists());
+    Assert.assertFalse(new File(genDir, "PlainSet" + JAVA_FILE_EXT).exists());
+  }
+
+  @Test
+  public void testGenerateVisitors_removesSetCompanion() throws IOException {
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgS");
+    writeVisitorDefinition(tempSourceDir, "Toggled", "@sets\nFirst\n");
+    writeVisitorDefinition(tempSourceDir, "Removed", "@sets\nFirst\n");
+    GradleRunner runner =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME)
+            .withPluginClasspath();
+    runner.build();
+
+    File genDir = new File(tempProjectDir.getRoot(), "build/generated-src/enumvis/pkgS");
+    File toggledSet = new File(genDir, "ToggledSet" + JAVA_FILE_EXT);
+    File removedSet = new File(genDir, "RemovedSet" + JAVA_FILE_EXT);
+    Assert.assertTrue(toggledSet.exists());
+    Assert.assertTrue(removedSet.exists());
+
+    writeVisitorDefinition(tempSourceDir, "Toggled", "@sets false\nFirst\n");
+    new File(tempSourceDir, "Removed" + VISITOR_FILE_EXT).delete();
+    runner.build();
+
+    Assert.assertFalse(toggledSet.exists());
+    Assert.assertFalse(removedSet.exists());
+    verifyJavaFile(new File(genDir, "Toggled" + JAVA_FILE_EXT));
+  }
+
+  @Test
+  public void testGenerateVisitors_withParsers() throws IOException {
+    appendToBuildFile(
+        """
+        enumVisitor {
+          parsers = true
+        }
+
+        tasks.register('checkParsers', JavaExec) {
+          classpath = sourceSets.main.runtimeClasspath
+          mainClass = 'pkgP.Usage'
+        }
+        """);
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgP");
+    writeVisitorDefinition(
+        tempSourceDir, "Code", "Ok\nOn\nOff\nOpen\nOpened\nClosed\nClose\nA\n$b_\n");
+    writeVisitorDefinition(tempSourceDir, "Single", "@dispatch switch\nOnly\n");
+    File tempJavaDir = tempProjectDir.newFolder("src", "main", "java", "pkgP");
+    String javaSource =
+        """
+        package pkgP;
+
+        import java.nio.ByteBuffer;
+        import java.nio.charset.StandardCharsets;
+
+        class Usage {
+          public static void main(String[] args) {
+            for (Code code : Code.values()) {
+              String name = code.name();
+              byte[] bytes = ("xx" + name + "y").getBytes(StandardCharsets.UTF_8);
+              check(Code.parse(name) == code, name);
+              check(Code.parse(new StringBuilder(name)) == code, name);
+              check(Code.parse(bytes, 2, name.length()) == code, name);
+              ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes);
+              direct.position(2).limit(2 + name.length());
+              check(Code.parse(direct) == code && direct.position() == 2, name);
+              check(Code.parse(ByteBuffer.wrap(bytes, 2, name.length())) == code, name);
+            }
+            for (String miss : new String[] {"", "O", "Oz", "Opex", "closed", "Closer", "B"}) {
+              check(Code.parse(miss) == null, miss);
+              byte[] bytes = miss.getBytes(StandardCharsets.UTF_8);
+              check(Code.parse(bytes, 0, bytes.length) == null, miss);
+              check(Code.parse(ByteBuffer.wrap(bytes)) == null, miss);
+            }
+            check(Single.parse("Only") == Single.Only && Single.parse("Onl") == null, "Single");
+          }
+
+          static void check(boolean condition, String message) {
+            if (!condition) {
+              throw new AssertionError(message);
+            }
+          }
+        }
+        """;
+    Files.write(new File(tempJavaDir, "Usage" + JAVA_FILE_EXT).toPath(), javaSource.getBytes());
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments("checkParsers")
+            .withPluginClasspath()
+            .build();
+
+    BuildTask task = result.task(":checkParsers");
+    Assert.assertEquals(TaskOutcome.SUCCESS, task.getOutcome());
+  }
+
+  @Test
+  public void testGenerateVisitors_withParsersOfMembersNamedLikeParameters() throws IOException {
+    appendToBuildFile(
+        """
+        tasks.register('checkParsers', JavaExec) {
+          classpath = sourceSets.main.runtimeClasspath
+          mainClass = 'pkgP.Usage'
+        }
+        """);
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgP");
+    writeVisitorDefinition(
+        tempSourceDir, "Col", "@parsers\nvalue\nlength\nposition\nbytes\noffset\nbuffer\n");
+    File tempJavaDir = tempProjectDir.newFolder("src", "main", "java", "pkgP");
+    String javaSource =
+        """
+        package pkgP;
+
+        import java.nio.ByteBuffer;
+        import java.nio.charset.StandardCharsets;
+
+        class Usage {
+          public static void main(String[] args) {
+            for (Col col : Col.values()) {
+              String name = col.name();
+              byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+              check(Col.parse(name) == col, name);
+              check(Col.parse(bytes, 0, bytes.length) == col, name);
+              check(Col.parse(ByteBuffer.wrap(bytes)) == col, name);
+            }
+            check(Col.parse("values") == null, "miss");
+          }
+
+          static void check(boolean condition, String message) {
+            if (!condition) {
+              throw new AssertionError(message);
+            }
+          }
+        }
+        """;
+    Files.write(new File(tempJavaDir, "Usage" + JAVA_FILE_EXT).toPath(), javaSource.getBytes());
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments("checkParsers")
+            .withPluginClasspath()
+            .build();
+
+    Assert.assertEquals(TaskOutcome.SUCCESS, result.task(":checkParsers").getOutcome());
+  }
+
+  @Test
+  public void testGenerateVisitors_withCommentsAndBlankLines() throws IOException {
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgC");
+    String visitorDefinition =
+        "\uFEFF# The members of the enum\r\n"
+            + "@dispatch switch # a comment after a directive\r\n"
+            + "\r\n"
+            + "  First\t# a comment after a member, ignoring the blanks around it\r\n"
+            + "\t\r\n"
+            + "# \u00dcn\u00efcode in a comment\n"
+            + "Second";
+    Files.write(
+        new File(tempSourceDir, "Commented" + VISITOR_FILE_EXT).toPath(),
+        visitorDefinition.getBytes(StandardCharsets.UTF_8));
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(JavaPlugin.COMPILE_JAVA_TASK_NAME)
+            .withPluginClasspath()
+            .build();
+
+    BuildTask task = result.task(":" + JavaPlugin.COMPILE_JAVA_TASK_NAME);
+    Assert.assertEquals(TaskOutcome.SUCCESS, task.getOutcome());
+    File genDir = new File(tempProjectDir.getRoot(), "build/generated-src/enumvis/pkgC");
+    String source = Files.readString(new File(genDir, "Commented" + JAVA_FILE_EXT).toPath());
+    Assert.assertTrue(source.contains("  First,\n\n  Second;"));
+    Assert.assertTrue(source.contains("switch (ordinal())"));
+  }
+
+  @Test
+  public void testGenerateVisitors_reportsLocationOfInvalidMember() throws IOException {
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgL");
+    writeVisitorDefinition(tempSourceDir, "Located", "# comment\nFirst\n  Sec-ond\n");
+    writeVisitorDefinition(tempSourceDir, "Reserved", "First\nclass\n");
+    writeVisitorDefinition(tempSourceDir, "Crowded", "First Second\n");
+
+    GradleRunner runner =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME)
+            .withPluginClasspath();
+
+    String output = runner.buildAndFail().getOutput();
+    String expectedOutput =
+        "pkgL/Crowded.v:1:7: Unexpected Second, there must be one member per line";
+    Assert.assertTrue(
+        "Build result output does not contain expected string: " + expectedOutput,
+        output.contains(expectedOutput));
+
+    new File(tempSourceDir, "Crowded" + VISITOR_FILE_EXT).delete();
+    output = runner.buildAndFail().getOutput();
+    expectedOutput =
+        "pkgL/Located.v:3:6: Sec-ond is not a valid identifier for Java, unexpected character -";
+    Assert.assertTrue(
+        "Build result output does not contain expected string: " + expectedOutput,
+        output.contains(expectedOutput));
+
+    new File(tempSourceDir, "Located" + VISITOR_FILE_EXT).delete();
+    output = runner.buildAndFail().getOutput();
+    expectedOutput = "pkgL/Reserved.v:2:1: class is not a valid identifier for Java";
+    Assert.assertTrue(
+        "Build result output does not contain expected string: " + expectedOutput,
+        output.contains(expectedOutput));
+  }
+
+  @Test
+  public void testGenerateVisitors_withColumns() throws IOException {
+    appendToBuildFile(
+        """
+        enumVisitor {
+          emit = providers.gradleProperty('emit').orElse('source')
+        }
+
+        tasks.register('checkColumns', JavaExec) {
+          classpath = sourceSets.main.runtimeClasspath
+          mainClass = 'pkgK.Usage'
+        }
+        """);
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgK");
+    writeVisitorDefinition(
+        tempSourceDir,
+        "Planet",
+        "Mercury priority:int=3 weight:double=0.38 code:long=-9000000000 habitable:boolean=false\n"
+            + "Venus priority:int=-200 # no weight\n"
+            + "Earth  habitable:boolean=true\tweight:double=1e0 priority:int=+70000\n");
+    writeVisitorDefinition(tempSourceDir, "Level", "@dispatch switch\nLow rank:int=1\nHigh\n");
+    File tempJavaDir = tempProjectDir.newFolder("src", "main", "java", "pkgK");
+    String javaSource =
+        """
+        package pkgK;
+
+        class Usage {
+          public static void main(String[] args) {
+            check(Planet.Mercury.priority() == 3, "priority");
+            check(Planet.Venus.priority() == -200, "negative priority");
+            check(Planet.Earth.priority() == 70_000, "large priority");
+            check(Planet.Mercury.weight() == 0.38 && Planet.Earth.weight() == 1.0, "weight");
+            check(Planet.Venus.weight() == 0.0, "default weight");
+            check(Planet.Mercury.code() == -9_000_000_000L && Planet.Earth.code() == 0L, "code");
+            check(Planet.Earth.habitable() && !Planet.Mercury.habitable(), "habitable");
+            check(Level.Low.rank() == 1 && Level.High.rank() == 0, "rank");
+          }
+
+          static void check(boolean condition, String message) {
+            if (!condition) {
+              throw new AssertionError(message);
+            }
+          }
+        }
+        """;
+    Files.write(new File(tempJavaDir, "Usage" + JAVA_FILE_EXT).toPath(), javaSource.getBytes());
+
+    GradleRunner runner =
+        GradleRunner.create().withProjectDir(tempProjectDir.getRoot()).withPluginClasspath();
+    BuildResult result = runner.withArguments("checkColumns").build();
+
+    Assert.assertEquals(TaskOutcome.SUCCESS, result.task(":checkColumns").getOutcome());
+    File genFile =
+        new File(tempProjectDir.getRoot(), "build/generated-src/enumvis/pkgK/Planet.java");
+    String contents = Files.readString(genFile.toPath());
+    Assert.assertTrue(contents.contains("private static final int[] priority = {"));
+    Assert.assertTrue(contents.contains("-9000000000L, 0L, 0L,"));
+
+    result = runner.withArguments("checkColumns", "-Pemit=bytecode").build();
+
+    Assert.assertEquals(TaskOutcome.SUCCESS, result.task(":checkColumns").getOutcome());
+    Assert.assertFalse(genFile.exists());
+  }
+
+  @Test
+  public void testGenerateVisitors_reportsInvalidColumns() throws IOException {
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgK");
+    writeVisitorDefinition(tempSourceDir, "Clashing", "First Second:int=1\nSecond\n");
+    writeVisitorDefinition(
+        tempSourceDir, "Typed", "First priority:int=1\nSecond priority:double=2\n");
+    writeVisitorDefinition(tempSourceDir, "Valued", "First priority:int=high\n");
+
+    GradleRunner runner =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME)
+            .withPluginClasspath();
+
+    String output = runner.buildAndFail().getOutput();
+    String expectedOutput = "pkgK/Clashing.v:1:7: The column Second clashes with the member Second";
+    Assert.assertTrue(
+        "Build result output does not contain expected string: " + expectedOutput,
+        output.contains(expectedOutput));
+
+    new File(tempSourceDir, "Clashing" + VISITOR_FILE_EXT).delete();
+    output = runner.buildAndFail().getOutput();
+    expectedOutput =
+        "pkgK/Typed.v:2:17: The column priority is declared as int at line 1, not double";
+    Assert.assertTrue(
+        "Build result output does not contain expected string: " + expectedOutput,
+        output.contains(expectedOutput));
+
+    new File(tempSourceDir, "Typed" + VISITOR_FILE_EXT).delete();
+    output = runner.buildAndFail().getOutput();
+    expectedOutput = "pkgK/Valued.v:1:20: high is not a valid int value";
+    Assert.assertTrue(
+        "Build result output does not contain expected string: " + expectedOutput,
+        output.contains(expectedOutput));
+  }
+
+  @Test
+  public void testGenerateVisitors_withCodecs() throws IOException {
+    appendToBuildFile(
+        """
+        enumVisitor {
+          codecs = true
+          emit = providers.gradleProperty('emit').orElse('source')
+        }
+
+        tasks.register('checkCodecs', JavaExec) {
+          classpath = sourceSets.main.runtimeClasspath
+          mainClass = 'pkgW.Usage'
+        }
+        """);
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgW");
+    writeVisitorDefinition(
+        tempSourceDir, "Planet", "Mercury = 2\nVenus=0 moons:int=0\nEarth = 70 # last\n");
+    writeVisitorDefinition(tempSourceDir, "Sparse", "@dispatch switch\nLow = 7\nHigh = 100000\n");
+    writeVisitorDefinition(tempSourceDir, "Plain", "@codecs false\nFirst\n");
+    File tempJavaDir = tempProjectDir.newFolder("src", "main", "java", "pkgW");
+    String javaSource =
+        """
+        package pkgW;
+
+        import java.io.ByteArrayInputStream;
+        import java.io.ByteArrayOutputStream;
+        import java.io.DataInputStream;
+        import java.io.DataOutputStream;
+        import java.io.IOException;
+        import java.nio.ByteBuffer;
+
+        class Usage {
+          public static void main(String[] args) throws IOException {
+            check(Planet.Earth.wireId() == 70 && Planet.Venus.moons() == 0, "wireId");
+            check(PlanetCodec.FIXED_WIDTH == 1 && SparseCodec.FIXED_WIDTH == 4, "FIXED_WIDTH");
+            ByteBuffer buffer = ByteBuffer.allocate(64);
+            PlanetCodec.write(Planet.Earth, buffer);
+            PlanetCodec.write(Planet.Venus, buffer);
+            PlanetCodec.writeFixed(Planet.Mercury, buffer);
+            SparseCodec.write(Sparse.High, buffer);
+            SparseCodec.writeFixed(Sparse.Low, buffer);
+            buffer.put((byte) 5);
+            check(buffer.position() == 1 + 1 + 1 + 3 + 4 + 1, "size " + buffer.position());
+            buffer.flip();
+            check(PlanetCodec.read(buffer) == Planet.Earth, "varint");
+            check(PlanetCodec.read(buffer) == Planet.Venus, "single byte varint");
+            check(PlanetCodec.readFixed(buffer) == Planet.Mercury, "fixed");
+            check(SparseCodec.read(buffer) == Sparse.High, "sparse varint");
+            check(SparseCodec.readFixed(buffer) == Sparse.Low, "sparse fixed");
+            check(PlanetCodec.read(buffer) == null && !buffer.hasRemaining(), "unknown id");
+            check(SparseCodec.fromWireId(8) == null && PlanetCodec.fromWireId(-1) == null, "miss");
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            for (Planet planet : Planet.values()) {
+              PlanetCodec.write(planet, output);
+              PlanetCodec.writeFixed(planet, output);
+            }
+            DataInputStream input =
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+            for (Planet planet : Planet.values()) {
+              check(PlanetCodec.read(input) == planet, "stream varint " + planet);
+              check(PlanetCodec.readFixed(input) == planet, "stream fixed " + planet);
+            }
+          }
+
+          static void check(boolean condition, String message) {
+            if (!condition) {
+              throw new AssertionError(message);
+            }
+          }
+        }
+        """;
+    Files.write(new File(tempJavaDir, "Usage" + JAVA_FILE_EXT).toPath(), javaSource.getBytes());
+
+    GradleRunner runner =
+        GradleRunner.create().withProjectDir(tempProjectDir.getRoot()).withPluginClasspath();
+    BuildResult result =
+        runner
+            .withArguments(EnumVisitorPlugin.UPDATE_WIRE_ID_LOCK_TASK_NAME, "checkCodecs")
+            .build();
+
+    Assert.assertEquals(TaskOutcome.SUCCESS, result.task(":checkCodecs").getOutcome());
+    File genDir = new File(tempProjectDir.getRoot(), "build/generated-src/enumvis/pkgW");
+    Assert.assertFalse(new File(genDir, "PlainCodec" + JAVA_FILE_EXT).exists());
+    String lock =
+        Files.readString(new File(tempProjectDir.getRoot(), "enumvis-wire-ids.lock").toPath());
+    Assert.assertTrue(lock, lock.contains("pkgW.Planet 0 Venus\npkgW.Planet 2 Mercury\n"));
+    Assert.assertTrue(lock, lock.contains("pkgW.Sparse 100000 High\n"));
+
+    result = runner.withArguments("checkCodecs", "-Pemit=bytecode").build();
+
+    Assert.assertEquals(TaskOutcome.SUCCESS, result.task(":checkCodecs").getOutcome());
+    Assert.assertTrue(new File(genDir, "PlanetCodec" + JAVA_FILE_EXT).exists());
+    Assert.assertFalse(new File(genDir, "Planet" + JAVA_FILE_EXT).exists());
+  }
+
+  @Test
+  public void testGenerateVisitors_reportsChangedWireIds() throws IOException {
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgW");
+    writeVisitorDefinition(tempSourceDir, "Planet", "Mercury = 0\nVenus = 1\nEarth = 2\n");
+    writeVisitorDefinition(tempSourceDir, "Moon", "Luna = 0\n");
+    GradleRunner runner =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME)
+            .withPluginClasspath();
+    GradleRunner lockRunner =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(EnumVisitorPlugin.UPDATE_WIRE_ID_LOCK_TASK_NAME)
+            .withPluginClasspath();
+    File lockFile = new File(tempProjectDir.getRoot(), "enumvis-wire-ids.lock");
+    String output = runner.buildAndFail().getOutput();
+    Assert.assertTrue(
+        output,
+        output.contains(
+            "The wire ids of pkgW.Moon are not all locked in enumvis-wire-ids.lock. Run the"
+                + " updateEnumVisitorWireIdLock task to lock them"));
+    Assert.assertFalse("The generation does not write the lock", lockFile.exists());
+    lockRunner.build();
+    Assert.assertTrue(lockFile.exists());
+    runner.build();
+
+    // Reordering the members and adding one is compatible, once the new one is locked
+    writeVisitorDefinition(
+        tempSourceDir, "Planet", "Earth = 2\nMercury = 0\nVenus = 1\nMars = 3\n");
+    output = runner.buildAndFail().getOutput();
+    Assert.assertTrue(output, output.contains("The wire ids of pkgW.Planet are not all locked"));
+    lockRunner.build();
+    Assert.assertTrue(Files.readString(lockFile.toPath()).contains("pkgW.Planet 3 Mars\n"));
+    runner.build();
+
+    String[][] failures = {
+      {
+        "Mercury = 0\nVenus = 1\nEarth = 2\n",
+        "The wire id 3 of Mars of pkgW.Planet was removed. Retire it by replacing Mars with -"
+      },
+      {
+        "Mercury = 0\nVenus = 1\nEarth = 2\nVulcan = 3\n",
+        "The wire id 3 of pkgW.Planet belongs to Mars, it cannot be reused by Vulcan"
+      },
+      {
+        "Mercury = 0\nVenus = 1\nEarth = 2\nMars = 4\n",
+        "The wire id of Mars of pkgW.Planet changed from 3 to 4"
+      },
+      {
+        "Mercury = 0\nVenus = 1\nEarth = 2\nMars = 3\nPluto = 256\n",
+        "grows the fixed width of the wire ids of pkgW.Planet from 1 to 2 bytes"
+      },
+      {"Mercury\nVenus\nEarth\nMars\n", "The enum pkgW.Planet, which has locked wire ids, no"},
+      {"Mercury = 0\nVenus\n", "pkgW/Planet.v:2:1: Missing wire id, every member needs one"},
+      {"Mercury = 0\nVenus = 0\n", "pkgW/Planet.v:2:9: Duplicate wire id 0, already used by"},
+    };
+    for (String[] failure : failures) {
+      writeVisitorDefinition(tempSourceDir, "Planet", failure[0]);
+      output = runner.buildAndFail().getOutput();
+      Assert.assertTrue(
+          "Build result output does not contain expected string: " + failure[1],
+          output.contains(failure[1]));
+    }
+
+    // Retiring the id of a removed member accepts its removal, but not its reuse
+    String lock = Files.readString(lockFile.toPath());
+    Files.writeString(lockFile.toPath(), lock.replace("pkgW.Planet 3 Mars", "pkgW.Planet 3 -"));
+    writeVisitorDefinition(tempSourceDir, "Planet", "Mercury = 0\nVenus = 1\nEarth = 2\n");
+    runner.build();
+    writeVisitorDefinition(
+        tempSourceDir, "Planet", "Mercury = 0\nVenus = 1\nEarth = 2\nVulcan = 3\n");
+    output = runner.buildAndFail().getOutput();
+    String expectedOutput =
+        "The wire id 3 of pkgW.Planet is retired, it cannot be reused by Vulcan";
+    Assert.assertTrue(
+        "Build result output does not contain expected string: " + expectedOutput,
+        output.contains(expectedOutput));
+
+    writeVisitorDefinition(tempSourceDir, "Planet", "Mercury = 0\nVenus = 1\nEarth = 2\n");
+    new File(tempSourceDir, "Moon" + VISITOR_FILE_EXT).delete();
+    output = runner.buildAndFail().getOutput();
+    expectedOutput = "The enum pkgW.Moon, which has locked wire ids, was removed";
+    Assert.assertTrue(
+        "Build result output does not contain expected string: " + expectedOutput,
+        output.contains(expectedOutput));
+  }
+
+  @Test
+  public void testGenerateVisitors_withCounters() throws IOException {
+    appendToBuildFile(
+        """
+        enumVisitor {
+          counters = true
+        }
+
+        tasks.register('checkCounters', JavaExec) {
+          classpath = sourceSets.main.runtimeClasspath
+          mainClass = 'pkgC.Usage'
+        }
+        """);
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgC");
+    writeVisitorDefinition(tempSourceDir, "Route", "Home\nSearch\nCheckout\n");
+    writeVisitorDefinition(tempSourceDir, "Plain", "@counters false\nFirst\n");
+    File tempJavaDir = tempProjectDir.newFolder("src", "main", "java", "pkgC");
+    String javaSource =
+        """
+        package pkgC;
+
+        class Usage {
+          public static void main(String[] args) throws InterruptedException {
+            RouteCounters counters = new RouteCounters(3);
+            Thread[] threads = new Thread[8];
+            for (int t = 0; t < threads.length; t++) {
+              threads[t] =
+                  new Thread(
+                      () -> {
+                        for (int i = 0; i < 10_000; i++) {
+                          counters.increment(Route.Home);
+                          counters.add(Route.Checkout, 3);
+                        }
+                      });
+              threads[t].start();
+            }
+            for (Thread thread : threads) {
+              thread.join();
+            }
+            check(counters.get(Route.Home) == 80_000, "increment " + counters.get(Route.Home));
+            check(counters.get(Route.Checkout) == 240_000, "add");
+            check(counters.get(Route.Search) == 0, "untouched");
+            StringBuilder totals = new StringBuilder();
+            counters.snapshot((route, total) -> totals.append(route).append('=').append(total));
+            check(totals.toString().equals("Home=80000Search=0Checkout=240000"), totals.toString());
+            long[] array = new long[Route.values().length];
+            counters.snapshot(array);
+            check(array[2] == 240_000, "snapshot array");
+            counters.reset();
+            check(counters.get(Route.Home) == 0, "reset");
+            check(new RouteCounters().get(Route.Home) == 0, "default stripes");
+          }
+
+          static void check(boolean condition, String message) {
+            if (!condition) {
+              throw new AssertionError(message);
+            }
+          }
+        }
+        """;
+    Files.write(new File(tempJavaDir, "Usage" + JAVA_FILE_EXT).toPath(), javaSource.getBytes());
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments("checkCounters")
+            .withPluginClasspath()
+            .build();
+
+    Assert.assertEquals(TaskOutcome.SUCCESS, result.task(":checkCounters").getOutcome());
+    File genDir = new File(tempProjectDir.getRoot(), "build/generated-src/enumvis/pkgC");
+    Assert.assertFalse(new File(genDir, "PlainCounters" + JAVA_FILE_EXT).exists());
+  }
+
+  @Test
+  public void testGenerateVisitors_withMaps() throws IOException {
+    appendToBuildFile(
+        """
+        enumVisitor {
+          maps = true
+        }
+
+        tasks.register('checkMaps', JavaExec) {
+          classpath = sourceSets.main.runtimeClasspath
+          mainClass = 'pkgE.Usage'
+        }
+        """);
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgE");
+    writeVisitorDefinition(tempSourceDir, "Region", "North\nSouth\nEast\nWest\n");
+    writeVisitorDefinition(tempSourceDir, "Plain", "@maps false\nFirst\n");
+    File tempJavaDir = tempProjectDir.newFolder("src", "main", "java", "pkgE");
+    String javaSource =
+        """
+        package pkgE;
+
+        import java.util.concurrent.atomic.AtomicInteger;
+
+        class Usage {
+          public static void main(String[] args) throws InterruptedException {
+            RegionMap<AtomicInteger> counts = new RegionMap<>();
+            RegionMap<Integer> totals = new RegionMap<>();
+            Thread[] threads = new Thread[8];
+            for (int t = 0; t < threads.length; t++) {
+              threads[t] =
+                  new Thread(
+                      () -> {
+                        for (int i = 0; i < 10_000; i++) {
+                          counts.computeIfAbsent(Region.North, r -> new AtomicInteger())
+                              .incrementAndGet();
+                          totals.compute(Region.East, (r, v) -> v == null ? 1 : v + 1);
+                        }
+                      });
+              threads[t].start();
+            }
+            for (Thread thread : threads) {
+              thread.join();
+            }
+            check(counts.get(Region.North).get() == 80_000, "computeIfAbsent");
+            check(totals.get(Region.East) == 80_000, "compute " + totals.get(Region.East));
+            check(totals.get(Region.South) == null, "absent");
+            check(totals.getOrDefault(Region.South, -1) == -1, "getOrDefault");
+            check(totals.putIfAbsent(Region.South, 2) == null, "putIfAbsent absent");
+            check(totals.putIfAbsent(Region.South, 3) == 2, "putIfAbsent present");
+            check(totals.computeIfPresent(Region.West, (r, v) -> v + 1) == null, "not present");
+            check(totals.size() == 2 && totals.containsKey(Region.South), "size");
+            Integer south = totals.get(Region.South);
+            check(totals.compareAndSet(Region.South, south, 4), "compareAndSet");
+            check(!totals.compareAndSet(Region.South, south, 5), "compareAndSet stale");
+            RegionMap.RegionSnapshot<Integer> snapshot = totals.snapshot();
+            check(totals.put(Region.West, 7) == null, "put");
+            check(totals.remove(Region.East) == 80_000, "remove");
+            StringBuilder entries = new StringBuilder();
+            totals.forEach((region, total) -> entries.append(region).append('=').append(total));
+            check(entries.toString().equals("South=4West=7"), entries.toString());
+            StringBuilder copied = new StringBuilder();
+            snapshot.forEach((region, total) -> copied.append(region).append('=').append(total));
+            check(copied.toString().equals("South=4East=80000"), copied.toString());
+            check(snapshot.size() == 2 && !snapshot.containsKey(Region.West), "snapshot");
+            totals.clear();
+            check(totals.size() == 0, "clear");
+            try {
+              totals.put(Region.North, null);
+              check(false, "put null");
+            } catch (NullPointerException expected) {
+              // The map does not hold nulls
+            }
+          }
+
+          static void check(boolean condition, String message) {
+            if (!condition) {
+              throw new AssertionError(message);
+            }
+          }
+        }
+        """;
+    Files.write(new File(tempJavaDir, "Usage" + JAVA_FILE_EXT).toPath(), javaSource.getBytes());
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments("checkMaps")
+            .withPluginClasspath()
+            .build();
+
+    Assert.assertEquals(TaskOutcome.SUCCESS, result.task(":checkMaps").getOutcome());
+    File genDir = new File(tempProjectDir.getRoot(), "build/generated-src/enumvis/pkgE");
+    Assert.assertTrue(new File(genDir, "RegionMap" + JAVA_FILE_EXT).exists());
+    Assert.assertFalse(new File(genDir, "PlainMap" + JAVA_FILE_EXT).exists());
+  }
+
+  @Test
+  public void testGenerateVisitors_withCompanionsOfEnumsNamedLikeJavaTypes() throws IOException {
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgJ");
+    // Each enum is named like a type its companion uses, which must not resolve to the enum
+    writeVisitorDefinition(tempSourceDir, "Function", "@maps\nApply\n");
+    writeVisitorDefinition(tempSourceDir, "Objects", "@maps\nFirst\n");
+    writeVisitorDefinition(tempSourceDir, "ByteBuffer", "@codecs\nHeap = 0\nDirect = 1\n");
+    writeVisitorDefinition(tempSourceDir, "IOException", "@codecs\nClosed = 0\n");
+    writeVisitorDefinition(tempSourceDir, "Thread", "@counters\nMain\n");
+    writeVisitorDefinition(tempSourceDir, "System", "@counters\n@maps\nLocal\n");
+    writeVisitorDefinition(tempSourceDir, "Runtime", "@counters\nJit\n");
+    writeVisitorDefinition(tempSourceDir, "SuppressWarnings", "@maps\n@tables\nUnchecked\n");
+    writeVisitorDefinition(tempSourceDir, "CharSequence", "@parsers\nUtf8\nAscii\n");
+    writeVisitorDefinition(tempSourceDir, "AssertionError", "@dispatch switch\nFailed\n");
+    writeVisitorDefinition(tempSourceDir, "Object", "@sets\n@tables\nAny\n");
+    StringBuilder longMembers = new StringBuilder("@sets\n");
+    for (int i = 0; i < 65; i++) {
+      longMembers.append("Bit").append(i).append('\n');
+    }
+    writeVisitorDefinition(tempSourceDir, "Long", longMembers.toString());
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(
+                EnumVisitorPlugin.UPDATE_WIRE_ID_LOCK_TASK_NAME, JavaPlugin.COMPILE_JAVA_TASK_NAME)
+            .withPluginClasspath()
+            .build();
+
+    Assert.assertEquals(
+        TaskOutcome.SUCCESS, result.task(":" + JavaPlugin.COMPILE_JAVA_TASK_NAME).getOutcome());
+    File genDir = new File(tempProjectDir.getRoot(), "build/generated-src/enumvis/pkgJ");
+    Assert.assertTrue(new File(genDir, "FunctionMap" + JAVA_FILE_EXT).exists());
+    Assert.assertTrue(new File(genDir, "IOExceptionCodec" + JAVA_FILE_EXT).exists());
+    Assert.assertTrue(new File(genDir, "ThreadCounters" + JAVA_FILE_EXT).exists());
+    Assert.assertTrue(new File(genDir, "LongSet" + JAVA_FILE_EXT).exists());
+  }
+
+  @Test
+  public void testGenerateVisitors_withTables() throws IOException {
+    appendToBuildFile(
+        """
+        enumVisitor {
+          tables = true
+          primitiveVisitors = ['int', 'boolean']
+          emit = providers.gradleProperty('emit').orElse('source')
+        }
+
+        tasks.register('checkTables', JavaExec) {
+          classpath = sourceSets.main.runtimeClasspath
+          mainClass = 'pkgM.Usage'
+        }
+        """);
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgM");
+    writeVisitorDefinition(tempSourceDir, "Planet", "Mercury\nVenus\nEarth\n");
+    writeVisitorDefinition(tempSourceDir, "Level", "@dispatch switch\nLow\nHigh\n");
+    writeVisitorDefinition(tempSourceDir, "Plain", "@tables false\nFirst\n");
+    File tempJavaDir = tempProjectDir.newFolder("src", "main", "java", "pkgM");
+    String javaSource =
+        """
+        package pkgM;
+
+        class Usage {
+          public static void main(String[] args) {
+            int[] calls = new int[1];
+            Planet.PlanetTable<String> names =
+                Planet.tabulate(
+                    new Planet.PlanetVisitor<String>() {
+                      public String visitMercury() {
+                        calls[0]++;
+                        return "hot";
+                      }
+
+                      public String visitVenus() {
+                        calls[0]++;
+                        return "cloudy";
+                      }
+
+                      public String visitEarth() {
+                        calls[0]++;
+                        return "home";
+                      }
+                    });
+            check(calls[0] == 3, "visited once per member");
+            check(names.get(Planet.Venus).equals("cloudy"), "get");
+            check(names.get(Planet.Earth).equals("home") && calls[0] == 3, "memoized");
+            Planet.PlanetIntTable order =
+                Planet.tabulateInt(
+                    new Planet.PlanetIntVisitor() {
+                      public int visitMercury() {
+                        return 1;
+                      }
+
+                      public int visitVenus() {
+                        return 2;
+                      }
+
+                      public int visitEarth() {
+                        return 3;
+                      }
+                    });
+            check(order.get(Planet.Mercury) == 1 && order.get(Planet.Earth) == 3, "int");
+            Level.LevelBooleanTable high =
+                Level.tabulateBoolean(
+                    new Level.LevelBooleanVisitor() {
+                      public boolean visitLow() {
+                        return false;
+                      }
+
+                      public boolean visitHigh() {
+                        return true;
+                      }
+                    });
+            check(high.get(Level.High) && !high.get(Level.Low), "boolean");
+          }
+
+          static void check(boolean condition, String message) {
+            if (!condition) {
+              throw new AssertionError(message);
+            }
+          }
+        }
+        """;
+    Files.write(new File(tempJavaDir, "Usage" + JAVA_FILE_EXT).toPath(), javaSource.getBytes());
+
+    GradleRunner runner =
+        GradleRunner.create().withProjectDir(tempProjectDir.getRoot()).withPluginClasspath();
+    BuildResult result = runner.withArguments("checkTables").build();
+
+    Assert.assertEquals(TaskOutcome.SUCCESS, result.task(":checkTables").getOutcome());
+    File genDir = new File(tempProjectDir.getRoot(), "build/generated-src/enumvis/pkgM");
+    Assert.assertFalse(
+        Files.readString(new File(genDir, "Plain" + JAVA_FILE_EXT).toPath()).contains("tabulate"));
+
+    result = runner.withArguments("checkTables", "-Pemit=bytecode").build();
+
+    Assert.assertEquals(TaskOutcome.SUCCESS, result.task(":checkTables").getOutcome());
+  }
+
+  @Test
+  public void testGenerateVisitors_withBytecodeEmission() throws IOException {
+    appendToBuildFile(
+        """
+        enumVisitor {
+          emit = 'bytecode'
+        }
+
+        tasks.register('checkBytecode', JavaExec) {
+          classpath = sourceSets.main.runtimeClasspath
+          mainClass = 'pkgB.Usage'
+        }
+        """);
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgB");
+    writeVisitorDefinition(
+        tempSourceDir, "Bodies", "@primitiveVisitors int\nFirst\nSecond\nThird\n");
+    writeVisitorDefinition(tempSourceDir, "Switched", "@dispatch switch\n@sets\nFirst\nSecond\n");
+    writeVisitorDefinition(tempSourceDir, "Parsed", "@parsers\nFirst\n");
+    File tempJavaDir = tempProjectDir.newFolder("src", "main", "java", "pkgB");
+    String javaSource =
+        """
+        package pkgB;
+
+        import java.util.EnumSet;
+
+        class Usage {
+          public static void main(String[] args) {
+            Bodies.BodiesVisitor<String> visitor =
+                new Bodies.BodiesVisitor<String>() {
+                  public String visitFirst() {
+                    return "1";
+                  }
+
+                  public String visitSecond() {
+                    return "2";
+                  }
+
+                  public String visitThird() {
+                    return "3";
+                  }
+                };
+            StringBuilder visited = new StringBuilder();
+            for (Bodies value : Bodies.values()) {
+              visited.append(value.accept(visitor)).append(value.ordinal());
+              check(value.getDeclaringClass() == Bodies.class, "getDeclaringClass");
+            }
+            check(visited.toString().equals("102132"), visited.toString());
+            check(Bodies.valueOf("Third").acceptInt(new Ordinal()) == 3, "acceptInt");
+            check(EnumSet.allOf(Bodies.class).size() == 3, "EnumSet");
+
+            Switched switched = Switched.valueOf("Second");
+            switch (switched) {
+              case First:
+                throw new AssertionError(switched);
+              case Second:
+                break;
+            }
+            check(switched.name().equals("Second") && switched.toString().equals("Second"), "name");
+            SwitchedSet set = SwitchedSet.allOf();
+            set.remove(Switched.First);
+            check(set.toString().equals("[Second]"), set.toString());
+            check(Parsed.parse("First") == Parsed.First, "parse");
+          }
+
+          static void check(boolean condition, String message) {
+            if (!condition) {
+              throw new AssertionError(message);
+            }
+          }
+
+          static class Ordinal implements Bodies.BodiesIntVisitor {
+            public int visitFirst() {
+              return 1;
+            }
+
+            public int visitSecond() {
+              return 2;
+            }
+
+            public int visitThird() {
+              return 3;
+            }
+          }
+        }
+        """;
+    Files.write(new File(tempJavaDir, "Usage" + JAVA_FILE_EXT).toPath(), javaSource.getBytes());
+
+    GradleRunner runner =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments("checkBytecode")
+            .withPluginClasspath();
+    BuildResult result = runner.build();
+
+    BuildTask task = result.task(":checkBytecode");
+    Assert.assertEquals(TaskOutcome.SUCCESS, task.getOutcome());
+    File genDir = new File(tempProjectDir.getRoot(), "build/generated-src/enumvis/pkgB");
+    File classesDir = new File(tempProjectDir.getRoot(), "build/generated-classes/enumvis/pkgB");
+    Assert.assertFalse(new File(genDir, "Bodies" + JAVA_FILE_EXT).exists());
+    Assert.assertTrue(new File(classesDir, "Bodies$3.class").exists());
+    Assert.assertTrue(new File(classesDir, "Switched$SwitchedVisitor.class").exists());
+    Assert.assertTrue(new File(genDir, "SwitchedSet" + JAVA_FILE_EXT).exists());
+    Assert.assertFalse(
+        "Enums with parse methods are emitted as bytecode too",
+        new File(genDir, "Parsed" + JAVA_FILE_EXT).exists());
+    Assert.assertTrue(new File(classesDir, "Parsed.class").exists());
+
+    writeVisitorDefinition(
+        tempSourceDir,
+        "Bodies",
+        "@dispatch switch\n@primitiveVisitors int\nFirst\nSecond\nThird\n");
+    result = runner.build();
+
+    Assert.assertEquals(TaskOutcome.SUCCESS, result.task(":checkBytecode").getOutcome());
+    Assert.assertTrue(new File(classesDir, "Bodies.class").exists());
+    Assert.assertFalse(new File(classesDir, "Bodies$1.class").exists());
+  }
+
+  @Test
+  public void testGenerateVisitors_withHugeEnums() throws IOException {
+    appendToBuildFile(
+        """
+        tasks.register('checkHugeEnums', JavaExec) {
+          classpath = sourceSets.main.runtimeClasspath
+          mainClass = 'pkgH.Usage'
+        }
+        """);
+    int hugeSize = 10_000;
+    int largeSize = 2_000;
+    StringBuilder catalog = new StringBuilder("@dispatch switch\n@parsers\n@sets\n");
+    StringBuilder metric = new StringBuilder();
+    StringBuilder status = new StringBuilder("@parsers\n");
+    StringBuilder visitors = new StringBuilder();
+    visitors.append("  static class CatalogNames implements Catalog.CatalogVisitor<String> {\n");
+    for (int i = 0; i < hugeSize; i++) {
+      // Distinct codes above 32767 take constants, which the segments hold instead of the enum
+      catalog.append("E").append(i).append(" code:int=").append(i * 7).append("\n");
+      visitors.append("    public String visitE" + i + "() { return \"E" + i + "\"; }\n");
+    }
+    visitors.append("  }\n");
+    visitors.append("  static class MetricNames implements Metric.MetricVisitor<String> {\n");
+    for (int i = 0; i < hugeSize; i++) {
+      metric.append("requests_").append(i).append("_total");
+      metric.append(i % 3 == 0 ? " weight:double=" + i + ".5\n" : "\n");
+      visitors.append(
+          "    public String visitrequests_" + i + "_total() { return \"" + i + "\"; }\n");
+    }
+    visitors.append("  }\n");
+    for (int i = 0; i < largeSize; i++) {
+      status.append("Status").append(i).append("\n");
+    }
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgH");
+    writeVisitorDefinition(tempSourceDir, "Catalog", catalog.toString());
+    writeVisitorDefinition(tempSourceDir, "Metric", metric.toString());
+    writeVisitorDefinition(tempSourceDir, "Status", status.toString());
+    File tempJavaDir = tempProjectDir.newFolder("src", "main", "java", "pkgH");
+    String javaSource =
+        """
+        package pkgH;
+
+        import java.nio.ByteBuffer;
+        import java.nio.charset.StandardCharsets;
+
+        class Usage {
+          public static void main(String[] args) throws Exception {
+            long start = System.nanoTime();
+            Class.forName("pkgH.Catalog");
+            Class.forName("pkgH.Metric");
+            Class.forName("pkgH.Status");
+            long loadMillis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Loaded the huge enums in " + loadMillis + " ms");
+            check(loadMillis < 10_000, "class load time " + loadMillis + " ms");
+
+            check(Catalog.values().length == 10_000, "Catalog.values");
+            CatalogNames catalogNames = new CatalogNames();
+            CatalogSet set = CatalogSet.noneOf();
+            for (Catalog code : Catalog.values()) {
+              String name = code.name();
+              check(code.accept(catalogNames).equals(name), name);
+              check(code.ordinal() == Integer.parseInt(name.substring(1)), name);
+              check(code.code() == code.ordinal() * 7, "code " + name);
+              check(Catalog.parse(name) == code, name);
+              byte[] bytes = ("x" + name).getBytes(StandardCharsets.UTF_8);
+              check(Catalog.parse(bytes, 1, name.length()) == code, name);
+              check(Catalog.parse(ByteBuffer.wrap(bytes, 1, name.length())) == code, name);
+              check(Catalog.parse(name + "0") == null || code.ordinal() < 1_000, name);
+              set.add(code);
+            }
+            check(Catalog.parse("E10000") == null && Catalog.parse("F1") == null, "miss");
+            check(Catalog.valueOf("E9999") == Catalog.E9999, "valueOf");
+            check(set.size() == 10_000 && set.equals(CatalogSet.allOf()), "set");
+
+            MetricNames metricNames = new MetricNames();
+            Metric[] metrics = Metric.values();
+            check(metrics.length == 10_000, "Metric.values");
+            for (int i = 0; i < metrics.length; i++) {
+              check(metrics[i].ordinal() == i, "Metric.ordinal");
+              check(metrics[i].accept(metricNames).equals(String.valueOf(i)), "Metric.accept");
+              check(metrics[i].getDeclaringClass() == Metric.class, "getDeclaringClass");
+              check(metrics[i].weight() == (i % 3 == 0 ? i + 0.5 : 0.0), "Metric.weight");
+            }
+            check(Metric.valueOf("requests_42_total") == Metric.requests_42_total, "valueOf");
+
+            for (Status status : Status.values()) {
+              check(Status.parse(status.name()) == status, status.name());
+            }
+            check(Status.parse("Status2000") == null, "Status.parse");
+          }
+
+          static void check(boolean condition, String message) {
+            if (!condition) {
+              throw new AssertionError(message);
+            }
+          }
+
+        """
+            + visitors
+            + "}\n";
+    Files.write(new File(tempJavaDir, "Usage" + JAVA_FILE_EXT).toPath(), javaSource.getBytes());
+
+    GradleRunner runner =
+        GradleRunner.create().withProjectDir(tempProjectDir.getRoot()).withPluginClasspath();
+    long start = System.nanoTime();
+    BuildResult result =
+        runner.withArguments(JavaPlugin.COMPILE_JAVA_TASK_NAME, "--info").build();
+    long compileMillis = (System.nanoTime() - start) / 1_000_000;
+
+    Assert.assertEquals(
+        TaskOutcome.SUCCESS, result.task(":" + JavaPlugin.COMPILE_JAVA_TASK_NAME).getOutcome());
+    // javac alone fails with "code too large" on enums of this size, this bounds the whole build
+    Assert.assertTrue(
+        "Compiled the huge enums in " + compileMillis + " ms", compileMillis < 120_000);
+    File genDir = new File(tempProjectDir.getRoot(), "build/generated-src/enumvis/pkgH");
+    File classesDir = new File(tempProjectDir.getRoot(), "build/generated-classes/enumvis/pkgH");
+    Assert.assertFalse(new File(genDir, "Catalog" + JAVA_FILE_EXT).exists());
+    Assert.assertTrue(new File(classesDir, "Catalog$Segment4.class").exists());
+    Assert.assertFalse(new File(classesDir, "Catalog$Segment5.class").exists());
+    Assert.assertTrue(new File(genDir, "CatalogSet" + JAVA_FILE_EXT).exists());
+    Assert.assertTrue(new File(classesDir, "Metric$10000.class").exists());
+    Assert.assertTrue(new File(genDir, "Status" + JAVA_FILE_EXT).exists());
+    Assert.assertTrue(
+        result.getOutput(),
+        result
+            .getOutput()
+            .contains("Emitting pkgH/Catalog.v as class files, since javac cannot compile"));
+
+    result = runner.withArguments("checkHugeEnums").build();
+
+    Assert.assertEquals(TaskOutcome.SUCCESS, result.task(":checkHugeEnums").getOutcome());
+  }
+
+  @Test
+  public void testGenerateVisitors_withHugeEnumsWithWireIds() throws IOException {
+    appendToBuildFile(
+        """
+        tasks.register('checkHugeCodecs', JavaExec) {
+          classpath = sourceSets.main.runtimeClasspath
+          mainClass = 'pkgK.Usage'
+        }
+        """);
+    StringBuilder errors = new StringBuilder("@dispatch switch\n@codecs\n");
+    for (int i = 0; i < 20_000; i++) {
+      // The ids above 32767 each take a constant of the class filling them
+      errors.append("Error").append(i).append(" = ").append(i * 3).append("\n");
+    }
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgK");
+    writeVisitorDefinition(tempSourceDir, "ErrorCode", errors.toString());
+    File tempJavaDir = tempProjectDir.newFolder("src", "main", "java", "pkgK");
+    String javaSource =
+        """
+        package pkgK;
+
+        import java.nio.ByteBuffer;
+
+        class Usage {
+          public static void main(String[] args) {
+            check(ErrorCodeCodec.FIXED_WIDTH == 2, "FIXED_WIDTH");
+            ByteBuffer buffer = ByteBuffer.allocate(8);
+            for (ErrorCode error : ErrorCode.values()) {
+              check(error.wireId() == error.ordinal() * 3, "wireId " + error);
+              check(ErrorCodeCodec.fromWireId(error.wireId()) == error, "fromWireId " + error);
+              buffer.clear();
+              ErrorCodeCodec.write(error, buffer);
+              ErrorCodeCodec.writeFixed(error, buffer);
+              buffer.flip();
+              check(ErrorCodeCodec.read(buffer) == error, "varint " + error);
+              check(ErrorCodeCodec.readFixed(buffer) == error, "fixed " + error);
+            }
+            check(ErrorCodeCodec.fromWireId(1) == null, "unknown id");
+            check(ErrorCodeCodec.fromWireId(60_000) == null, "id above the largest");
+          }
+
+          static void check(boolean condition, String message) {
+            if (!condition) {
+              throw new AssertionError(message);
+            }
+          }
+        }
+        """;
+    Files.write(new File(tempJavaDir, "Usage" + JAVA_FILE_EXT).toPath(), javaSource.getBytes());
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(EnumVisitorPlugin.UPDATE_WIRE_ID_LOCK_TASK_NAME, "checkHugeCodecs")
+            .withPluginClasspath()
+            .build();
+
+    Assert.assertEquals(TaskOutcome.SUCCESS, result.task(":checkHugeCodecs").getOutcome());
+    File classesDir = new File(tempProjectDir.getRoot(), "build/generated-classes/enumvis/pkgK");
+    Assert.assertTrue(new File(classesDir, "ErrorCode$Segment9.class").exists());
+    String lock =
+        Files.readString(new File(tempProjectDir.getRoot(), "enumvis-wire-ids.lock").toPath());
+    Assert.assertTrue(lock, lock.contains("pkgK.ErrorCode 59997 Error19999\n"));
+  }
+
+  @Test
+  public void testGenerateVisitors_withMostMembers() throws IOException {
+    appendToBuildFile(
+        """
+        tasks.register('checkMostMembers', JavaExec) {
+          classpath = sourceSets.main.runtimeClasspath
+          mainClass = 'pkgT.Usage'
+        }
+        """);
+    StringBuilder definition = new StringBuilder();
+    for (int i = 0; i < EnumVisitorUtil.MAX_MEMBERS; i++) {
+      definition.append("E").append(i).append(" = ").append(i * 3);
+      definition.append(" weight:double=").append(i).append(".25\n");
+    }
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgT");
+    writeVisitorDefinition(tempSourceDir, "Catalog", definition.toString());
+    File tempJavaDir = tempProjectDir.newFolder("src", "main", "java", "pkgT");
+    String javaSource =
+        """
+        package pkgT;
+
+        class Usage {
+          public static void main(String[] args) {
+            for (Catalog member : Catalog.values()) {
+              int ordinal = member.ordinal();
+              if (member.wireId() != ordinal * 3 || member.weight() != ordinal + 0.25) {
+                throw new AssertionError(member);
+              }
+            }
+          }
+        }
+        """;
+    Files.write(new File(tempJavaDir, "Usage" + JAVA_FILE_EXT).toPath(), javaSource.getBytes());
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(EnumVisitorPlugin.UPDATE_WIRE_ID_LOCK_TASK_NAME, "checkMostMembers")
+            .withPluginClasspath()
+            .build();
+
+    Assert.assertEquals(TaskOutcome.SUCCESS, result.task(":checkMostMembers").getOutcome());
+  }
+
+  @Test
+  public void testGenerateVisitors_withTooManyMembers() throws IOException {
+    StringBuilder definition = new StringBuilder();
+    for (int i = 0; i <= EnumVisitorUtil.MAX_MEMBERS; i++) {
+      definition.append("E").append(i).append("\n");
+    }
+    File tempSourceDir = tempProjectDir.newFolder("src", "main", "enumvis", "pkgT");
+    writeVisitorDefinition(tempSourceDir, "Catalog", definition.toString());
+
+    BuildResult result =
+        GradleRunner.create()
+            .withProjectDir(tempProjectDir.getRoot())
+            .withArguments(EnumVisitorPlugin.GENERATE_ENUM_VISITOR_TASK_NAME)
+            .withPluginClasspath()
+            .buildAndFail();
+
+    String expectedOutput = "has 20001 members, more than the 20000 a class file can hold";
+    Assert.assertTrue(
+        "Build result output does not contain expected string: " + expectedOutput,
+        result.getOutput().contains(expectedOutput));
+  }
+
+  private void appendToBuildFile(String buildString) throws IOException {
+    Files.write(tempBuildFile.toPath(), buildString.getBytes(), StandardOpenOption.APPEND);
+  }
+
   private static void writeVisitorDefinition(File directory, String baseFileName)
       throws IOException {
     String visitorDefinition = """
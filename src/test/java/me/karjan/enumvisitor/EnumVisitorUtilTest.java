@@ -1,5 +1,6 @@
 package me.karjan.enumvisitor;
 
+import java.nio.charset.StandardCharsets;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -35,4 +36,55 @@ public class EnumVisitorUtilTest {
   public void test_isEmpty_withNonBlankStringSurroundedByWhitespace() {
     Assert.assertFalse(EnumVisitorUtil.isEmpty("  test  "));
   }
+
+  @Test
+  public void test_isJavaIdentifier_withIdentifiers() {
+    Assert.assertTrue(EnumVisitorUtil.isJavaIdentifier("Mercury"));
+    Assert.assertTrue(EnumVisitorUtil.isJavaIdentifier("_1"));
+    Assert.assertTrue(EnumVisitorUtil.isJavaIdentifier("$value"));
+  }
+
+  @Test
+  public void test_isJavaIdentifier_withEmptyString() {
+    Assert.assertFalse(EnumVisitorUtil.isJavaIdentifier(""));
+  }
+
+  @Test
+  public void test_isJavaIdentifier_withLeadingDigit() {
+    Assert.assertFalse(EnumVisitorUtil.isJavaIdentifier("1st"));
+  }
+
+  @Test
+  public void test_isJavaIdentifier_withInvalidCharacter() {
+    Assert.assertFalse(EnumVisitorUtil.isJavaIdentifier("first-second"));
+  }
+
+  @Test
+  public void test_isJavaIdentifier_withNonAsciiLetter() {
+    Assert.assertFalse(EnumVisitorUtil.isJavaIdentifier("Caf\u00e9"));
+  }
+
+  @Test
+  public void test_isJavaIdentifier_withReservedWords() {
+    Assert.assertFalse(EnumVisitorUtil.isJavaIdentifier("enum"));
+    Assert.assertFalse(EnumVisitorUtil.isJavaIdentifier("true"));
+    Assert.assertFalse(EnumVisitorUtil.isJavaIdentifier("_"));
+  }
+
+  @Test
+  public void test_contentHash_withEmptyContents() {
+    Assert.assertEquals(
+        "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+        EnumVisitorUtil.contentHash(new byte[0]));
+  }
+
+  @Test
+  public void test_contentHash_dependsOnEveryByte() {
+    String hash = EnumVisitorUtil.contentHash("Mercury\n".getBytes(StandardCharsets.UTF_8));
+    Assert.assertEquals(64, hash.length());
+    Assert.assertEquals(
+        hash, EnumVisitorUtil.contentHash("Mercury\n".getBytes(StandardCharsets.UTF_8)));
+    Assert.assertNotEquals(
+        hash, EnumVisitorUtil.contentHash("Mercury\r\n".getBytes(StandardCharsets.UTF_8)));
+  }
 }
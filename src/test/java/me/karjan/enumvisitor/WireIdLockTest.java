@@ -0,0 +1,130 @@
+package me.karjan.enumvisitor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import org.gradle.api.InvalidUserDataException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Automated unit tests for {@link WireIdLock}. */
+public class WireIdLockTest {
+
+  private static final String PATH = "pkgW/Planet.v";
+
+  private static final String ENUM = "pkgW.Planet";
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  /** Returns the lock read from a file holding the given lines, after the header. */
+  private WireIdLock lock(String... lines) throws IOException {
+    Path file = tempFolder.getRoot().toPath().resolve("enumvis-wire-ids.lock");
+    Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+    return WireIdLock.read(file);
+  }
+
+  private static void assertError(Runnable update, String expectedMessage) {
+    EnumDefinitionException e = Assert.assertThrows(EnumDefinitionException.class, update::run);
+    Assert.assertTrue(e.getMessage(), e.getMessage().contains(expectedMessage));
+  }
+
+  @Test
+  public void test_update_withNewEnum() throws IOException {
+    Path file = tempFolder.getRoot().toPath().resolve("missing.lock");
+    WireIdLock lock = WireIdLock.read(file);
+    lock.update(PATH, ENUM, List.of("Mercury", "Venus"), List.of(2, 0));
+    Assert.assertTrue(lock.contains(ENUM));
+    assertError(() -> lock.checkNothingAdded("updateLock"), "Run the updateLock task");
+
+    lock.writeIfChanged();
+
+    Assert.assertEquals(
+        List.of("pkgW.Planet 0 Venus", "pkgW.Planet 2 Mercury"),
+        Files.readAllLines(file).stream().filter(line -> !line.startsWith("#")).toList());
+    WireIdLock.read(file).checkNothingAdded("updateLock");
+  }
+
+  @Test
+  public void test_update_withLockedIds() throws IOException {
+    WireIdLock lock = lock("pkgW.Planet 0 Mercury", "pkgW.Planet 1 Venus");
+    lock.update(PATH, ENUM, List.of("Venus", "Mercury"), List.of(1, 0));
+    lock.checkNothingAdded("updateLock");
+  }
+
+  @Test
+  public void test_update_withIdsWithinTheFixedWidth() throws IOException {
+    WireIdLock lock = lock("pkgW.Planet 0 Mercury");
+    lock.update(PATH, ENUM, List.of("Mercury", "Venus"), List.of(0, 255));
+    assertError(() -> lock.checkNothingAdded("updateLock"), "pkgW.Planet are not all locked");
+  }
+
+  @Test
+  public void test_update_withIdGrowingTheFixedWidth() throws IOException {
+    WireIdLock lock = lock("pkgW.Planet 255 Mercury");
+    assertError(
+        () -> lock.update(PATH, ENUM, List.of("Mercury", "Venus"), List.of(255, 256)),
+        "The wire id 256 of Venus grows the fixed width of the wire ids of pkgW.Planet from 1 to 2"
+            + " bytes");
+  }
+
+  @Test
+  public void test_update_withIdGrowingToFourBytes() throws IOException {
+    WireIdLock lock = lock("pkgW.Planet 256 Mercury");
+    lock.update(PATH, ENUM, List.of("Mercury", "Venus"), List.of(256, 65535));
+    assertError(
+        () ->
+            lock.update(
+                PATH, ENUM, List.of("Mercury", "Venus", "Earth"), List.of(256, 65535, 65536)),
+        "from 2 to 4 bytes");
+  }
+
+  @Test
+  public void test_update_withRemovedId() throws IOException {
+    WireIdLock lock = lock("pkgW.Planet 0 Mercury", "pkgW.Planet 1 Venus");
+    assertError(
+        () -> lock.update(PATH, ENUM, List.of("Mercury"), List.of(0)),
+        "The wire id 1 of Venus of pkgW.Planet was removed. Retire it by replacing Venus with -");
+  }
+
+  @Test
+  public void test_update_withRetiredId() throws IOException {
+    WireIdLock lock = lock("pkgW.Planet 0 Mercury", "pkgW.Planet 1 -");
+    lock.update(PATH, ENUM, List.of("Mercury"), List.of(0));
+    lock.checkNothingAdded("updateLock");
+  }
+
+  @Test
+  public void test_update_withReusedRetiredId() throws IOException {
+    WireIdLock lock = lock("pkgW.Planet 0 Mercury", "pkgW.Planet 1 -");
+    assertError(
+        () -> lock.update(PATH, ENUM, List.of("Mercury", "Vulcan"), List.of(0, 1)),
+        "The wire id 1 of pkgW.Planet is retired, it cannot be reused by Vulcan");
+  }
+
+  @Test
+  public void test_update_withoutWireIds() throws IOException {
+    WireIdLock lock = lock("pkgW.Planet 0 Mercury");
+    assertError(
+        () -> lock.update(PATH, ENUM, List.of("Mercury"), List.of()),
+        "The enum pkgW.Planet, which has locked wire ids, no longer declares wire ids");
+  }
+
+  @Test
+  public void test_checkRemovedExcept_withRemovedEnum() throws IOException {
+    WireIdLock lock = lock("pkgW.Planet 0 Mercury", "pkgW.Moon 0 Luna");
+    lock.checkRemovedExcept(Set.of(ENUM, "pkgW.Moon"));
+    EnumDefinitionException e =
+        Assert.assertThrows(EnumDefinitionException.class, () -> lock.checkRemovedExcept(Set.of()));
+    Assert.assertEquals("pkgW/Moon.v", e.getDefinitionPath());
+  }
+
+  @Test
+  public void test_read_withInvalidLine() throws IOException {
+    Assert.assertThrows(InvalidUserDataException.class, () -> lock("pkgW.Planet one Mercury"));
+  }
+}